@@ -0,0 +1,471 @@
+package com.automation.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a DataBinder for every class implementing com.automation.data.TestDataModel.
+ * 
+ * The generated {@code <ModelClass>_DataBinder} reads JSON with a JsonReader and assigns fields
+ * directly (or through setters for private fields), so binding needs no reflection and no
+ * intermediate JsonElement tree. Field names and exclusions follow Gson: static and transient
+ * fields are skipped and @SerializedName (including alternates) is honoured.
+ * 
+ * Classes that cannot be bound directly (abstract, generic, no accessible no-arg constructor,
+ * a private field without a setter, or a JSON name used by more than one field, e.g. a field
+ * shadowing a superclass field) get no binder and keep using Gson's reflective binding, which
+ * reports the conflicting names itself.
+ */
+@SupportedAnnotationTypes("*")
+public class DataBinderProcessor extends AbstractProcessor {
+    
+    private static final String MODEL_INTERFACE = "com.automation.data.TestDataModel";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String BINDERS = "com.automation.data.DataBinders";
+    
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement modelInterface = processingEnv.getElementUtils().getTypeElement(MODEL_INTERFACE);
+        if (modelInterface == null) {
+            return false;
+        }
+        TypeMirror modelType = processingEnv.getTypeUtils().erasure(modelInterface.asType());
+        for (Element element : roundEnv.getRootElements()) {
+            processType(element, modelType);
+        }
+        // Do not claim annotations; other processors still see them
+        return false;
+    }
+    
+    private void processType(Element element, TypeMirror modelType) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            processType(nested, modelType);
+        }
+        if (type.getKind() != ElementKind.CLASS
+                || !processingEnv.getTypeUtils().isAssignable(type.asType(), modelType)) {
+            return;
+        }
+        BinderModel model = createModel(type);
+        if (model == null) {
+            return;
+        }
+        try {
+            writeBinder(model);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write data binder: " + e.getMessage(), type);
+        }
+    }
+    
+    /**
+     * Collect the bindable properties of a model class.
+     * 
+     * @return The model, or null if the class cannot be bound without reflection
+     */
+    private BinderModel createModel(TypeElement type) {
+        Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)
+                || !type.getTypeParameters().isEmpty()
+                || (type.getNestingKind().isNested() && !modifiers.contains(Modifier.STATIC))) {
+            return skip(type, "abstract, generic, private or inner class");
+        }
+        String packageName = packageOf(type).getQualifiedName().toString();
+        if (!hasAccessibleNoArgConstructor(type, packageName)) {
+            return skip(type, "no accessible no-arg constructor");
+        }
+        
+        BinderModel model = new BinderModel(type, packageName);
+        // Every name becomes a case label of the generated switch, so each may occur only once
+        Set<String> jsonNames = new HashSet<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> fieldModifiers = field.getModifiers();
+                if (fieldModifiers.contains(Modifier.STATIC) || fieldModifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String assignment = assignmentFor(field, current, packageName);
+                if (assignment == null) {
+                    return skip(type, "field " + field.getSimpleName() + " is not accessible and has no setter");
+                }
+                List<String> names = serializedNames(field);
+                for (String name : names) {
+                    if (!jsonNames.add(name)) {
+                        return skip(type, "JSON name \"" + name + "\" is declared more than once (again by "
+                                + current.getSimpleName() + "." + field.getSimpleName() + ")");
+                    }
+                }
+                model.properties.add(new Property(field, assignment, names));
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+        return model;
+    }
+    
+    private BinderModel skip(TypeElement type, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "No data binder generated for " + type.getQualifiedName() + ": " + reason);
+        return null;
+    }
+    
+    private PackageElement packageOf(Element element) {
+        return processingEnv.getElementUtils().getPackageOf(element);
+    }
+    
+    private boolean isAccessible(Element member, String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        return !modifiers.contains(Modifier.PRIVATE)
+                && packageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+    
+    private boolean hasAccessibleNoArgConstructor(TypeElement type, String packageName) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && isAccessible(constructor, packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the statement prefix assigning a field, e.g. "value.name = " or "value.setName(".
+     * Setter assignments are closed with ")" by the caller.
+     */
+    private String assignmentFor(VariableElement field, TypeElement owner, String packageName) {
+        if (isAccessible(field, packageName) && !field.getModifiers().contains(Modifier.FINAL)) {
+            return "value." + field.getSimpleName() + " = ";
+        }
+        String name = field.getSimpleName().toString();
+        String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(owner.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(setter)
+                    && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(method.getParameters().get(0).asType(), field.asType())
+                    && isAccessible(method, packageName)) {
+                return "value." + setter + "(";
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get the JSON names of a field: @SerializedName value and alternates, or the field name
+     */
+    private List<String> serializedNames(VariableElement field) {
+        List<String> names = new ArrayList<>();
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(SERIALIZED_NAME)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : annotation.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if (key.equals("value")) {
+                    names.add(0, (String) entry.getValue().getValue());
+                } else if (key.equals("alternate")) {
+                    @SuppressWarnings("unchecked")
+                    List<? extends AnnotationValue> alternates = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                    for (AnnotationValue alternate : alternates) {
+                        names.add((String) alternate.getValue());
+                    }
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            names.add(field.getSimpleName().toString());
+        }
+        return names;
+    }
+    
+    // ------------------------------------------------------------------------
+    // Code generation
+    // ------------------------------------------------------------------------
+    
+    private void writeBinder(BinderModel model) throws IOException {
+        String modelName = model.type.getQualifiedName().toString();
+        String binderName = binaryName(model.type).replace('$', '_') + "_DataBinder";
+        String simpleBinderName = model.packageName.isEmpty()
+                ? binderName
+                : binderName.substring(model.packageName.length() + 1);
+        
+        StringBuilder code = new StringBuilder();
+        if (!model.packageName.isEmpty()) {
+            code.append("package ").append(model.packageName).append(";\n\n");
+        }
+        code.append("/**\n")
+                .append(" * Generated data binder for ").append(modelName).append(". Do not edit.\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleBinderName)
+                .append(" implements com.automation.data.DataBinder<").append(modelName).append("> {\n\n");
+        
+        // Gson types for values without a direct conversion
+        Map<Property, String> typeConstants = new LinkedHashMap<>();
+        for (Property property : model.properties) {
+            if (Conversion.of(property.field.asType()) == Conversion.GSON) {
+                String constant = "TYPE_" + typeConstants.size();
+                typeConstants.put(property, constant);
+                code.append("    private static final java.lang.reflect.Type ").append(constant).append(" = ")
+                        .append(typeExpression(property.field.asType())).append(";\n");
+            }
+        }
+        if (!typeConstants.isEmpty()) {
+            code.append('\n');
+        }
+        
+        // Streaming read
+        code.append("    @Override\n")
+                .append("    public ").append(modelName)
+                .append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n")
+                .append("        if (").append(BINDERS).append(".skipNull(in)) {\n")
+                .append("            return null;\n")
+                .append("        }\n")
+                .append("        ").append(modelName).append(" value = new ").append(modelName).append("();\n")
+                .append("        in.beginObject();\n")
+                .append("        while (in.hasNext()) {\n")
+                .append("            switch (in.nextName()) {\n");
+        for (Property property : model.properties) {
+            for (String name : property.names) {
+                code.append("                case \"").append(escape(name)).append("\":\n");
+            }
+            appendRead(code, property, typeConstants.get(property));
+            code.append("                    break;\n");
+        }
+        code.append("                default:\n")
+                .append("                    in.skipValue();\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        in.endObject();\n")
+                .append("        return value;\n")
+                .append("    }\n\n");
+        
+        // Map binding
+        code.append("    @Override\n")
+                .append("    public ").append(modelName).append(" fromMap(java.util.Map<String, ?> values) {\n")
+                .append("        ").append(modelName).append(" value = new ").append(modelName).append("();\n")
+                .append("        Object v;\n");
+        for (Property property : model.properties) {
+            code.append("        v = values.get(\"").append(escape(property.names.get(0))).append("\");\n");
+            for (int i = 1; i < property.names.size(); i++) {
+                code.append("        if (v == null) {\n")
+                        .append("            v = values.get(\"").append(escape(property.names.get(i))).append("\");\n")
+                        .append("        }\n");
+            }
+            code.append("        if (v != null) {\n")
+                    .append("            ").append(assign(property, mapConversion(property, typeConstants.get(property))))
+                    .append(";\n")
+                    .append("        }\n");
+        }
+        code.append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+        
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(binderName, model.type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(code.toString());
+        }
+    }
+    
+    private void appendRead(StringBuilder code, Property property, String typeConstant) {
+        Conversion conversion = Conversion.of(property.field.asType());
+        String indent = "                    ";
+        if (conversion.primitive) {
+            // JSON null leaves primitive fields at their default, as with Gson
+            code.append(indent).append("if (!").append(BINDERS).append(".skipNull(in)) {\n")
+                    .append(indent).append("    ").append(assign(property, conversion.read)).append(";\n")
+                    .append(indent).append("}\n");
+        } else if (conversion == Conversion.GSON) {
+            code.append(indent).append(assign(property, BINDERS + ".read(in, " + typeConstant + ")")).append(";\n");
+        } else if (conversion == Conversion.STRING) {
+            code.append(indent).append(assign(property, conversion.read)).append(";\n");
+        } else {
+            code.append(indent).append(assign(property,
+                    BINDERS + ".skipNull(in) ? null : " + conversion.boxedRead())).append(";\n");
+        }
+    }
+    
+    private String mapConversion(Property property, String typeConstant) {
+        Conversion conversion = Conversion.of(property.field.asType());
+        if (conversion == Conversion.GSON) {
+            return BINDERS + ".convert(v, " + typeConstant + ")";
+        }
+        return conversion.fromMap;
+    }
+    
+    private static String assign(Property property, String expression) {
+        return property.assignment.endsWith("(")
+                ? property.assignment + expression + ")"
+                : property.assignment + expression;
+    }
+    
+    private String typeExpression(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return processingEnv.getTypeUtils().erasure(type).toString() + ".class";
+        }
+        if (type.getKind() == TypeKind.ARRAY || type.getKind().isPrimitive()) {
+            return type.toString() + ".class";
+        }
+        return "new com.google.gson.reflect.TypeToken<" + type + ">() {}.getType()";
+    }
+    
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+    
+    /**
+     * How a field type is read from JSON and converted from a map value
+     */
+    private enum Conversion {
+        STRING(false, BINDERS + ".readString(in)", BINDERS + ".toString(v)"),
+        INT(true, "in.nextInt()", BINDERS + ".toInt(v)"),
+        LONG(true, "in.nextLong()", BINDERS + ".toLong(v)"),
+        DOUBLE(true, "in.nextDouble()", BINDERS + ".toDouble(v)"),
+        FLOAT(true, "(float) in.nextDouble()", BINDERS + ".toFloat(v)"),
+        SHORT(true, "(short) in.nextInt()", "(short) " + BINDERS + ".toInt(v)"),
+        BYTE(true, "(byte) in.nextInt()", "(byte) " + BINDERS + ".toInt(v)"),
+        BOOLEAN(true, BINDERS + ".readBoolean(in)", BINDERS + ".toBoolean(v)"),
+        BOXED_INT(false, "in.nextInt()", BINDERS + ".toInt(v)"),
+        BOXED_LONG(false, "in.nextLong()", BINDERS + ".toLong(v)"),
+        BOXED_DOUBLE(false, "in.nextDouble()", BINDERS + ".toDouble(v)"),
+        BOXED_FLOAT(false, "(float) in.nextDouble()", BINDERS + ".toFloat(v)"),
+        BOXED_BOOLEAN(false, BINDERS + ".readBoolean(in)", BINDERS + ".toBoolean(v)"),
+        GSON(false, null, null);
+        
+        final boolean primitive;
+        final String read;
+        final String fromMap;
+        
+        Conversion(boolean primitive, String read, String fromMap) {
+            this.primitive = primitive;
+            this.read = read;
+            this.fromMap = fromMap;
+        }
+        
+        /**
+         * Read expression for boxed types, boxing explicitly so the conditional stays null-safe
+         */
+        String boxedRead() {
+            switch (this) {
+                case BOXED_INT:
+                    return "Integer.valueOf(" + read + ")";
+                case BOXED_LONG:
+                    return "Long.valueOf(" + read + ")";
+                case BOXED_DOUBLE:
+                    return "Double.valueOf(" + read + ")";
+                case BOXED_FLOAT:
+                    return "Float.valueOf(" + read + ")";
+                case BOXED_BOOLEAN:
+                    return "Boolean.valueOf(" + read + ")";
+                default:
+                    return read;
+            }
+        }
+        
+        static Conversion of(TypeMirror type) {
+            switch (type.getKind()) {
+                case INT:
+                    return INT;
+                case LONG:
+                    return LONG;
+                case DOUBLE:
+                    return DOUBLE;
+                case FLOAT:
+                    return FLOAT;
+                case SHORT:
+                    return SHORT;
+                case BYTE:
+                    return BYTE;
+                case BOOLEAN:
+                    return BOOLEAN;
+                case DECLARED:
+                    break;
+                default:
+                    return GSON;
+            }
+            switch (type.toString()) {
+                case "java.lang.String":
+                    return STRING;
+                case "java.lang.Integer":
+                    return BOXED_INT;
+                case "java.lang.Long":
+                    return BOXED_LONG;
+                case "java.lang.Double":
+                    return BOXED_DOUBLE;
+                case "java.lang.Float":
+                    return BOXED_FLOAT;
+                case "java.lang.Boolean":
+                    return BOXED_BOOLEAN;
+                default:
+                    return GSON;
+            }
+        }
+    }
+    
+    private static final class BinderModel {
+        final TypeElement type;
+        final String packageName;
+        final List<Property> properties = new ArrayList<>();
+        
+        BinderModel(TypeElement type, String packageName) {
+            this.type = type;
+            this.packageName = packageName;
+        }
+    }
+    
+    private static final class Property {
+        final VariableElement field;
+        final String assignment;
+        final List<String> names;
+        
+        Property(VariableElement field, String assignment, List<String> names) {
+            this.field = field;
+            this.assignment = assignment;
+            this.names = names;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.automation.processor;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles JSON test data into the binary format read by com.automation.data.BinaryTestData.
+ * 
+ * Runs on the host JVM from the compileTestData Gradle task. JSON is read with a lenient
+ * JsonReader, like JsonParser does at runtime, and numbers keep their source text so that
+ * getString() returns the same value whether a compiled file exists or not.
+ * 
+ * Format (all integers big-endian):
+ * - Header: magic "TDB2", int string table offset, int root value offset
+ * - Values: tag byte followed by the payload
+ *   NULL(0), FALSE(1), TRUE(2), LONG(3) 8 bytes, DOUBLE(4) 8 bytes + int source text string index,
+ *   STRING(5) int string index, ARRAY(6) int count + int[count] element offsets,
+ *   OBJECT(7) int count + count x (int key string index, int value offset), sorted by key bytes
+ * - String table: int count, int[count + 1] end offsets into the blob, UTF-8 blob
+ * Children are written before their parent, so parents can reference child offsets.
+ */
+public final class TestDataCompiler {
+    
+    private static final byte[] MAGIC = "TDB2".getBytes(StandardCharsets.US_ASCII);
+    
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> stringIndex = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    
+    private TestDataCompiler() {
+    }
+    
+    /**
+     * Compile one JSON document
+     * 
+     * @param json The JSON text
+     * @return The compiled file contents
+     */
+    public static byte[] compile(Reader json) throws IOException {
+        return new TestDataCompiler().compileDocument(json);
+    }
+    
+    /**
+     * Compile every .json file below a directory into &lt;name&gt;.tdb files in the output directory
+     * 
+     * Usage: TestDataCompiler &lt;source dir&gt; &lt;output dir&gt;
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: TestDataCompiler <source dir> <output dir>");
+        }
+        File outputDir = new File(args[1]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Failed to create " + outputDir.getAbsolutePath());
+        }
+        compileDirectory(new File(args[0]), outputDir);
+    }
+    
+    private static void compileDirectory(File directory, File outputDir) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                compileDirectory(file, outputDir);
+            } else if (file.getName().endsWith(".json")) {
+                byte[] compiled;
+                try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                    compiled = compile(reader);
+                } catch (IOException | RuntimeException e) {
+                    throw new IOException("Failed to compile test data " + file.getAbsolutePath(), e);
+                }
+                File outputFile = new File(outputDir, file.getName().replaceAll("\\.json$", ".tdb"));
+                try (OutputStream output = new FileOutputStream(outputFile)) {
+                    output.write(compiled);
+                }
+                System.out.println("Compiled test data: " + file.getName() + " -> " + outputFile.getName()
+                        + " (" + compiled.length + " bytes)");
+            }
+        }
+    }
+    
+    private byte[] compileDocument(Reader json) throws IOException {
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        out.write(MAGIC);
+        out.writeInt(0);
+        out.writeInt(0);
+        int rootOffset = write(reader);
+        if (reader.peek() != JsonToken.END_DOCUMENT) {
+            throw new IOException("Unexpected content after the root value: " + reader.peek());
+        }
+        
+        int stringTableOffset = out.size();
+        out.writeInt(strings.size());
+        int end = 0;
+        out.writeInt(end);
+        for (byte[] string : strings) {
+            end += string.length;
+            out.writeInt(end);
+        }
+        for (byte[] string : strings) {
+            out.write(string);
+        }
+        
+        byte[] result = bytes.toByteArray();
+        ByteBuffer.wrap(result).putInt(4, stringTableOffset).putInt(8, rootOffset);
+        return result;
+    }
+    
+    private int write(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return writeObject(reader);
+            case BEGIN_ARRAY:
+                return writeArray(reader);
+            case STRING: {
+                int offset = out.size();
+                out.writeByte(5);
+                out.writeInt(intern(reader.nextString()));
+                return offset;
+            }
+            case NUMBER:
+                return writeNumber(reader.nextString());
+            case BOOLEAN: {
+                int offset = out.size();
+                out.writeByte(reader.nextBoolean() ? 2 : 1);
+                return offset;
+            }
+            case NULL: {
+                reader.nextNull();
+                int offset = out.size();
+                out.writeByte(0);
+                return offset;
+            }
+            default:
+                throw new IOException("Unexpected JSON token " + reader.peek() + " at " + reader.getPath());
+        }
+    }
+    
+    private int writeObject(JsonReader reader) throws IOException {
+        // Later duplicates replace earlier ones, as in JsonObject
+        Map<String, Integer> members = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            members.put(key, write(reader));
+        }
+        reader.endObject();
+        
+        List<byte[]> keys = new ArrayList<>(members.size());
+        Map<byte[], String> names = new HashMap<>();
+        for (String key : members.keySet()) {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            keys.add(keyBytes);
+            names.put(keyBytes, key);
+        }
+        Collections.sort(keys, TestDataCompiler::compareBytes);
+        int offset = out.size();
+        out.writeByte(7);
+        out.writeInt(keys.size());
+        for (byte[] keyBytes : keys) {
+            String key = names.get(keyBytes);
+            out.writeInt(intern(key));
+            out.writeInt(members.get(key));
+        }
+        return offset;
+    }
+    
+    private int writeArray(JsonReader reader) throws IOException {
+        List<Integer> elements = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            elements.add(write(reader));
+        }
+        reader.endArray();
+        int offset = out.size();
+        out.writeByte(6);
+        out.writeInt(elements.size());
+        for (int element : elements) {
+            out.writeInt(element);
+        }
+        return offset;
+    }
+    
+    /**
+     * Numbers whose text is a canonical long are stored as LONG; all others (decimals, exponents,
+     * "-0", values beyond the long range) as DOUBLE together with their source text
+     */
+    private int writeNumber(String literal) throws IOException {
+        int offset = out.size();
+        if (isCanonicalLong(literal)) {
+            out.writeByte(3);
+            out.writeLong(Long.parseLong(literal));
+        } else {
+            out.writeByte(4);
+            out.writeDouble(Double.parseDouble(literal));
+            out.writeInt(intern(literal));
+        }
+        return offset;
+    }
+    
+    private static boolean isCanonicalLong(String literal) {
+        try {
+            return Long.toString(Long.parseLong(literal)).equals(literal);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+    
+    private int intern(String value) {
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+            stringIndex.put(value, index);
+        }
+        return index;
+    }
+    
+    private static int compareBytes(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return a.length - b.length;
+    }
+}
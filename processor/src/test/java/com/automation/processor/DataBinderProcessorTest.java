@@ -0,0 +1,149 @@
+package com.automation.processor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs javac with the processor on small model sources and checks the generated binders.
+ * Only annotation processing runs, so the generated code is not compiled and stubs of the
+ * app's model and binder interfaces are enough.
+ */
+public class DataBinderProcessorTest {
+    
+    private static final String MODEL_INTERFACE =
+            "package com.automation.data; public interface TestDataModel {}";
+    private static final String BINDER_INTERFACE =
+            "package com.automation.data; public interface DataBinder<T> {}";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    
+    @Test
+    public void generatesOneCasePerName() throws IOException {
+        File generated = process(source("test.User",
+                "package test;\n"
+                + "import com.google.gson.annotations.SerializedName;\n"
+                + "public class User implements com.automation.data.TestDataModel {\n"
+                + "    @SerializedName(value = \"user_name\", alternate = {\"login\"}) public String name;\n"
+                + "    public int age;\n"
+                + "}\n"));
+        
+        String binder = read(new File(generated, "test/User_DataBinder.java"));
+        assertEquals(1, occurrences(binder, "case \"user_name\":"));
+        assertEquals(1, occurrences(binder, "case \"login\":"));
+        assertEquals(1, occurrences(binder, "case \"age\":"));
+    }
+    
+    @Test
+    public void skipsFieldShadowingSuperclassField() throws IOException {
+        File generated = process(
+                source("test.Base",
+                        "package test;\n"
+                        + "public class Base {\n"
+                        + "    public String id;\n"
+                        + "}\n"),
+                source("test.Item",
+                        "package test;\n"
+                        + "public class Item extends Base implements com.automation.data.TestDataModel {\n"
+                        + "    public String id;\n"
+                        + "}\n"));
+        
+        assertFalse(new File(generated, "test/Item_DataBinder.java").exists());
+        assertNote("No data binder generated for test.Item: JSON name \"id\"");
+    }
+    
+    @Test
+    public void skipsAlternateCollidingWithAnotherField() throws IOException {
+        File generated = process(source("test.Order",
+                "package test;\n"
+                + "import com.google.gson.annotations.SerializedName;\n"
+                + "public class Order implements com.automation.data.TestDataModel {\n"
+                + "    public String total;\n"
+                + "    @SerializedName(value = \"sum\", alternate = {\"total\"}) public String sum;\n"
+                + "}\n"));
+        
+        assertFalse(new File(generated, "test/Order_DataBinder.java").exists());
+        assertNote("No data binder generated for test.Order: JSON name \"total\"");
+    }
+    
+    /**
+     * Run annotation processing only
+     * 
+     * @return The directory the generated sources were written to
+     */
+    private File process(JavaFileObject... sources) throws IOException {
+        File generated = folder.newFolder("generated");
+        List<JavaFileObject> units = new ArrayList<>(Arrays.asList(sources));
+        units.add(source("com.automation.data.TestDataModel", MODEL_INTERFACE));
+        units.add(source("com.automation.data.DataBinder", BINDER_INTERFACE));
+        
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = Arrays.asList("-proc:only", "-s", generated.getPath(),
+                    "-classpath", System.getProperty("java.class.path"));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics, options, null, units);
+            task.setProcessors(Arrays.asList(new DataBinderProcessor()));
+            boolean success = task.call();
+            assertTrue("Processing failed: " + diagnostics.getDiagnostics(), success);
+        }
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            assertFalse(diagnostic.toString(), diagnostic.getKind() == Diagnostic.Kind.ERROR);
+        }
+        return generated;
+    }
+    
+    private void assertNote(String prefix) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.NOTE && diagnostic.getMessage(null).startsWith(prefix)) {
+                return;
+            }
+        }
+        throw new AssertionError("No note starting with " + prefix + " in " + diagnostics.getDiagnostics());
+    }
+    
+    private static JavaFileObject source(String className, final String code) {
+        URI uri = URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension);
+        return new SimpleJavaFileObject(uri, JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+    
+    private static String read(File file) throws IOException {
+        assertTrue("Not generated: " + file, file.exists());
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+    
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
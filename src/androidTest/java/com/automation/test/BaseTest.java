@@ -1,62 +1,173 @@
 package com.automation.test;
 
-import androidx.test.espresso.IdlingRegistry;
-import androidx.test.espresso.idling.CountingIdlingResource;
+import com.automation.data.TestDataPreloader;
+import com.automation.idling.BusyLeakWatchdog;
+import com.automation.idling.IdlingDiagnostics;
+import com.automation.idling.IdlingMetricsRule;
 import com.automation.idling.IdlingResourceManager;
+import com.automation.idling.VirtualClock;
+import com.automation.idling.VirtualTimeIdlingResource;
 import com.automation.utils.EspressoIntentsHelper;
+import com.automation.utils.FrameRecorder;
 import com.automation.utils.ScreenshotHelper;
 
+import androidx.test.espresso.IdlingRegistry;
+
 import org.junit.After;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Rule;
+import org.junit.rules.RuleChain;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Base test class for all Espresso tests
  * Provides common setup and teardown methods
  * Automatically takes screenshots on test failure
+ * Preloads test data in the background so data access inside tests is served from memory
+ * Reports per-test busy time of each idling resource
+ * Fails tests fast when a busy token is leaked instead of waiting out the idling timeout
+ * Optionally runs the app's delayed work on virtual time (see useVirtualTime())
+ * Keeps the last seconds of the screen in memory and saves them as a video on failure
  */
 public abstract class BaseTest {
     
+    /**
+     * Maximum time setUp() waits for test data preloading to finish; after one timeout,
+     * later tests no longer wait
+     */
+    private static final long PRELOAD_TIMEOUT_SECONDS = 30;
+    
+    /**
+     * Maximum time to wait for pending screenshots after a test class
+     */
+    private static final long SCREENSHOT_FLUSH_TIMEOUT_SECONDS = 30;
+    
     protected IdlingResourceManager idlingResourceManager;
     
+    private VirtualTimeIdlingResource virtualTimeIdlingResource;
+    
+    /**
+     * JUnit creates a new instance for every test, before any rule or setUp() runs
+     */
+    private final long createdNanos = System.nanoTime();
+    
     /**
      * TestWatcher rule that automatically takes screenshots when tests fail.
-     * Screenshots are saved with the test class and method name.
+     * Screenshots are saved with the test class and method name, in the background;
+     * flushScreenshots() waits for them after each test class.
+     * When Espresso stalled or resources were still busy, an idling diagnostics
+     * snapshot is saved next to the screenshot. The frames recorded before the
+     * failure are saved as an MP4, also in the background.
      */
-    @Rule
     public TestWatcher screenshotWatcher = new TestWatcher() {
         @Override
         protected void failed(Throwable e, Description description) {
             super.failed(e, description);
-            // Take screenshot on test failure
-            String testClassName = description.getClassName();
-            String testMethodName = description.getMethodName();
-            String screenshotPath = ScreenshotHelper.takeScreenshot(testClassName, testMethodName);
+            // Snapshot synchronization state first, before the screenshot changes timing. When the
+            // watchdog stopped the test, its snapshot shows the leak before it was released
+            IdlingDiagnostics leak = busyLeakWatchdog.getLeakDiagnostics();
+            IdlingDiagnostics diagnostics = leak != null ? leak : idlingResourceManager.captureDiagnostics();
+            boolean stalled = leak != null || IdlingDiagnostics.isStall(e) || diagnostics.hasBusyWork();
+            
+            // Take screenshot on test failure; encoding and writing continue in the background
+            final String testClassName = description.getClassName();
+            final String testMethodName = description.getMethodName();
+            ScreenshotHelper.takeScreenshotAsync(testClassName, testMethodName, screenshotPath -> {
+                if (screenshotPath != null) {
+                    System.out.println("Test failed. Screenshot saved: " + screenshotPath);
+                } else {
+                    System.err.println("Test failed but screenshot could not be saved");
+                }
+                
+                if (stalled) {
+                    // Content-addressed screenshots are shared between tests, so name the file after the test
+                    String basePath = screenshotPath != null && !ScreenshotHelper.isContentAddressedStorage()
+                            ? screenshotPath
+                            : ScreenshotHelper.getScreenshotDirectoryPath() + "/"
+                                    + testClassName + "_" + testMethodName + "_" + System.currentTimeMillis();
+                    String diagnosticsPath = diagnostics.writeNextTo(basePath);
+                    if (diagnosticsPath != null) {
+                        System.out.println("Busy idling resources " + diagnostics.getBusyResourceNames()
+                                + ". Diagnostics saved: " + diagnosticsPath);
+                    }
+                }
+            });
             
-            if (screenshotPath != null) {
-                System.out.println("Test failed. Screenshot saved: " + screenshotPath);
-            } else {
-                System.err.println("Test failed but screenshot could not be saved");
+            FrameRecorder recorder = FrameRecorder.getInstance();
+            if (recordFramesOnFailure() && recorder.getFrameCount() > 0) {
+                recorder.writeVideoAsync(testClassName, testMethodName);
             }
         }
     };
     
+    /**
+     * Rule that reports how long each idling resource was busy during the test
+     */
+    public IdlingMetricsRule idlingMetrics = new IdlingMetricsRule();
+    
+    /**
+     * Rule that fails the test when a busy token is held longer than the budget
+     * or a resource is decremented more often than incremented
+     */
+    public BusyLeakWatchdog busyLeakWatchdog = new BusyLeakWatchdog();
+    
+    /**
+     * Orders the rules above; JUnit would otherwise order @Rule fields by name.
+     * The screenshot watcher runs inside the watchdog, so it sees busy tokens and resources
+     * before the watchdog releases them at the end of the test.
+     */
+    @Rule
+    public RuleChain rules = RuleChain.outerRule(busyLeakWatchdog)
+            .around(idlingMetrics)
+            .around(screenshotWatcher);
+    
     public BaseTest() {
         this.idlingResourceManager = IdlingResourceManager.getInstance();
     }
     
+    /**
+     * Start loading all test data files in the background.
+     * Runs once per process; loading overlaps with the app launch of the first test.
+     */
+    @BeforeClass
+    public static void preloadTestData() {
+        TestDataPreloader.start();
+    }
+    
     @Before
     public void setUp() {
+        // Keep test data parsing out of the timed test body
+        if (!TestDataPreloader.awaitCompletion(PRELOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            System.err.println("Test data preloading has not finished; files still loading are read on first use");
+        }
+        
         // Initialize Espresso Intents
         EspressoIntentsHelper.init();
         
-        // Clear any existing idling resources
-        idlingResourceManager.clearAll();
-        
-        // Register common idling resources if needed
+        // Register common idling resources if needed; a no-op after the first test of the class
         setupIdlingResources();
+        // Registration persists, busy counts must not. Only work from before this test is reset:
+        // rules may already have launched the app, whose own work keeps resources busy
+        resetBusyCounts(createdNanos, "before");
+        
+        if (useVirtualTime()) {
+            VirtualClock.getInstance().reset();
+            virtualTimeIdlingResource = new VirtualTimeIdlingResource(VirtualClock.getInstance(),
+                    autoAdvanceVirtualTime());
+            IdlingRegistry.getInstance().register(virtualTimeIdlingResource);
+        }
+        
+        if (recordFramesOnFailure()) {
+            // Frames of earlier tests must not end up in this test's video
+            FrameRecorder.getInstance().reset();
+            FrameRecorder.getInstance().start();
+        }
     }
     
     @After
@@ -64,14 +175,82 @@ public abstract class BaseTest {
         // Release Espresso Intents
         EspressoIntentsHelper.release();
         
-        // Unregister all idling resources
-        CountingIdlingResource[] resources = 
-                (CountingIdlingResource[]) idlingResourceManager.getAllIdlingResources();
-        for (CountingIdlingResource resource : resources) {
-            IdlingRegistry.getInstance().unregister(resource);
+        if (virtualTimeIdlingResource != null) {
+            IdlingRegistry.getInstance().unregister(virtualTimeIdlingResource);
+            virtualTimeIdlingResource.release();
+            virtualTimeIdlingResource = null;
         }
         
-        idlingResourceManager.clearAll();
+        resetBusyCounts(System.nanoTime(), "after");
+    }
+    
+    private void resetBusyCounts(long startedBeforeNanos, String phase) {
+        List<String> busy = idlingResourceManager.resetBusyCounts(startedBeforeNanos);
+        if (!busy.isEmpty()) {
+            System.err.println("Reset idling resources still busy " + phase + " the test: " + busy);
+        }
+    }
+    
+    /**
+     * Whether this test runs the app's delayed work on VirtualClock.getInstance().
+     * Override to return true for screens with debouncing, countdowns or auto-dismiss timers;
+     * the app must take its delayed executors from VirtualTimeScheduler or VirtualTimeHandler
+     * in test builds. Espresso then only waits for work due at the current virtual time.
+     */
+    protected boolean useVirtualTime() {
+        return false;
+    }
+    
+    /**
+     * Whether Espresso synchronization advances virtual time to the next pending task on its own.
+     * Override to return true when the screen has no endlessly repeating timers.
+     */
+    protected boolean autoAdvanceVirtualTime() {
+        return false;
+    }
+    
+    /**
+     * Whether the last frames before a failure are saved as a video (see FrameRecorder).
+     * Recording copies a downscaled frame a few times per second; override to return false
+     * for performance-sensitive tests.
+     */
+    protected boolean recordFramesOnFailure() {
+        return true;
+    }
+    
+    /**
+     * Move virtual time forward, running the delayed work that becomes due
+     */
+    protected void advanceTime(long amount, TimeUnit unit) {
+        VirtualClock.getInstance().advanceBy(amount, unit);
+    }
+    
+    /**
+     * Unregister all idling resources once the test class has finished.
+     * Registration persists across the tests of a class, so Espresso's registry is not
+     * rebuilt for every test; busy counts are reset in setUp() and tearDown() instead.
+     */
+    @AfterClass
+    public static void clearIdlingResources() {
+        IdlingResourceManager.getInstance().clearAll();
+    }
+    
+    /**
+     * Wait for failure screenshots and videos still being written, so none are lost when
+     * instrumentation finishes
+     */
+    @AfterClass
+    public static void flushScreenshots() {
+        ScreenshotHelper.flush(SCREENSHOT_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        FrameRecorder.getInstance().flush(SCREENSHOT_FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Stop the frame recorder's capture thread between test classes
+     */
+    @AfterClass
+    public static void stopFrameRecorder() {
+        FrameRecorder.getInstance().stop();
     }
     
     /**
@@ -86,21 +265,17 @@ public abstract class BaseTest {
     }
     
     /**
-     * Register an idling resource
+     * Register an idling resource as part of the manager's composite resource
      */
     protected void registerIdlingResource(String name) {
-        CountingIdlingResource resource = idlingResourceManager.getIdlingResource(name);
-        IdlingRegistry.getInstance().register(resource);
+        idlingResourceManager.registerIdlingResource(name);
     }
     
     /**
      * Unregister an idling resource
      */
     protected void unregisterIdlingResource(String name) {
-        CountingIdlingResource resource = idlingResourceManager.getIdlingResource(name);
-        if (resource != null) {
-            IdlingRegistry.getInstance().unregister(resource);
-        }
+        idlingResourceManager.unregisterIdlingResource(name);
     }
 }
 
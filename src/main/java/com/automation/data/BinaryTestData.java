@@ -0,0 +1,458 @@
+package com.automation.data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only view over precompiled binary test data.
+ * 
+ * Files are produced from JSON by the compileTestData Gradle task (TestDataCompiler in the
+ * processor module) and memory-mapped at runtime, so opening a file costs no parsing and
+ * lookups read directly from the mapped buffer.
+ * Values are addressed by their offset in the file; key lookups binary-search the sorted keys
+ * of an object and compare them in place without allocating. Strings are decoded from the
+ * string table once and then reused.
+ * 
+ * Format (all integers big-endian):
+ * - Header: magic "TDB2", int string table offset, int root value offset
+ * - Values: tag byte followed by the payload
+ *   NULL(0), FALSE(1), TRUE(2), LONG(3) 8 bytes, DOUBLE(4) 8 bytes + int source text string index,
+ *   STRING(5) int string index, ARRAY(6) int count + int[count] element offsets,
+ *   OBJECT(7) int count + count x (int key string index, int value offset), sorted by key bytes
+ * - String table: int count, int[count + 1] end offsets into the blob, UTF-8 blob
+ */
+public class BinaryTestData {
+    
+    public static final int TYPE_NULL = 0;
+    public static final int TYPE_FALSE = 1;
+    public static final int TYPE_TRUE = 2;
+    public static final int TYPE_LONG = 3;
+    public static final int TYPE_DOUBLE = 4;
+    public static final int TYPE_STRING = 5;
+    public static final int TYPE_ARRAY = 6;
+    public static final int TYPE_OBJECT = 7;
+    
+    /**
+     * Offset returned by lookups when the key or index does not exist
+     */
+    public static final int NOT_FOUND = -1;
+    
+    private static final int MAGIC = ('T' << 24) | ('D' << 16) | ('B' << 8) | '2';
+    
+    private final ByteBuffer buffer;
+    private final int rootOffset;
+    private final int stringCount;
+    private final int stringOffsetsStart;
+    private final int stringBlobStart;
+    private final String[] strings;
+    
+    /**
+     * Wrap a buffer containing a compiled test data file.
+     * 
+     * @param buffer The file contents, typically a MappedByteBuffer
+     */
+    public BinaryTestData(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < 12 || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a compiled test data file");
+        }
+        int stringTableOffset = buffer.getInt(4);
+        this.rootOffset = buffer.getInt(8);
+        this.stringCount = buffer.getInt(stringTableOffset);
+        this.stringOffsetsStart = stringTableOffset + 4;
+        this.stringBlobStart = stringOffsetsStart + 4 * (stringCount + 1);
+        this.strings = new String[stringCount];
+    }
+    
+    /**
+     * @return The offset of the root value (normally an object)
+     */
+    public int root() {
+        return rootOffset;
+    }
+    
+    /**
+     * Get the type tag of the value at an offset
+     */
+    public int type(int offset) {
+        return buffer.get(offset);
+    }
+    
+    /**
+     * Look up a top-level key.
+     * 
+     * @param key The key to find
+     * @return The offset of the value, or NOT_FOUND
+     */
+    public int find(String key) {
+        return get(rootOffset, key);
+    }
+    
+    /**
+     * Look up a value by path, e.g. "accounts[3].profile.locale".
+     * A top-level key containing the whole path wins. Otherwise, like TestDataProvider, the path
+     * starts at the longest prefix that is a top-level key (top-level keys may contain dots) and
+     * the rest is walked segment by segment, comparing key segments in place so no substrings
+     * are created.
+     * 
+     * @param path Dot-separated object keys with optional [index] array subscripts
+     * @return The offset of the value, or NOT_FOUND
+     */
+    public int findPath(String path) {
+        int offset = find(path);
+        if (offset != NOT_FOUND) {
+            return offset;
+        }
+        for (int i = path.length() - 1; i > 0; i--) {
+            char c = path.charAt(i);
+            if (c != '.' && c != '[') {
+                continue;
+            }
+            int value = get(rootOffset, path, 0, i);
+            if (value != NOT_FOUND) {
+                offset = walk(value, path, i);
+                if (offset != NOT_FOUND) {
+                    return offset;
+                }
+            }
+        }
+        return NOT_FOUND;
+    }
+    
+    /**
+     * Walk the rest of a path from a value
+     * 
+     * @param start Index of the '.' or '[' that starts the rest of the path
+     */
+    private int walk(int current, String path, int start) {
+        int length = path.length();
+        int i = start;
+        while (i < length && current != NOT_FOUND) {
+            char c = path.charAt(i);
+            if (c == '[') {
+                int close = path.indexOf(']', i);
+                if (close < 0) {
+                    return NOT_FOUND;
+                }
+                current = element(current, parseIndex(path, i + 1, close));
+                i = close + 1;
+                continue;
+            }
+            if (c == '.') {
+                i++;
+            }
+            int end = i;
+            while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                end++;
+            }
+            if (end == i) {
+                return NOT_FOUND;
+            }
+            current = get(current, path, i, end);
+            i = end;
+        }
+        return current;
+    }
+    
+    /**
+     * Parse an array subscript without allocating
+     * 
+     * @return The index, or -1 if the subscript is not a non-negative integer
+     */
+    private static int parseIndex(String path, int start, int end) {
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+    
+    /**
+     * Look up a key in an object value.
+     * 
+     * @param objectOffset The offset of the object
+     * @param key The key to find
+     * @return The offset of the value, or NOT_FOUND if the key is missing or the value is not an object
+     */
+    public int get(int objectOffset, String key) {
+        return get(objectOffset, key, 0, key.length());
+    }
+    
+    /**
+     * Look up a key given as a region of a larger string, without creating a substring.
+     * 
+     * @param objectOffset The offset of the object
+     * @param key String containing the key
+     * @param start Start index of the key in the string (inclusive)
+     * @param end End index of the key in the string (exclusive)
+     * @return The offset of the value, or NOT_FOUND
+     */
+    int get(int objectOffset, CharSequence key, int start, int end) {
+        if (objectOffset < 0 || type(objectOffset) != TYPE_OBJECT) {
+            return NOT_FOUND;
+        }
+        int low = 0;
+        int high = buffer.getInt(objectOffset + 1) - 1;
+        int entries = objectOffset + 5;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = entries + mid * 8;
+            int cmp = compareString(buffer.getInt(entry), key, start, end);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(entry + 4);
+            }
+        }
+        return NOT_FOUND;
+    }
+    
+    /**
+     * Get the number of elements of an array or entries of an object
+     */
+    public int size(int offset) {
+        int type = type(offset);
+        return type == TYPE_ARRAY || type == TYPE_OBJECT ? buffer.getInt(offset + 1) : 0;
+    }
+    
+    /**
+     * Get an element of an array value.
+     * 
+     * @param arrayOffset The offset of the array
+     * @param index The element index
+     * @return The offset of the element, or NOT_FOUND if out of range or not an array
+     */
+    public int element(int arrayOffset, int index) {
+        if (arrayOffset < 0 || type(arrayOffset) != TYPE_ARRAY
+                || index < 0 || index >= buffer.getInt(arrayOffset + 1)) {
+            return NOT_FOUND;
+        }
+        return buffer.getInt(arrayOffset + 5 + index * 4);
+    }
+    
+    /**
+     * Get the key of an object entry, in key order
+     * 
+     * @param objectOffset The offset of the object
+     * @param index The entry index, below size(objectOffset)
+     */
+    public String key(int objectOffset, int index) {
+        return string(buffer.getInt(objectOffset + 5 + index * 8));
+    }
+    
+    /**
+     * Get the value offset of an object entry, in key order
+     * 
+     * @param objectOffset The offset of the object
+     * @param index The entry index, below size(objectOffset)
+     */
+    public int value(int objectOffset, int index) {
+        return buffer.getInt(objectOffset + 5 + index * 8 + 4);
+    }
+    
+    /**
+     * Get the number of rows in a top-level array
+     */
+    public int rowCount(String key) {
+        int array = find(key);
+        return array >= 0 && type(array) == TYPE_ARRAY ? size(array) : 0;
+    }
+    
+    /**
+     * Get a row of a top-level array.
+     * 
+     * @param key The top-level key holding the rows
+     * @param index The row index
+     * @return The offset of the row, or NOT_FOUND
+     */
+    public int row(String key, int index) {
+        return element(find(key), index);
+    }
+    
+    /**
+     * Get a value as a string, converting numbers and booleans like Gson's getAsString().
+     * Decimal numbers return their source text (e.g. "10.50", "1e3"), as the JSON path does.
+     */
+    public String getString(int offset) {
+        switch (type(offset)) {
+            case TYPE_STRING:
+                return string(buffer.getInt(offset + 1));
+            case TYPE_LONG:
+                return Long.toString(buffer.getLong(offset + 1));
+            case TYPE_DOUBLE:
+                return string(buffer.getInt(offset + 9));
+            case TYPE_TRUE:
+                return "true";
+            case TYPE_FALSE:
+                return "false";
+            default:
+                throw new IllegalStateException("Value is not a primitive at offset " + offset);
+        }
+    }
+    
+    /**
+     * Get a value as a long, parsing strings like Gson's getAsLong()
+     */
+    public long getLong(int offset) {
+        switch (type(offset)) {
+            case TYPE_LONG:
+                return buffer.getLong(offset + 1);
+            case TYPE_DOUBLE:
+                return (long) buffer.getDouble(offset + 1);
+            case TYPE_STRING:
+                return Long.parseLong(string(buffer.getInt(offset + 1)));
+            default:
+                throw new IllegalStateException("Value is not a number at offset " + offset);
+        }
+    }
+    
+    /**
+     * Get a value as an int, parsing strings like Gson's getAsInt()
+     * 
+     * @throws NumberFormatException if the value is outside the int range
+     */
+    public int getInt(int offset) {
+        long value = getLong(offset);
+        if (value != (int) value) {
+            throw new NumberFormatException("Value " + value + " at offset " + offset + " does not fit in an int");
+        }
+        return (int) value;
+    }
+    
+    /**
+     * Get a value as a double, parsing strings like Gson's getAsDouble()
+     */
+    public double getDouble(int offset) {
+        switch (type(offset)) {
+            case TYPE_LONG:
+                return buffer.getLong(offset + 1);
+            case TYPE_DOUBLE:
+                return buffer.getDouble(offset + 1);
+            case TYPE_STRING:
+                return Double.parseDouble(string(buffer.getInt(offset + 1)));
+            default:
+                throw new IllegalStateException("Value is not a number at offset " + offset);
+        }
+    }
+    
+    /**
+     * Get a value as a boolean, parsing strings like Gson's getAsBoolean()
+     * 
+     * @throws IllegalStateException if the value is neither a boolean nor a string
+     */
+    public boolean getBoolean(int offset) {
+        switch (type(offset)) {
+            case TYPE_TRUE:
+                return true;
+            case TYPE_FALSE:
+                return false;
+            case TYPE_STRING:
+                return Boolean.parseBoolean(string(buffer.getInt(offset + 1)));
+            default:
+                throw new IllegalStateException("Value is not a boolean at offset " + offset);
+        }
+    }
+    
+    /**
+     * Get a string field of a row
+     */
+    public String getString(int rowOffset, String field) {
+        return getString(checkFound(get(rowOffset, field), field));
+    }
+    
+    /**
+     * Get a string value by top-level key or path
+     */
+    public String getString(String key) {
+        return getString(checkFound(findPath(key), key));
+    }
+    
+    /**
+     * Get an int value by top-level key or path
+     * 
+     * @throws NumberFormatException if the value is outside the int range
+     */
+    public int getInt(String key) {
+        return getInt(checkFound(findPath(key), key));
+    }
+    
+    /**
+     * Get a boolean value by top-level key or path
+     */
+    public boolean getBoolean(String key) {
+        return getBoolean(checkFound(findPath(key), key));
+    }
+    
+    private static int checkFound(int offset, String key) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Key not found in compiled test data: " + key);
+        }
+        return offset;
+    }
+    
+    /**
+     * Decode an entry of the string table, caching the result
+     */
+    private String string(int index) {
+        String value = strings[index];
+        if (value == null) {
+            int start = stringBlobStart + buffer.getInt(stringOffsetsStart + index * 4);
+            int end = stringBlobStart + buffer.getInt(stringOffsetsStart + (index + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            value = new String(bytes, StandardCharsets.UTF_8);
+            strings[index] = value;
+        }
+        return value;
+    }
+    
+    /**
+     * Compare a string table entry with a region of a char sequence by code point,
+     * decoding the UTF-8 bytes in place. Code point order matches the byte order used
+     * by the compiler to sort object keys.
+     */
+    private int compareString(int index, CharSequence key, int start, int end) {
+        int pos = stringBlobStart + buffer.getInt(stringOffsetsStart + index * 4);
+        int limit = stringBlobStart + buffer.getInt(stringOffsetsStart + (index + 1) * 4);
+        int i = start;
+        while (pos < limit && i < end) {
+            int b = buffer.get(pos) & 0xFF;
+            int codePoint;
+            if (b < 0x80) {
+                codePoint = b;
+                pos += 1;
+            } else if (b < 0xE0) {
+                codePoint = ((b & 0x1F) << 6) | (buffer.get(pos + 1) & 0x3F);
+                pos += 2;
+            } else if (b < 0xF0) {
+                codePoint = ((b & 0x0F) << 12) | ((buffer.get(pos + 1) & 0x3F) << 6)
+                        | (buffer.get(pos + 2) & 0x3F);
+                pos += 3;
+            } else {
+                codePoint = ((b & 0x07) << 18) | ((buffer.get(pos + 1) & 0x3F) << 12)
+                        | ((buffer.get(pos + 2) & 0x3F) << 6) | (buffer.get(pos + 3) & 0x3F);
+                pos += 4;
+            }
+            int keyCodePoint = Character.codePointAt(key, i);
+            if (codePoint != keyCodePoint) {
+                return codePoint < keyCodePoint ? -1 : 1;
+            }
+            i += Character.charCount(keyCodePoint);
+        }
+        if (pos < limit) {
+            return 1;
+        }
+        return i < end ? -1 : 0;
+    }
+}
@@ -0,0 +1,439 @@
+package com.automation.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a t-way covering array for a ParameterSpace with the IPOG strategy.
+ * 
+ * Parameters are added one at a time (largest value sets first). For each new parameter,
+ * horizontal growth gives every existing row the value covering the most still-uncovered
+ * t-tuples; vertical growth then places each remaining tuple into an existing row with free
+ * slots, or a new row. Uncovered tuples are tracked in one bitset per combination of earlier
+ * parameters. Slots left free are filled at the end with values satisfying the constraints.
+ * A tuple the constraints allow on its own but that no complete row can contain is an error,
+ * so the result never silently misses an interaction. The result is deterministic for a given space.
+ */
+final class CoveringArrayGenerator {
+    
+    private static final int FREE = -1;
+    
+    private final ParameterSpace space;
+    private final int parameterCount;
+    private final int strength;
+    /** Original parameter index of each column; columns are sorted by descending value count */
+    private final int[] order;
+    private final int[] sizes;
+    private final Map<String, Integer> columnOf = new HashMap<>();
+    private final List<int[]> rows = new ArrayList<>();
+    private final RowView view = new RowView();
+    
+    private CoveringArrayGenerator(ParameterSpace space) {
+        this.space = space;
+        this.parameterCount = space.getParameterNames().size();
+        this.strength = Math.min(space.getStrength(), parameterCount);
+        
+        Integer[] sorted = new Integer[parameterCount];
+        for (int i = 0; i < parameterCount; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int bySize = space.getValues(b).length - space.getValues(a).length;
+                return bySize != 0 ? bySize : a - b;
+            }
+        });
+        this.order = new int[parameterCount];
+        this.sizes = new int[parameterCount];
+        for (int column = 0; column < parameterCount; column++) {
+            order[column] = sorted[column];
+            sizes[column] = space.getValues(sorted[column]).length;
+            columnOf.put(space.getParameterNames().get(sorted[column]), column);
+        }
+    }
+    
+    /**
+     * Generate the covering array.
+     * 
+     * @return The rows, must-include rows first, each mapping parameter names (in definition
+     *         order) to values
+     * @throws IllegalArgumentException if a must-include row or an allowed tuple cannot be
+     *         completed into a row satisfying the constraints
+     */
+    static List<Map<String, Object>> generate(ParameterSpace space) {
+        CoveringArrayGenerator generator = new CoveringArrayGenerator(space);
+        if (generator.parameterCount == 0) {
+            return Collections.emptyList();
+        }
+        generator.addIncludedRows();
+        for (int column = generator.strength - 1; column < generator.parameterCount; column++) {
+            generator.extend(column);
+        }
+        return generator.complete();
+    }
+    
+    private void addIncludedRows() {
+        for (Map<String, Object> included : space.getIncludedRows()) {
+            int[] row = newRow();
+            for (Map.Entry<String, Object> entry : included.entrySet()) {
+                int column = columnOf.get(entry.getKey());
+                int value = Arrays.asList(space.getValues(order[column])).indexOf(entry.getValue());
+                if (value < 0) {
+                    throw new IllegalArgumentException("Included row has unknown value " + entry.getValue()
+                            + " for parameter " + entry.getKey());
+                }
+                row[column] = value;
+            }
+            rows.add(row);
+        }
+    }
+    
+    private int[] newRow() {
+        int[] row = new int[parameterCount];
+        Arrays.fill(row, FREE);
+        return row;
+    }
+    
+    /**
+     * Cover all t-tuples made of the given column and t - 1 earlier columns
+     */
+    private void extend(int column) {
+        int[][] combinations = combinations(column, strength - 1);
+        BitSet[] uncovered = new BitSet[combinations.length];
+        int[] tuple = newRow();
+        for (int c = 0; c < combinations.length; c++) {
+            int tupleCount = tupleCount(combinations[c]) * sizes[column];
+            uncovered[c] = new BitSet(tupleCount);
+            uncovered[c].set(0, tupleCount);
+            if (!space.getConstraints().isEmpty()) {
+                // Tuples that violate a constraint can never be covered
+                for (int index = 0; index < tupleCount; index++) {
+                    decode(combinations[c], column, index, tuple);
+                    if (!allows(tuple)) {
+                        uncovered[c].clear(index);
+                    }
+                    clear(combinations[c], column, tuple);
+                }
+            }
+        }
+        
+        // Horizontal growth: pick the best value of the new column for each existing row
+        for (int[] row : rows) {
+            if (row[column] == FREE) {
+                int best = FREE;
+                int bestGain = 0;
+                for (int value = 0; value < sizes[column]; value++) {
+                    row[column] = value;
+                    if (!allows(row)) {
+                        continue;
+                    }
+                    int gain = 0;
+                    for (int c = 0; c < combinations.length; c++) {
+                        int index = encode(combinations[c], column, row);
+                        if (index >= 0 && uncovered[c].get(index)) {
+                            gain++;
+                        }
+                    }
+                    if (gain > bestGain) {
+                        best = value;
+                        bestGain = gain;
+                    }
+                }
+                // A row gaining nothing keeps the slot free for vertical growth
+                row[column] = best;
+            }
+            markCovered(row, column, combinations, uncovered);
+        }
+        
+        // Vertical growth: place each remaining tuple into a compatible row, or a new one
+        for (int c = 0; c < combinations.length; c++) {
+            for (int index = uncovered[c].nextSetBit(0); index >= 0; index = uncovered[c].nextSetBit(index + 1)) {
+                decode(combinations[c], column, index, tuple);
+                int[] target = findCompatibleRow(tuple, combinations[c], column);
+                if (target == null) {
+                    target = newRow();
+                    rows.add(target);
+                }
+                merge(tuple, combinations[c], column, target);
+                clear(combinations[c], column, tuple);
+                markCovered(target, column, combinations, uncovered);
+            }
+        }
+    }
+    
+    private void markCovered(int[] row, int column, int[][] combinations, BitSet[] uncovered) {
+        if (row[column] == FREE) {
+            return;
+        }
+        for (int c = 0; c < combinations.length; c++) {
+            int index = encode(combinations[c], column, row);
+            if (index >= 0) {
+                uncovered[c].clear(index);
+            }
+        }
+    }
+    
+    private int[] findCompatibleRow(int[] tuple, int[] combination, int column) {
+        for (int[] row : rows) {
+            if (!fits(row, tuple[column], column)) {
+                continue;
+            }
+            boolean compatible = true;
+            for (int other : combination) {
+                if (!fits(row, tuple[other], other)) {
+                    compatible = false;
+                    break;
+                }
+            }
+            if (!compatible) {
+                continue;
+            }
+            // Check the constraints on the merged row, then undo
+            int[] saved = row.clone();
+            merge(tuple, combination, column, row);
+            boolean allowed = allows(row);
+            System.arraycopy(saved, 0, row, 0, row.length);
+            if (allowed) {
+                return row;
+            }
+        }
+        return null;
+    }
+    
+    private static boolean fits(int[] row, int value, int column) {
+        return row[column] == FREE || row[column] == value;
+    }
+    
+    private static void merge(int[] tuple, int[] combination, int column, int[] row) {
+        row[column] = tuple[column];
+        for (int other : combination) {
+            row[other] = tuple[other];
+        }
+    }
+    
+    private static void clear(int[] combination, int column, int[] tuple) {
+        tuple[column] = FREE;
+        for (int other : combination) {
+            tuple[other] = FREE;
+        }
+    }
+    
+    /**
+     * Number of value combinations of the given columns
+     */
+    private int tupleCount(int[] combination) {
+        int count = 1;
+        for (int column : combination) {
+            count *= sizes[column];
+        }
+        return count;
+    }
+    
+    /**
+     * Index of the row's values in the tuple space of a combination plus the new column
+     * 
+     * @return The index, or -1 if one of the columns is still free
+     */
+    private int encode(int[] combination, int column, int[] row) {
+        int index = 0;
+        for (int other : combination) {
+            if (row[other] == FREE) {
+                return -1;
+            }
+            index = index * sizes[other] + row[other];
+        }
+        if (row[column] == FREE) {
+            return -1;
+        }
+        return index * sizes[column] + row[column];
+    }
+    
+    private void decode(int[] combination, int column, int index, int[] tuple) {
+        tuple[column] = index % sizes[column];
+        index /= sizes[column];
+        for (int i = combination.length - 1; i >= 0; i--) {
+            tuple[combination[i]] = index % sizes[combination[i]];
+            index /= sizes[combination[i]];
+        }
+    }
+    
+    /**
+     * All k-element combinations of the columns before the given one, in lexicographic order
+     */
+    private static int[][] combinations(int columns, int k) {
+        List<int[]> result = new ArrayList<>();
+        int[] current = new int[k];
+        for (int i = 0; i < k; i++) {
+            current[i] = i;
+        }
+        if (k > columns) {
+            return new int[0][];
+        }
+        while (true) {
+            result.add(current.clone());
+            int i = k - 1;
+            while (i >= 0 && current[i] == columns - k + i) {
+                i--;
+            }
+            if (i < 0) {
+                break;
+            }
+            current[i]++;
+            for (int j = i + 1; j < k; j++) {
+                current[j] = current[j - 1] + 1;
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+    
+    private boolean allows(int[] row) {
+        List<ParameterSpace.Constraint> constraints = space.getConstraints();
+        if (constraints.isEmpty()) {
+            return true;
+        }
+        view.row = row;
+        for (ParameterSpace.Constraint constraint : constraints) {
+            if (!constraint.allows(view)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Fill free slots with allowed values and convert rows to maps in definition order.
+     * The tuples of a row that cannot be completed are retried one per row; tuples that fit
+     * no complete row under the constraints are reported instead of silently left uncovered.
+     */
+    private List<Map<String, Object>> complete() {
+        int includedCount = space.getIncludedRows().size();
+        List<int[]> completed = new ArrayList<>(rows.size());
+        List<int[]> incomplete = new ArrayList<>();
+        for (int r = 0; r < rows.size(); r++) {
+            int[] row = rows.get(r);
+            if (fill(row, 0, r)) {
+                completed.add(row);
+            } else if (r < includedCount) {
+                throw new IllegalArgumentException("Included row " + space.getIncludedRows().get(r)
+                        + " cannot be completed under the constraints");
+            } else {
+                incomplete.add(row);
+            }
+        }
+        
+        List<Map<String, Object>> uncoverable = new ArrayList<>();
+        int[][] combinations = combinations(parameterCount, strength);
+        for (int[] row : incomplete) {
+            for (int[] combination : combinations) {
+                if (!isAssigned(row, combination) || isCovered(completed, row, combination)) {
+                    continue;
+                }
+                int[] single = newRow();
+                for (int column : combination) {
+                    single[column] = row[column];
+                }
+                if (fill(single, 0, completed.size())) {
+                    completed.add(single);
+                } else {
+                    uncoverable.add(toMap(single));
+                }
+            }
+        }
+        if (!uncoverable.isEmpty()) {
+            throw new IllegalArgumentException("The constraints allow " + uncoverable.size() + " " + strength
+                    + "-tuples that no complete row can contain, forbid them explicitly: " + uncoverable);
+        }
+        
+        List<Map<String, Object>> result = new ArrayList<>(completed.size());
+        for (int[] row : completed) {
+            result.add(toMap(row));
+        }
+        return result;
+    }
+    
+    private static boolean isAssigned(int[] row, int[] combination) {
+        for (int column : combination) {
+            if (row[column] == FREE) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isCovered(List<int[]> rows, int[] tuple, int[] combination) {
+        for (int[] row : rows) {
+            boolean matches = true;
+            for (int column : combination) {
+                if (row[column] != tuple[column]) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Convert the assigned values of a row to a map in definition order
+     */
+    private Map<String, Object> toMap(int[] row) {
+        List<String> names = space.getParameterNames();
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int parameter = 0; parameter < names.size(); parameter++) {
+            int column = columnOf.get(names.get(parameter));
+            if (row[column] != FREE) {
+                values.put(names.get(parameter), space.getValues(parameter)[row[column]]);
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Fill the free slots of a row from the given column on, backtracking on constraint conflicts.
+     * Candidate values rotate with the row number to spread values across rows.
+     */
+    private boolean fill(int[] row, int column, int rowNumber) {
+        while (column < parameterCount && row[column] != FREE) {
+            column++;
+        }
+        if (column == parameterCount) {
+            return allows(row);
+        }
+        for (int i = 0; i < sizes[column]; i++) {
+            row[column] = (rowNumber + i) % sizes[column];
+            if (allows(row) && fill(row, column + 1, rowNumber)) {
+                return true;
+            }
+        }
+        row[column] = FREE;
+        return false;
+    }
+    
+    /**
+     * Constraint view of a row, reused for every check
+     */
+    private final class RowView implements ParameterSpace.Assignment {
+        int[] row;
+        
+        @Override
+        public Object get(String parameter) {
+            Integer column = columnOf.get(parameter);
+            if (column == null) {
+                throw new IllegalArgumentException("Unknown parameter in constraint: " + parameter);
+            }
+            int value = row[column];
+            return value == FREE ? null : space.getValues(order[column])[value];
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.automation.data;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming row iterator over a CSV file (RFC 4180).
+ * 
+ * The first record is the header. Records are scanned directly in a reusable char buffer:
+ * unquoted fields become strings straight from the buffer without intermediate copies,
+ * and only quoted fields go through a builder to unescape doubled quotes.
+ * Quoted fields may contain delimiters and line breaks. Blank lines are skipped.
+ * A closing quote must be followed by a delimiter, a line break or the end of input;
+ * anything else fails with the source and line number.
+ * 
+ * @param <T> The type each row is mapped to
+ */
+public class CsvRowIterator<T> implements DataRowIterator<T> {
+    
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    
+    private final Reader reader;
+    private final RowMapper<T> mapper;
+    private final String source;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder quoted = new StringBuilder();
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    /** Line of the input at pos, for error messages */
+    private int line = 1;
+    private boolean hasPending;
+    private boolean closed;
+    
+    /**
+     * Create an iterator over a CSV document.
+     * 
+     * @param reader Reader over the CSV document; owned and closed by this iterator
+     * @param mapper Maps each record to the target type
+     * @param source Description of the data source, used in error messages
+     */
+    CsvRowIterator(Reader reader, RowMapper<T> mapper, String source) {
+        this.reader = reader;
+        this.mapper = mapper;
+        this.source = source;
+        try {
+            if (!readRecord()) {
+                throw new RuntimeException("CSV test data has no header: " + source);
+            }
+            // Skip a UTF-8 byte order mark on the first column name
+            if (fields.get(0).startsWith("\uFEFF")) {
+                fields.set(0, fields.get(0).substring(1));
+            }
+            mapper.setHeader(fields);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw new RuntimeException("Error streaming test data from " + source, e);
+        }
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (hasPending) {
+            return true;
+        }
+        if (closed) {
+            return false;
+        }
+        try {
+            hasPending = readRecord();
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException("Error streaming test data from " + source, e);
+        }
+        if (!hasPending) {
+            close();
+        }
+        return hasPending;
+    }
+    
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in " + source);
+        }
+        hasPending = false;
+        try {
+            return mapper.map(fields);
+        } catch (RuntimeException e) {
+            close();
+            throw new RuntimeException("Error mapping row from " + source, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close test data stream " + source + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Read the next non-blank record into fields.
+     * 
+     * @return false at end of input
+     */
+    private boolean readRecord() throws IOException {
+        do {
+            fields.clear();
+            if (pos >= limit && !refill(limit)) {
+                return false;
+            }
+            while (true) {
+                boolean quotedField = buffer[pos] == '"';
+                fields.add(quotedField ? readQuoted() : readPlain());
+                if (pos >= limit && !refill(limit)) {
+                    break;
+                }
+                char c = buffer[pos++];
+                if (quotedField && c != ',' && c != '\n' && c != '\r') {
+                    throw new IOException("Malformed CSV in " + source + " at line " + line
+                            + ": unexpected '" + c + "' after closing quote");
+                }
+                if (c == ',') {
+                    if (pos >= limit && !refill(limit)) {
+                        fields.add("");
+                        break;
+                    }
+                    continue;
+                }
+                if (c == '\r' && (pos < limit || refill(limit)) && buffer[pos] == '\n') {
+                    pos++;
+                }
+                line++;
+                break;
+            }
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+        return true;
+    }
+    
+    /**
+     * Read an unquoted field up to the next delimiter or line break
+     */
+    private String readPlain() throws IOException {
+        int start = pos;
+        while (true) {
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == ',' || c == '\n' || c == '\r') {
+                    return new String(buffer, start, pos - start);
+                }
+                pos++;
+            }
+            // Field continues past the buffered data: keep it and read more
+            boolean more = refill(start);
+            start = 0;
+            if (!more) {
+                return new String(buffer, 0, pos);
+            }
+        }
+    }
+    
+    /**
+     * Read a quoted field, unescaping doubled quotes
+     */
+    private String readQuoted() throws IOException {
+        quoted.setLength(0);
+        pos++;
+        while (true) {
+            if (pos >= limit && !refill(limit)) {
+                // Unterminated quote at end of input
+                return quoted.toString();
+            }
+            char c = buffer[pos++];
+            if (c != '"') {
+                if (c == '\n') {
+                    line++;
+                }
+                quoted.append(c);
+                continue;
+            }
+            if ((pos < limit || refill(limit)) && buffer[pos] == '"') {
+                quoted.append('"');
+                pos++;
+                continue;
+            }
+            return quoted.toString();
+        }
+    }
+    
+    /**
+     * Read more input, keeping buffered characters from keepFrom onwards.
+     * Kept characters move to the start of the buffer, which grows if they fill it.
+     * 
+     * @return false if no more input is available
+     */
+    private boolean refill(int keepFrom) throws IOException {
+        int kept = limit - keepFrom;
+        if (kept == buffer.length) {
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, keepFrom, larger, 0, kept);
+            buffer = larger;
+        } else if (kept > 0) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, kept);
+        }
+        pos -= keepFrom;
+        limit = kept;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read <= 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
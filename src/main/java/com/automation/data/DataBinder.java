@@ -0,0 +1,34 @@
+package com.automation.data;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Binds test data directly into a model class, without reflection.
+ * 
+ * Implementations are generated at compile time by the test data binder annotation processor
+ * (processor module) for every class implementing TestDataModel, and are named
+ * {@code <ModelClass>_DataBinder} in the model's package. Look them up with DataBinders.get().
+ * 
+ * @param <T> The model type
+ */
+public interface DataBinder<T> {
+    
+    /**
+     * Read one model instance from the current JSON value of the reader
+     * 
+     * @param in Reader positioned at a JSON object (or null)
+     * @return The bound instance, or null for a JSON null
+     */
+    T read(JsonReader in) throws IOException;
+    
+    /**
+     * Create a model instance from a map of field name to value
+     * 
+     * @param values Field values, keyed by serialized field name
+     * @return The bound instance
+     */
+    T fromMap(Map<String, ?> values);
+}
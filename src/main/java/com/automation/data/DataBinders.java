@@ -0,0 +1,163 @@
+package com.automation.data;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of generated DataBinder implementations, plus the value conversions used by
+ * generated code.
+ * 
+ * Conversions follow Gson's rules so generated binders produce the same objects as
+ * Gson's reflective binding: numbers may be given as strings, booleans as "true"/"false",
+ * and JSON null leaves primitive fields at their default value.
+ */
+public final class DataBinders {
+    
+    private static final Gson gson = new Gson();
+    private static final Object NO_BINDER = new Object();
+    private static final Map<Class<?>, Object> binders = new ConcurrentHashMap<>();
+    
+    private DataBinders() {}
+    
+    /**
+     * Get the generated binder for a model class.
+     * The lookup is done once per class and cached.
+     * 
+     * @param type The model class
+     * @return The generated binder, or null if none was generated for the class
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DataBinder<T> get(Class<T> type) {
+        Object binder = binders.get(type);
+        if (binder == null) {
+            binder = loadBinder(type);
+            binders.put(type, binder);
+        }
+        return binder == NO_BINDER ? null : (DataBinder<T>) binder;
+    }
+    
+    private static Object loadBinder(Class<?> type) {
+        if (!TestDataModel.class.isAssignableFrom(type)) {
+            return NO_BINDER;
+        }
+        String binderName = type.getName().replace('$', '_') + "_DataBinder";
+        try {
+            Class<?> binderClass = Class.forName(binderName, true, type.getClassLoader());
+            return binderClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            return NO_BINDER;
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Failed to create data binder " + binderName + ": " + e.getMessage());
+            return NO_BINDER;
+        }
+    }
+    
+    /**
+     * Get a Gson type adapter for a type, backed by its generated binder when one exists
+     */
+    static <T> TypeAdapter<T> adapterFor(Gson gson, Class<T> type) {
+        DataBinder<T> binder = get(type);
+        if (binder == null) {
+            return gson.getAdapter(type);
+        }
+        return new TypeAdapter<T>() {
+            @Override
+            public T read(JsonReader in) throws IOException {
+                return binder.read(in);
+            }
+            
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                gson.getAdapter(type).write(out, value);
+            }
+        };
+    }
+    
+    // ------------------------------------------------------------------------
+    // Streaming reads, used by generated binders
+    // ------------------------------------------------------------------------
+    
+    /**
+     * Consume a JSON null if it is the next token
+     * 
+     * @return true if a null was consumed
+     */
+    public static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+    
+    public static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+    
+    public static boolean readBoolean(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+    
+    /**
+     * Read any other type through Gson
+     */
+    public static <T> T read(JsonReader in, Type type) throws IOException {
+        @SuppressWarnings("unchecked")
+        TypeAdapter<T> adapter = (TypeAdapter<T>) gson.getAdapter(com.google.gson.reflect.TypeToken.get(type));
+        return adapter.read(in);
+    }
+    
+    // ------------------------------------------------------------------------
+    // Map value conversions, used by generated binders
+    // ------------------------------------------------------------------------
+    
+    public static String toString(Object value) {
+        return value instanceof String ? (String) value : String.valueOf(value);
+    }
+    
+    public static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+    }
+    
+    public static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+    }
+    
+    public static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString().trim());
+    }
+    
+    public static float toFloat(Object value) {
+        return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString().trim());
+    }
+    
+    public static boolean toBoolean(Object value) {
+        return value instanceof Boolean ? (Boolean) value : Boolean.parseBoolean(value.toString());
+    }
+    
+    /**
+     * Convert any other value through Gson
+     */
+    public static <T> T convert(Object value, Type type) {
+        return gson.fromJson(gson.toJsonTree(value), type);
+    }
+}
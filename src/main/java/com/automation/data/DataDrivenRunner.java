@@ -0,0 +1,233 @@
+package com.automation.data;
+
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.runner.Description;
+import org.junit.runners.BlockJUnit4ClassRunner;
+import org.junit.runners.model.FrameworkField;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.InitializationError;
+
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JUnit runner that turns every data row into its own test.
+ * 
+ * Each test method of the class runs once per row of the file declared with @DataSource,
+ * with the row injected into the field annotated with @DataRow. Tests are named
+ * "method[rowIndex]", so one failing or slow row no longer hides or delays the others.
+ * 
+ * Sharding:
+ * When the numShards and shardIndex instrumentation arguments are set (adb -e, or Gradle-Managed
+ * Device sharding via numManagedDeviceShards), only the tests of this shard are created, assigned
+ * round-robin so rows spread evenly across devices. Test descriptions hash to their position, so
+ * AndroidJUnitRunner's own shard filter selects exactly the same tests.
+ * 
+ * Usage:
+ * <pre>
+ * &#64;RunWith(DataDrivenRunner.class)
+ * &#64;DataSource(file = "login_data.json", key = "test_users")
+ * public class DataDrivenLoginTest extends BaseTest {
+ *     &#64;DataRow
+ *     public Map&lt;String, Object&gt; user;
+ * }
+ * </pre>
+ */
+public class DataDrivenRunner extends BlockJUnit4ClassRunner {
+    
+    private static final String ARGUMENT_NUM_SHARDS = "numShards";
+    private static final String ARGUMENT_SHARD_INDEX = "shardIndex";
+    
+    private List<FrameworkMethod> rowMethods;
+    
+    public DataDrivenRunner(Class<?> testClass) throws InitializationError {
+        super(testClass);
+    }
+    
+    @Override
+    protected void collectInitializationErrors(List<Throwable> errors) {
+        super.collectInitializationErrors(errors);
+        if (getTestClass().getAnnotation(DataSource.class) == null) {
+            errors.add(new Exception("Class " + getTestClass().getName() + " must be annotated with @DataSource"));
+        }
+        List<FrameworkField> rowFields = getTestClass().getAnnotatedFields(DataRow.class);
+        if (rowFields.size() != 1) {
+            errors.add(new Exception("Class " + getTestClass().getName()
+                    + " must have exactly one field annotated with @DataRow"));
+        }
+        for (FrameworkField field : rowFields) {
+            int modifiers = field.getField().getModifiers();
+            if (!Modifier.isPublic(modifiers) || Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+                errors.add(new Exception("@DataRow field " + field.getName() + " must be public, non-static and non-final"));
+            }
+        }
+    }
+    
+    @Override
+    protected List<FrameworkMethod> getChildren() {
+        if (rowMethods == null) {
+            rowMethods = createRowMethods();
+        }
+        return rowMethods;
+    }
+    
+    /**
+     * Expand every test method into one child per data row, keeping only this shard's children
+     */
+    private List<FrameworkMethod> createRowMethods() {
+        DataSource source = getTestClass().getAnnotation(DataSource.class);
+        List<FrameworkMethod> testMethods = computeTestMethods();
+        int[] shard = readShardArguments();
+        int numShards = shard[0];
+        int shardIndex = shard[1];
+        
+        List<FrameworkMethod> children = new ArrayList<>();
+        int position = 0;
+        int rowIndex = 0;
+        DataRowIterator<Map> rows = openRows(source);
+        try {
+            while (rows.hasNext()) {
+                Map row = rows.next();
+                for (FrameworkMethod method : testMethods) {
+                    if (position % numShards == shardIndex) {
+                        children.add(new RowMethod(method, row, rowIndex, position));
+                    }
+                    position++;
+                }
+                rowIndex++;
+            }
+        } finally {
+            rows.close();
+        }
+        return Collections.unmodifiableList(children);
+    }
+    
+    private static DataRowIterator<Map> openRows(DataSource source) {
+        String file = source.file();
+        if (file.endsWith(".csv")) {
+            return TestDataProvider.streamCsvData(file, Map.class);
+        }
+        if (file.endsWith(".xlsx")) {
+            return TestDataProvider.streamExcelData(file, source.key().isEmpty() ? null : source.key(), Map.class);
+        }
+        return TestDataProvider.streamDataList(file, source.key(), Map.class);
+    }
+    
+    /**
+     * Read numShards and shardIndex from the instrumentation arguments.
+     * 
+     * @return {numShards, shardIndex}; {1, 0} when not sharded or not running under instrumentation
+     */
+    private static int[] readShardArguments() {
+        Bundle arguments;
+        try {
+            arguments = InstrumentationRegistry.getArguments();
+        } catch (IllegalStateException e) {
+            return new int[] {1, 0};
+        }
+        String numShards = arguments.getString(ARGUMENT_NUM_SHARDS);
+        String shardIndex = arguments.getString(ARGUMENT_SHARD_INDEX);
+        if (numShards == null || shardIndex == null) {
+            return new int[] {1, 0};
+        }
+        int count = Integer.parseInt(numShards);
+        int index = Integer.parseInt(shardIndex);
+        if (count <= 0 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard arguments: numShards=" + numShards
+                    + ", shardIndex=" + shardIndex);
+        }
+        return new int[] {count, index};
+    }
+    
+    @Override
+    protected Description describeChild(FrameworkMethod method) {
+        RowMethod rowMethod = (RowMethod) method;
+        // Display name follows JUnit's "method(class)" form so method-level filters still apply
+        return Description.createSuiteDescription(
+                String.format("%s(%s)", rowMethod.getName(), getTestClass().getName()),
+                new RowId(rowMethod.getName(), rowMethod.position),
+                rowMethod.getAnnotations());
+    }
+    
+    @Override
+    protected Object createTest(FrameworkMethod method) throws Exception {
+        Object test = createTest();
+        RowMethod rowMethod = (RowMethod) method;
+        FrameworkField field = getTestClass().getAnnotatedFields(DataRow.class).get(0);
+        Class<?> fieldType = field.getType();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> row = rowMethod.row;
+        Object value = fieldType.isInstance(row) ? row : TestDataProvider.createFromMap(row, fieldType);
+        field.getField().set(test, value);
+        return test;
+    }
+    
+    /**
+     * A test method bound to one data row
+     */
+    private static final class RowMethod extends FrameworkMethod {
+        final Map row;
+        final int rowIndex;
+        final int position;
+        
+        RowMethod(FrameworkMethod method, Map row, int rowIndex, int position) {
+            super(method.getMethod());
+            this.row = row;
+            this.rowIndex = rowIndex;
+            this.position = position;
+        }
+        
+        @Override
+        public String getName() {
+            return super.getName() + "[" + rowIndex + "]";
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RowMethod && super.equals(obj) && ((RowMethod) obj).rowIndex == rowIndex;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * super.hashCode() + rowIndex;
+        }
+    }
+    
+    /**
+     * Unique id of a row test. Its hash is the test's position in the class, so hash-based
+     * shard filters distribute row tests round-robin.
+     */
+    private static final class RowId implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private final String name;
+        private final int position;
+        
+        RowId(String name, int position) {
+            this.name = name;
+            this.position = position;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof RowId && ((RowId) obj).position == position && ((RowId) obj).name.equals(name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return position;
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.automation.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the field that DataDrivenRunner fills with the current data row.
+ * The field may be a Map (column name to value) or any type Gson can bind the row to,
+ * such as a TestDataModel implementation.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface DataRow {
+}
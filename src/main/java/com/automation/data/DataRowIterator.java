@@ -0,0 +1,23 @@
+package com.automation.data;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Lazy iterator over rows of a data-driven test data source.
+ * 
+ * Rows are decoded one at a time as the iterator advances, so only the current row
+ * is held in memory regardless of the size of the underlying file.
+ * The iterator releases its underlying stream once exhausted; call close() when
+ * abandoning iteration early.
+ * 
+ * @param <T> The type each row is decoded into
+ */
+public interface DataRowIterator<T> extends Iterator<T>, Closeable {
+    
+    /**
+     * Close the underlying data stream without throwing checked exceptions
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,29 @@
+package com.automation.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the test data file that DataDrivenRunner expands into one test per row.
+ * 
+ * The format is chosen by file extension:
+ * - .json: rows are the array under key
+ * - .csv: rows are the lines after the header (key is ignored)
+ * - .xlsx: rows are the sheet named by key (first sheet if empty)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface DataSource {
+    
+    /**
+     * The test data file in the testdata/ resource folder
+     */
+    String file();
+    
+    /**
+     * The JSON array key or XLSX sheet name holding the rows
+     */
+    String key() default "";
+}
@@ -0,0 +1,67 @@
+package com.automation.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Row iterator over data that is already in memory: a parsed JSON array, or an array of
+ * memory-mapped compiled test data.
+ * 
+ * Each row is handed to the type adapter as a JsonElement, so rows bind exactly as they do
+ * when streamed from the JSON file, without reading or tokenizing the file again.
+ * 
+ * @param <T> The type each row is decoded into
+ */
+final class ElementRowIterator<T> implements DataRowIterator<T> {
+    
+    /**
+     * Supplies the rows by index
+     */
+    interface Rows {
+        JsonElement get(int index);
+    }
+    
+    private final int size;
+    private final Rows rows;
+    private final TypeAdapter<T> adapter;
+    private final String source;
+    private int next;
+    
+    /**
+     * @param size The number of rows
+     * @param rows Supplies each row
+     * @param adapter The type adapter used to decode each row
+     * @param source Description of the data source, used in error messages
+     */
+    ElementRowIterator(int size, Rows rows, TypeAdapter<T> adapter, String source) {
+        this.size = size;
+        this.rows = rows;
+        this.adapter = adapter;
+        this.source = source;
+    }
+    
+    @Override
+    public boolean hasNext() {
+        return next < size;
+    }
+    
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in " + source);
+        }
+        try {
+            return adapter.fromJsonTree(rows.get(next++));
+        } catch (RuntimeException e) {
+            next = size;
+            throw new RuntimeException("Error decoding row from " + source, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        next = size;
+    }
+}
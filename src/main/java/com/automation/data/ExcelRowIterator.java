@@ -0,0 +1,246 @@
+package com.automation.data;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streaming row iterator over a sheet of an XLSX workbook.
+ * 
+ * Uses POI's SAX event model (XSSFReader + XSSFSheetXMLHandler) instead of XSSFWorkbook,
+ * so the sheet is never loaded as a DOM. A background thread parses the sheet and hands rows
+ * over through a small bounded queue, which keeps memory flat however many rows the sheet has.
+ * The first row is the header; cell values are read as displayed (formatted) text.
+ * 
+ * Requires poi and poi-ooxml on the test classpath.
+ * 
+ * @param <T> The type each row is mapped to
+ */
+public class ExcelRowIterator<T> implements DataRowIterator<T> {
+    
+    private static final int QUEUE_CAPACITY = 256;
+    private static final Object END = new Object();
+    
+    private final RowMapper<T> mapper;
+    private final String source;
+    private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread parser;
+    private Object pending;
+    private volatile boolean closed;
+    
+    /**
+     * Create an iterator over a sheet of a workbook.
+     * 
+     * @param inputStream The XLSX workbook; owned and closed by this iterator
+     * @param sheetName The sheet to read, or null for the first sheet
+     * @param mapper Maps each row to the target type
+     * @param source Description of the data source, used in error messages
+     */
+    ExcelRowIterator(InputStream inputStream, String sheetName, RowMapper<T> mapper, String source) {
+        this.mapper = mapper;
+        this.source = source;
+        
+        // OPCPackage reads an InputStream fully into memory; a file is read lazily from the zip
+        File workbook;
+        try {
+            workbook = copyToTempFile(inputStream);
+        } catch (IOException e) {
+            throw new RuntimeException("Error streaming test data from " + source, e);
+        }
+        
+        parser = new Thread(() -> parse(workbook, sheetName), "ExcelRowIterator-" + source);
+        parser.setDaemon(true);
+        parser.start();
+        
+        Object header = take();
+        if (!(header instanceof List)) {
+            close();
+            if (header instanceof Throwable) {
+                throw new RuntimeException("Error streaming test data from " + source, (Throwable) header);
+            }
+            throw new RuntimeException("Excel test data has no header: " + source);
+        }
+        @SuppressWarnings("unchecked")
+        List<String> columns = (List<String>) header;
+        mapper.setHeader(columns);
+    }
+    
+    private static File copyToTempFile(InputStream inputStream) throws IOException {
+        File file = File.createTempFile("testdata", ".xlsx");
+        try (InputStream in = inputStream; OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+    
+    /**
+     * Parse the sheet on the background thread, publishing one List of cell values per row
+     */
+    private void parse(File workbook, String sheetName) {
+        try (OPCPackage pkg = OPCPackage.open(workbook, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            StylesTable styles = reader.getStylesTable();
+            
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetName != null && !sheetName.equals(sheets.getSheetName())) {
+                        continue;
+                    }
+                    XMLReader xmlReader = XMLHelper.newXMLReader();
+                    xmlReader.setContentHandler(new XSSFSheetXMLHandler(
+                            styles, null, strings, new RowCollector(), new DataFormatter(), false));
+                    xmlReader.parse(new InputSource(sheet));
+                    publish(END);
+                    return;
+                }
+            }
+            publish(new IllegalArgumentException("Sheet not found: " + sheetName));
+        } catch (Throwable e) {
+            if (!closed) {
+                publish(e);
+            }
+        } finally {
+            workbook.delete();
+        }
+    }
+    
+    private void publish(Object item) {
+        try {
+            rows.put(item);
+        } catch (InterruptedException e) {
+            // Iterator was closed; abort parsing
+            throw new ParsingAbortedException();
+        }
+    }
+    
+    private Object take() {
+        try {
+            return rows.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Interrupted while streaming test data from " + source, e);
+        }
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (pending == null) {
+            if (closed) {
+                return false;
+            }
+            pending = take();
+        }
+        if (pending == END) {
+            close();
+            return false;
+        }
+        if (pending instanceof Throwable) {
+            Throwable error = (Throwable) pending;
+            pending = END;
+            close();
+            throw new RuntimeException("Error streaming test data from " + source, error);
+        }
+        return true;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in " + source);
+        }
+        List<String> values = (List<String>) pending;
+        pending = null;
+        try {
+            return mapper.map(values);
+        } catch (RuntimeException e) {
+            close();
+            throw new RuntimeException("Error mapping row from " + source, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        parser.interrupt();
+    }
+    
+    /**
+     * Collects cell values of each row, filling gaps left by empty cells
+     */
+    private class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private List<String> current;
+        
+        @Override
+        public void startRow(int rowNum) {
+            current = new ArrayList<>();
+        }
+        
+        @Override
+        public void endRow(int rowNum) {
+            if (!isBlank(current)) {
+                publish(current);
+            }
+            current = null;
+        }
+        
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null
+                    ? new CellReference(cellReference).getCol()
+                    : current.size();
+            while (current.size() < column) {
+                current.add("");
+            }
+            current.add(formattedValue);
+        }
+        
+        private boolean isBlank(List<String> row) {
+            for (String value : row) {
+                if (value != null && !value.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Thrown inside the SAX callbacks to stop parsing once the iterator is closed
+     */
+    private static final class ParsingAbortedException extends RuntimeException {
+    }
+}
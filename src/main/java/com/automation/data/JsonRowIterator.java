@@ -0,0 +1,121 @@
+package com.automation.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming row iterator over a JSON array stored under a top-level key.
+ * 
+ * Built on Gson's JsonReader: the document is scanned token by token, every key
+ * before the requested one is skipped without being materialized, and each array
+ * element is decoded only when next() is called.
+ * 
+ * Usage:
+ * - Obtain via TestDataProvider.streamDataList() or TestDataProvider.iterateDataList()
+ * - Iterate as usual; the stream is closed automatically once the array is exhausted
+ * - Call close() when stopping early
+ * 
+ * @param <T> The type each array element is decoded into
+ */
+public class JsonRowIterator<T> implements DataRowIterator<T> {
+    
+    private final JsonReader reader;
+    private final TypeAdapter<T> adapter;
+    private final String source;
+    private boolean closed;
+    
+    /**
+     * Create an iterator over the array stored under the given key.
+     * 
+     * @param reader Reader over the JSON document; owned and closed by this iterator
+     * @param key The top-level key holding the array of rows
+     * @param adapter The type adapter used to decode each row
+     * @param source Description of the data source, used in error messages
+     */
+    JsonRowIterator(Reader reader, String key, TypeAdapter<T> adapter, String source) {
+        this.reader = new JsonReader(reader);
+        this.reader.setLenient(true);
+        this.adapter = adapter;
+        this.source = source;
+        boolean positioned;
+        try {
+            positioned = seekToArray(key);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw new RuntimeException("Error streaming test data from " + source, e);
+        }
+        if (!positioned) {
+            close();
+        }
+    }
+    
+    /**
+     * Advance the reader to the beginning of the array under the given key.
+     * 
+     * @return true if the reader is positioned inside a non-empty array,
+     *         false if the value under the key is not an array
+     */
+    private boolean seekToArray(String key) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (!key.equals(reader.nextName())) {
+                reader.skipValue();
+                continue;
+            }
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                return false;
+            }
+            reader.beginArray();
+            return true;
+        }
+        throw new RuntimeException("Test data key not found: " + key + " in " + source);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (reader.hasNext()) {
+                return true;
+            }
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException("Error streaming test data from " + source, e);
+        }
+        close();
+        return false;
+    }
+    
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows in " + source);
+        }
+        try {
+            return adapter.read(reader);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw new RuntimeException("Error decoding row from " + source, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close test data stream " + source + ": " + e.getMessage());
+        }
+    }
+}
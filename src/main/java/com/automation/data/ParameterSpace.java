@@ -0,0 +1,214 @@
+package com.automation.data;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Definition of test parameters and their values, reduced to a covering array by
+ * TestDataProvider.getCombinations().
+ * 
+ * Instead of the full cross product, the covering array contains every combination of values
+ * of any `strength` parameters (2 = pairwise) at least once, which keeps interaction coverage
+ * while the number of rows grows roughly logarithmically with the number of parameters.
+ * 
+ * Constraints exclude combinations that cannot occur. They are evaluated on partially filled
+ * rows, where parameters without a value yet read as null, so a constraint must only reject
+ * values that are already in conflict. Must-include rows are emitted as given (parameters they
+ * leave out are filled in) and count towards coverage.
+ * 
+ * Usage:
+ * <pre>
+ * ParameterSpace space = new ParameterSpace()
+ *         .parameter("locale", "en_US", "de_DE", "ja_JP")
+ *         .parameter("accountType", "guest", "basic", "premium")
+ *         .parameter("network", "wifi", "cellular", "offline")
+ *         .parameter("input", "valid", "invalid")
+ *         .forbid("accountType", "guest", "network", "offline")
+ *         .include(Collections.singletonMap("locale", "ja_JP"));
+ * List&lt;Map&lt;String, Object&gt;&gt; rows = TestDataProvider.getCombinations(space);
+ * </pre>
+ */
+public class ParameterSpace {
+    
+    /**
+     * Values of a partially or fully generated row, read by constraints
+     */
+    public interface Assignment {
+        /**
+         * Get the value of a parameter
+         * 
+         * @return The value, or null if the parameter has no value yet
+         */
+        Object get(String parameter);
+    }
+    
+    /**
+     * Rule that rejects impossible combinations of values
+     */
+    public interface Constraint {
+        /**
+         * @return false if the assigned values can never occur together
+         */
+        boolean allows(Assignment row);
+    }
+    
+    private final List<String> names = new ArrayList<>();
+    private final List<Object[]> values = new ArrayList<>();
+    private final List<Constraint> constraints = new ArrayList<>();
+    private final List<Map<String, Object>> includedRows = new ArrayList<>();
+    private int strength = 2;
+    
+    /**
+     * Add a parameter with its possible values
+     */
+    public ParameterSpace parameter(String name, Object... parameterValues) {
+        if (names.contains(name)) {
+            throw new IllegalArgumentException("Duplicate parameter: " + name);
+        }
+        if (parameterValues.length == 0) {
+            throw new IllegalArgumentException("Parameter " + name + " needs at least one value");
+        }
+        names.add(name);
+        values.add(parameterValues.clone());
+        return this;
+    }
+    
+    /**
+     * Set the interaction strength: every combination of values of this many parameters is covered.
+     * Defaults to 2 (pairwise).
+     */
+    public ParameterSpace strength(int t) {
+        if (t < 1) {
+            throw new IllegalArgumentException("Strength must be at least 1: " + t);
+        }
+        this.strength = t;
+        return this;
+    }
+    
+    /**
+     * Add a constraint
+     */
+    public ParameterSpace constraint(Constraint constraint) {
+        constraints.add(constraint);
+        return this;
+    }
+    
+    /**
+     * Forbid a combination of values, given as name/value pairs,
+     * e.g. forbid("accountType", "guest", "network", "offline")
+     */
+    public ParameterSpace forbid(Object... nameValuePairs) {
+        if (nameValuePairs.length == 0 || nameValuePairs.length % 2 != 0) {
+            throw new IllegalArgumentException("forbid() needs name/value pairs");
+        }
+        final Object[] pairs = nameValuePairs.clone();
+        return constraint(row -> {
+            for (int i = 0; i < pairs.length; i += 2) {
+                if (!pairs[i + 1].equals(row.get((String) pairs[i]))) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+    
+    /**
+     * Add a row that must appear in the result.
+     * Parameters missing from the row are filled in by the generator.
+     */
+    public ParameterSpace include(Map<String, ?> row) {
+        for (String name : row.keySet()) {
+            if (!names.contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter in included row: " + name);
+            }
+        }
+        includedRows.add(new LinkedHashMap<>(row));
+        return this;
+    }
+    
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(names);
+    }
+    
+    /**
+     * Get the number of rows of the full cross product, saturating at Long.MAX_VALUE
+     */
+    public long getCrossProductSize() {
+        long size = 1;
+        for (Object[] parameterValues : values) {
+            size = size > Long.MAX_VALUE / parameterValues.length ? Long.MAX_VALUE : size * parameterValues.length;
+        }
+        return size;
+    }
+    
+    int getStrength() {
+        return strength;
+    }
+    
+    Object[] getValues(int parameter) {
+        return values.get(parameter);
+    }
+    
+    List<Constraint> getConstraints() {
+        return constraints;
+    }
+    
+    List<Map<String, Object>> getIncludedRows() {
+        return includedRows;
+    }
+    
+    /**
+     * Create a parameter space from a JSON object mapping each parameter to an array of values,
+     * e.g. {"locale": ["en_US", "ja_JP"], "network": ["wifi", "offline"]}
+     */
+    public static ParameterSpace fromJson(JsonObject parameters) {
+        ParameterSpace space = new ParameterSpace();
+        for (Map.Entry<String, JsonElement> parameter : parameters.entrySet()) {
+            if (!parameter.getValue().isJsonArray()) {
+                throw new IllegalArgumentException("Parameter " + parameter.getKey() + " must be an array of values");
+            }
+            List<Object> parameterValues = new ArrayList<>();
+            for (JsonElement value : parameter.getValue().getAsJsonArray()) {
+                parameterValues.add(toValue(value));
+            }
+            space.parameter(parameter.getKey(), parameterValues.toArray());
+        }
+        return space;
+    }
+    
+    private static Object toValue(JsonElement element) {
+        if (!element.isJsonPrimitive()) {
+            return element.toString();
+        }
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isNumber()) {
+            double number = primitive.getAsDouble();
+            long whole = primitive.getAsLong();
+            if (number != whole) {
+                return number;
+            }
+            return whole == (int) whole ? Integer.valueOf((int) whole) : Long.valueOf(whole);
+        }
+        return primitive.getAsString();
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("ParameterSpace{strength=").append(strength);
+        for (int i = 0; i < names.size(); i++) {
+            result.append(", ").append(names.get(i)).append('=').append(Arrays.toString(values.get(i)));
+        }
+        return result.append('}').toString();
+    }
+}
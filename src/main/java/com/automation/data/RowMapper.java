@@ -0,0 +1,68 @@
+package com.automation.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps tabular rows (header + cell values) to test data objects.
+ * 
+ * Map and Object targets receive a LinkedHashMap of column name to cell value.
+ * TestDataModel classes with a generated DataBinder are bound from that map directly;
+ * any other type is bound by Gson from the row. Both convert numeric and boolean
+ * cell text to the field types.
+ * Empty cells map to empty strings, as an empty JSON string would; only cells past the
+ * end of a short row are left out.
+ */
+class RowMapper<T> {
+    
+    private final Gson gson;
+    private final Class<T> type;
+    private final boolean mapType;
+    private final DataBinder<T> binder;
+    private String[] header;
+    
+    RowMapper(Gson gson, Class<T> type) {
+        this.gson = gson;
+        this.type = type;
+        this.mapType = type == Object.class || Map.class.isAssignableFrom(type);
+        this.binder = DataBinders.get(type);
+    }
+    
+    /**
+     * Set the column names used for subsequent rows
+     */
+    void setHeader(List<String> columns) {
+        header = columns.toArray(new String[0]);
+    }
+    
+    /**
+     * Map one row of cell values to the target type
+     */
+    @SuppressWarnings("unchecked")
+    T map(List<String> values) {
+        int count = Math.min(header.length, values.size());
+        if (mapType || binder != null) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                String value = values.get(i);
+                if (value != null) {
+                    row.put(header[i], value);
+                }
+            }
+            return mapType ? (T) row : binder.fromMap(row);
+        }
+        
+        JsonObject row = new JsonObject();
+        for (int i = 0; i < count; i++) {
+            String value = values.get(i);
+            if (value != null) {
+                row.addProperty(header[i], value);
+            }
+        }
+        return gson.fromJson(row, type);
+    }
+}
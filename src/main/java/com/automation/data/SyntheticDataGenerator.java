@@ -0,0 +1,252 @@
+package com.automation.data;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Deterministic generator of synthetic test data rows.
+ * 
+ * Every row is derived only from the seed and its row index: the row gets its own SplitMix64
+ * random stream, and unique fields map a keyed Feistel permutation of the row index onto their
+ * value domain. So any row can be generated on its own, shards generate disjoint slices of the
+ * same data set without coordination, and the same seed reproduces exactly the same rows on
+ * every device. Rows are generated lazily, so memory use does not grow with the row count.
+ * 
+ * Usage:
+ * <pre>
+ * SyntheticDataGenerator generator = new SyntheticDataGenerator(schema, 42L);
+ * DataRowIterator&lt;Map&lt;String, Object&gt;&gt; rows = generator.rows(1_000_000);
+ * while (rows.hasNext()) {
+ *     Map&lt;String, Object&gt; user = rows.next();
+ * }
+ * </pre>
+ */
+public class SyntheticDataGenerator {
+    
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final int FEISTEL_ROUNDS = 4;
+    
+    private final List<SyntheticDataSchema.Field> fields;
+    private final long seed;
+    private final Permutation[] permutations;
+    
+    public SyntheticDataGenerator(SyntheticDataSchema schema, long seed) {
+        this.fields = schema.getFields();
+        this.seed = seed;
+        this.permutations = new Permutation[fields.size()];
+        for (int i = 0; i < permutations.length; i++) {
+            SyntheticDataSchema.Field field = fields.get(i);
+            if (field.unique && !field.isIndexed()) {
+                permutations[i] = new Permutation(field.domainSize(), mix64(seed ^ (i + 1) * GOLDEN_GAMMA));
+            }
+        }
+    }
+    
+    /**
+     * Generate one row.
+     * 
+     * @param index The row index, from 0
+     * @return The row as a map of field name to value, in schema order
+     */
+    public Map<String, Object> row(long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Row index must not be negative: " + index);
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        long rowSeed = mix64(seed + index * GOLDEN_GAMMA);
+        Random random = new Random(0);
+        for (int i = 0; i < fields.size(); i++) {
+            SyntheticDataSchema.Field field = fields.get(i);
+            Object value;
+            if (field.isIndexed()) {
+                value = field.valueAt(index);
+            } else if (permutations[i] != null) {
+                value = field.valueAt(permutations[i].apply(index, field.name));
+            } else {
+                // Independent stream per field, so adding a field does not change the others
+                random.reset(mix64(rowSeed ^ (i + 1) * GOLDEN_GAMMA));
+                value = field.random(random, row);
+            }
+            row.put(field.name, value);
+        }
+        return row;
+    }
+    
+    /**
+     * Stream rows 0 to count - 1
+     */
+    public DataRowIterator<Map<String, Object>> rows(long count) {
+        return rows(count, 0, 1);
+    }
+    
+    /**
+     * Stream the rows of one shard: the rows among 0 to count - 1 whose index modulo numShards
+     * equals shardIndex. Together the shards cover every row exactly once.
+     */
+    public DataRowIterator<Map<String, Object>> rows(long count, int shardIndex, int numShards) {
+        if (numShards <= 0 || shardIndex < 0 || shardIndex >= numShards) {
+            throw new IllegalArgumentException("Invalid shard: shardIndex=" + shardIndex + ", numShards=" + numShards);
+        }
+        return new GeneratedRowIterator<>(count, shardIndex, numShards, null);
+    }
+    
+    /**
+     * Stream rows bound to a type (a TestDataModel implementation or Map)
+     */
+    public <T> DataRowIterator<T> rows(long count, int shardIndex, int numShards, Class<T> type) {
+        if (numShards <= 0 || shardIndex < 0 || shardIndex >= numShards) {
+            throw new IllegalArgumentException("Invalid shard: shardIndex=" + shardIndex + ", numShards=" + numShards);
+        }
+        return new GeneratedRowIterator<>(count, shardIndex, numShards, type);
+    }
+    
+    private final class GeneratedRowIterator<T> implements DataRowIterator<T> {
+        private final long count;
+        private final int step;
+        private final Class<T> type;
+        private long next;
+        
+        GeneratedRowIterator(long count, int first, int step, Class<T> type) {
+            this.count = count;
+            this.step = step;
+            this.type = type;
+            this.next = first;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more generated rows");
+            }
+            Map<String, Object> row = row(next);
+            next += step;
+            if (type == null || type.isInstance(row)) {
+                return (T) row;
+            }
+            return TestDataProvider.createFromMap(row, type);
+        }
+        
+        @Override
+        public void close() {
+            next = count;
+        }
+    }
+    
+    // ------------------------------------------------------------------------
+    // Randomness
+    // ------------------------------------------------------------------------
+    
+    /**
+     * SplitMix64 finalizer: a bijective 64-bit mix with good avalanche
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * SplitMix64 random stream.
+     * Reset for every field of every row instead of being allocated per row.
+     */
+    static final class Random {
+        private long state;
+        
+        Random(long seed) {
+            this.state = seed;
+        }
+        
+        void reset(long seed) {
+            state = seed;
+        }
+        
+        long nextLong() {
+            state += GOLDEN_GAMMA;
+            return mix64(state);
+        }
+        
+        /**
+         * Uniform value in [0, bound), bound > 0
+         */
+        long nextLong(long bound) {
+            // Rejection sampling keeps the distribution unbiased
+            long limit = Long.MAX_VALUE - Long.MAX_VALUE % bound;
+            long value;
+            do {
+                value = nextLong() >>> 1;
+            } while (value >= limit);
+            return value % bound;
+        }
+        
+        /**
+         * Uniform value in [0, 1)
+         */
+        double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+        
+        /**
+         * Standard normal value (Box-Muller).
+         * StrictMath, since Math.log and Math.cos may differ in the last bit between devices.
+         */
+        double nextGaussian() {
+            double u1 = 1.0 - nextDouble();
+            double u2 = nextDouble();
+            return StrictMath.sqrt(-2 * StrictMath.log(u1)) * StrictMath.cos(2 * Math.PI * u2);
+        }
+    }
+    
+    /**
+     * Keyed permutation of [0, size), used for unique fields.
+     * A balanced Feistel network permutes the smallest even-bit power of two covering the
+     * domain; values outside the domain are re-encrypted (cycle walking) until they fall inside.
+     */
+    private static final class Permutation {
+        private final long size;
+        private final int halfBits;
+        private final long mask;
+        private final long[] keys = new long[FEISTEL_ROUNDS];
+        
+        Permutation(long size, long key) {
+            this.size = size;
+            int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, size - 1));
+            bits = Math.max(2, (bits + 1) & ~1);
+            this.halfBits = Math.min(31, bits / 2);
+            this.mask = (1L << halfBits) - 1;
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = mix64(key + i * GOLDEN_GAMMA);
+            }
+        }
+        
+        long apply(long index, String field) {
+            if (index >= size || index > (mask << halfBits | mask)) {
+                throw new IllegalStateException("Unique field " + field + " has only " + size
+                        + " distinct values, cannot generate row " + index);
+            }
+            long value = index;
+            do {
+                value = encrypt(value);
+            } while (value >= size);
+            return value;
+        }
+        
+        private long encrypt(long value) {
+            long left = value >>> halfBits;
+            long right = value & mask;
+            for (long key : keys) {
+                long next = left ^ (mix64(right ^ key) & mask);
+                left = right;
+                right = next;
+            }
+            return left << halfBits | right;
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.automation.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the rows produced by SyntheticDataGenerator: one entry per field, in order.
+ * 
+ * Fields are added with the fluent methods below; unique() applies to the field added last
+ * and guarantees that no two rows of a run share a value for it.
+ * 
+ * Patterns use '#' for a digit, '?' for a lowercase letter and '*' for a lowercase letter or
+ * digit; any other character is copied as is ('\' escapes the next character).
+ * Templates insert earlier fields of the same row, e.g. "{username}@example.com".
+ * 
+ * Usage:
+ * <pre>
+ * SyntheticDataSchema schema = new SyntheticDataSchema()
+ *         .pattern("username", "user_######").unique()
+ *         .template("email", "{username}@example.com")
+ *         .pattern("password", "Pass??##")
+ *         .weightedChoice("expected_result", new String[] {"success", "failure"}, new double[] {0.8, 0.2})
+ *         .intRange("age", 18, 90)
+ *         .gaussian("score", 70, 12)
+ *         .bool("premium", 0.1);
+ * </pre>
+ */
+public class SyntheticDataSchema {
+    
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final String DIGITS = "0123456789";
+    private static final String ALPHANUMERIC = LETTERS + DIGITS;
+    
+    private final List<Field> fields = new ArrayList<>();
+    
+    /**
+     * Sequential number: start for row 0, start + step for row 1, and so on
+     */
+    public SyntheticDataSchema sequence(String name, long start, long step) {
+        return add(new SequenceField(name, start, step));
+    }
+    
+    /**
+     * Uniformly distributed integer between min and max (inclusive)
+     */
+    public SyntheticDataSchema intRange(String name, long min, long max) {
+        if (max < min) {
+            throw new IllegalArgumentException("Invalid range for " + name + ": " + min + ".." + max);
+        }
+        return add(new RangeField(name, min, max));
+    }
+    
+    /**
+     * Normally distributed decimal value
+     */
+    public SyntheticDataSchema gaussian(String name, double mean, double standardDeviation) {
+        return add(new GaussianField(name, mean, standardDeviation));
+    }
+    
+    /**
+     * Boolean that is true with the given probability
+     */
+    public SyntheticDataSchema bool(String name, double probabilityTrue) {
+        return add(new BooleanField(name, probabilityTrue));
+    }
+    
+    /**
+     * One of the given values, each equally likely
+     */
+    public SyntheticDataSchema choice(String name, String... values) {
+        double[] weights = new double[values.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1;
+        }
+        return weightedChoice(name, values, weights);
+    }
+    
+    /**
+     * One of the given values, picked with probability proportional to its weight
+     */
+    public SyntheticDataSchema weightedChoice(String name, String[] values, double[] weights) {
+        if (values.length == 0 || values.length != weights.length) {
+            throw new IllegalArgumentException("Choice " + name + " needs one weight per value");
+        }
+        return add(new ChoiceField(name, values.clone(), weights));
+    }
+    
+    /**
+     * String following a pattern, e.g. "user_####" or "??-###"
+     */
+    public SyntheticDataSchema pattern(String name, String pattern) {
+        return add(new PatternField(name, pattern));
+    }
+    
+    /**
+     * String built from earlier fields of the row, e.g. "{username}@example.com"
+     */
+    public SyntheticDataSchema template(String name, String template) {
+        return add(new TemplateField(name, template));
+    }
+    
+    /**
+     * Make the field added last unique across all rows of a run.
+     * Supported for sequences, integer ranges, choices and patterns; a run may have at most
+     * as many rows as the field has distinct values.
+     */
+    public SyntheticDataSchema unique() {
+        if (fields.isEmpty()) {
+            throw new IllegalStateException("unique() must follow a field");
+        }
+        Field field = fields.get(fields.size() - 1);
+        if (field.domainSize() <= 0) {
+            throw new IllegalArgumentException("Field " + field.name + " cannot be made unique");
+        }
+        field.unique = true;
+        return this;
+    }
+    
+    List<Field> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+    
+    private SyntheticDataSchema add(Field field) {
+        for (Field existing : fields) {
+            if (existing.name.equals(field.name)) {
+                throw new IllegalArgumentException("Duplicate field: " + field.name);
+            }
+        }
+        fields.add(field);
+        return this;
+    }
+    
+    // ------------------------------------------------------------------------
+    // Field types
+    // ------------------------------------------------------------------------
+    
+    /**
+     * A generated field.
+     * Random fields draw from the row's random stream; unique fields map a permuted row index
+     * into their value domain instead, so values cannot repeat.
+     */
+    abstract static class Field {
+        final String name;
+        boolean unique;
+        
+        Field(String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Generate a random value
+         * 
+         * @param random The field's random stream for this row
+         * @param row The values of the earlier fields of this row
+         */
+        abstract Object random(SyntheticDataGenerator.Random random, Map<String, Object> row);
+        
+        /**
+         * Number of distinct values, or 0 if the field cannot be unique
+         */
+        long domainSize() {
+            return 0;
+        }
+        
+        /**
+         * Get the value at a position of the domain, for unique fields
+         */
+        Object valueAt(long position) {
+            throw new UnsupportedOperationException("Field " + name + " cannot be unique");
+        }
+        
+        /**
+         * Whether the value depends only on the row index (sequences)
+         */
+        boolean isIndexed() {
+            return false;
+        }
+    }
+    
+    private static final class SequenceField extends Field {
+        private final long start;
+        private final long step;
+        
+        SequenceField(String name, long start, long step) {
+            super(name);
+            this.start = start;
+            this.step = step;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            throw new UnsupportedOperationException("Sequences are indexed");
+        }
+        
+        @Override
+        long domainSize() {
+            return Long.MAX_VALUE;
+        }
+        
+        @Override
+        Object valueAt(long position) {
+            return box(start + position * step);
+        }
+        
+        @Override
+        boolean isIndexed() {
+            return true;
+        }
+    }
+    
+    private static final class RangeField extends Field {
+        private final long min;
+        private final long size;
+        
+        RangeField(String name, long min, long max) {
+            super(name);
+            this.min = min;
+            // Saturates for the full long range; fine for test data
+            long span = max - min + 1;
+            this.size = span <= 0 ? Long.MAX_VALUE : span;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            return box(min + random.nextLong(size));
+        }
+        
+        @Override
+        long domainSize() {
+            return size;
+        }
+        
+        @Override
+        Object valueAt(long position) {
+            return box(min + position);
+        }
+    }
+    
+    private static final class GaussianField extends Field {
+        private final double mean;
+        private final double standardDeviation;
+        
+        GaussianField(String name, double mean, double standardDeviation) {
+            super(name);
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            return mean + standardDeviation * random.nextGaussian();
+        }
+    }
+    
+    private static final class BooleanField extends Field {
+        private final double probabilityTrue;
+        
+        BooleanField(String name, double probabilityTrue) {
+            super(name);
+            this.probabilityTrue = probabilityTrue;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            return random.nextDouble() < probabilityTrue;
+        }
+    }
+    
+    private static final class ChoiceField extends Field {
+        private final String[] values;
+        private final double[] cumulative;
+        
+        ChoiceField(String name, String[] values, double[] weights) {
+            super(name);
+            this.values = values;
+            this.cumulative = new double[weights.length];
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] < 0) {
+                    throw new IllegalArgumentException("Negative weight in choice " + name);
+                }
+                total += weights[i];
+                cumulative[i] = total;
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("Choice " + name + " needs a positive weight");
+            }
+            for (int i = 0; i < cumulative.length; i++) {
+                cumulative[i] /= total;
+            }
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            double point = random.nextDouble();
+            for (int i = 0; i < cumulative.length - 1; i++) {
+                if (point < cumulative[i]) {
+                    return values[i];
+                }
+            }
+            return values[values.length - 1];
+        }
+        
+        @Override
+        long domainSize() {
+            return values.length;
+        }
+        
+        @Override
+        Object valueAt(long position) {
+            return values[(int) position];
+        }
+    }
+    
+    private static final class PatternField extends Field {
+        private final char[] pattern;
+        /** Alphabet of each position, or null for a literal */
+        private final String[] alphabets;
+        private final long size;
+        
+        PatternField(String name, String text) {
+            super(name);
+            StringBuilder literal = new StringBuilder();
+            List<String> classes = new ArrayList<>();
+            long combinations = 1;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                String alphabet = null;
+                if (c == '\\' && i + 1 < text.length()) {
+                    c = text.charAt(++i);
+                } else if (c == '#') {
+                    alphabet = DIGITS;
+                } else if (c == '?') {
+                    alphabet = LETTERS;
+                } else if (c == '*') {
+                    alphabet = ALPHANUMERIC;
+                }
+                literal.append(c);
+                classes.add(alphabet);
+                if (alphabet != null) {
+                    combinations = combinations > Long.MAX_VALUE / alphabet.length()
+                            ? Long.MAX_VALUE
+                            : combinations * alphabet.length();
+                }
+            }
+            this.pattern = literal.toString().toCharArray();
+            this.alphabets = classes.toArray(new String[0]);
+            this.size = combinations;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            char[] value = pattern.clone();
+            for (int i = 0; i < value.length; i++) {
+                if (alphabets[i] != null) {
+                    value[i] = alphabets[i].charAt((int) random.nextLong(alphabets[i].length()));
+                }
+            }
+            return new String(value);
+        }
+        
+        @Override
+        long domainSize() {
+            return size;
+        }
+        
+        @Override
+        Object valueAt(long position) {
+            // Mixed-radix digits of the position, least significant at the end
+            char[] value = pattern.clone();
+            for (int i = value.length - 1; i >= 0; i--) {
+                if (alphabets[i] != null) {
+                    int radix = alphabets[i].length();
+                    value[i] = alphabets[i].charAt((int) (position % radix));
+                    position /= radix;
+                }
+            }
+            return new String(value);
+        }
+    }
+    
+    private static final class TemplateField extends Field {
+        private final String template;
+        
+        TemplateField(String name, String template) {
+            super(name);
+            this.template = template;
+        }
+        
+        @Override
+        Object random(SyntheticDataGenerator.Random random, Map<String, Object> row) {
+            StringBuilder value = new StringBuilder(template.length() + 16);
+            int i = 0;
+            while (i < template.length()) {
+                int open = template.indexOf('{', i);
+                int close = open < 0 ? -1 : template.indexOf('}', open);
+                if (close < 0) {
+                    value.append(template, i, template.length());
+                    break;
+                }
+                value.append(template, i, open);
+                String field = template.substring(open + 1, close);
+                if (!row.containsKey(field)) {
+                    throw new IllegalStateException("Template " + name + " refers to unknown or later field: " + field);
+                }
+                value.append(row.get(field));
+                i = close + 1;
+            }
+            return value.toString();
+        }
+    }
+    
+    /**
+     * Box an integer value as Integer when it fits and as Long otherwise, so rows hold the
+     * types of hand-written maps; Gson would read these JSON numbers into a Map as Double.
+     */
+    private static Object box(long value) {
+        // Not a conditional expression: it would promote the Integer to Long
+        if (value == (int) value) {
+            return Integer.valueOf((int) value);
+        }
+        return Long.valueOf(value);
+    }
+}
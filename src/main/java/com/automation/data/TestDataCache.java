@@ -0,0 +1,338 @@
+package com.automation.data;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe, size-bounded cache for parsed test data.
+ * 
+ * - Single-flight: concurrent requests for the same key share one load
+ * - Bounded: entries are evicted in least-recently-used order once the total
+ *   weight of cached values exceeds the configured budget
+ * - Instrumented: hit, miss, load and eviction counts plus total load time
+ * 
+ * @param <V> The type of cached values
+ */
+public class TestDataCache<V> {
+    
+    /**
+     * Loads the value for a key on a cache miss
+     */
+    public interface Loader<V> {
+        V load(String key) throws Exception;
+    }
+    
+    /**
+     * Computes the weight of a value, counted against the cache budget
+     */
+    public interface Weigher<V> {
+        long weigh(V value);
+    }
+    
+    /**
+     * Notified when an entry is evicted or invalidated, e.g. to drop data derived from it
+     */
+    public interface RemovalListener {
+        void onRemoval(String key);
+    }
+    
+    private static final class Entry<V> {
+        final V value;
+        final long weight;
+        
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+    
+    private final Weigher<V> weigher;
+    private final ConcurrentMap<String, FutureTask<V>> inFlight = new ConcurrentHashMap<>();
+    // Access-ordered map, guarded by "this"
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxWeight;
+    private long totalWeight;
+    private volatile RemovalListener removalListener;
+    
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong totalLoadTimeNanos = new AtomicLong();
+    
+    /**
+     * @param maxWeight The total weight budget of cached values
+     * @param weigher Computes the weight of each loaded value
+     */
+    public TestDataCache(long maxWeight, Weigher<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+    
+    /**
+     * Set the listener notified for each evicted or invalidated key (not for invalidateAll())
+     */
+    public void setRemovalListener(RemovalListener listener) {
+        this.removalListener = listener;
+    }
+    
+    /**
+     * Get the cached value for a key, loading it on a miss.
+     * If another thread is already loading the same key, waits for that load instead
+     * of starting a second one.
+     * 
+     * @param key The cache key (e.g., test data file name)
+     * @param loader Loads the value when it is not cached
+     * @return The cached or freshly loaded value
+     */
+    public V get(String key, Loader<V> loader) {
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        missCount.incrementAndGet();
+        
+        FutureTask<V> task = new FutureTask<>(() -> load(key, loader));
+        FutureTask<V> existing = inFlight.putIfAbsent(key, task);
+        if (existing != null) {
+            task = existing;
+        } else {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        }
+        
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading " + key, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Error loading " + key, cause);
+        }
+    }
+    
+    /**
+     * Get the cached value for a key without loading it.
+     * 
+     * @param key The cache key
+     * @return The cached value, or null if not cached
+     */
+    public V getIfPresent(String key) {
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                hitCount.incrementAndGet();
+                return entry.value;
+            }
+        }
+        return null;
+    }
+    
+    private V load(String key, Loader<V> loader) throws Exception {
+        // A concurrent load may have completed between the miss and this task starting
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                return entry.value;
+            }
+        }
+        
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.load(key);
+        } catch (Exception e) {
+            loadFailureCount.incrementAndGet();
+            throw e;
+        } finally {
+            totalLoadTimeNanos.addAndGet(System.nanoTime() - start);
+        }
+        loadCount.incrementAndGet();
+        
+        long weight = weigher.weigh(value);
+        List<String> evicted;
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, new Entry<>(value, weight));
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += weight;
+            evicted = evictToBudget();
+        }
+        notifyRemoved(evicted);
+        return value;
+    }
+    
+    /**
+     * Evict least-recently-used entries until the total weight fits the budget.
+     * The most recently used entry is always kept, even if it alone exceeds the budget.
+     * 
+     * @return The evicted keys, to notify outside the lock
+     */
+    private List<String> evictToBudget() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<String, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            totalWeight -= eldest.getValue().weight;
+            evictionCount.incrementAndGet();
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+    
+    private void notifyRemoved(List<String> keys) {
+        RemovalListener listener = removalListener;
+        if (listener != null) {
+            for (String key : keys) {
+                listener.onRemoval(key);
+            }
+        }
+    }
+    
+    /**
+     * Change the weight budget, evicting entries if the cache now exceeds it
+     * 
+     * @param maxWeight The new total weight budget
+     */
+    public void setMaxWeight(long maxWeight) {
+        List<String> evicted;
+        synchronized (this) {
+            this.maxWeight = maxWeight;
+            evicted = evictToBudget();
+        }
+        notifyRemoved(evicted);
+    }
+    
+    /**
+     * Remove the cached values whose keys start with a prefix, e.g. all entries derived from one file
+     * 
+     * @param keyPrefix The prefix of the keys to remove
+     */
+    public void invalidatePrefix(String keyPrefix) {
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Entry<V>> entry = iterator.next();
+                if (entry.getKey().startsWith(keyPrefix)) {
+                    iterator.remove();
+                    totalWeight -= entry.getValue().weight;
+                    removed.add(entry.getKey());
+                }
+            }
+        }
+        notifyRemoved(removed);
+    }
+    
+    /**
+     * Remove all cached values. Loads in progress are not affected.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+    
+    /**
+     * Get a snapshot of the cache statistics
+     */
+    public Stats stats() {
+        long weight;
+        int size;
+        synchronized (this) {
+            weight = totalWeight;
+            size = entries.size();
+        }
+        return new Stats(hitCount.get(), missCount.get(), loadCount.get(), loadFailureCount.get(),
+                evictionCount.get(), totalLoadTimeNanos.get(), weight, size);
+    }
+    
+    /**
+     * Immutable snapshot of cache statistics
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadCount;
+        private final long loadFailureCount;
+        private final long evictionCount;
+        private final long totalLoadTimeNanos;
+        private final long weight;
+        private final int size;
+        
+        Stats(long hitCount, long missCount, long loadCount, long loadFailureCount,
+              long evictionCount, long totalLoadTimeNanos, long weight, int size) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadCount = loadCount;
+            this.loadFailureCount = loadFailureCount;
+            this.evictionCount = evictionCount;
+            this.totalLoadTimeNanos = totalLoadTimeNanos;
+            this.weight = weight;
+            this.size = size;
+        }
+        
+        public long getHitCount() {
+            return hitCount;
+        }
+        
+        public long getMissCount() {
+            return missCount;
+        }
+        
+        public long getLoadCount() {
+            return loadCount;
+        }
+        
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+        
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+        
+        public long getTotalLoadTimeNanos() {
+            return totalLoadTimeNanos;
+        }
+        
+        /**
+         * @return The total weight of currently cached values
+         */
+        public long getWeight() {
+            return weight;
+        }
+        
+        /**
+         * @return The number of currently cached values
+         */
+        public int getSize() {
+            return size;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("TestDataCache[hits=%d, misses=%d, loads=%d, failures=%d, evictions=%d, "
+                            + "loadTime=%dms, weight=%d, size=%d]",
+                    hitCount, missCount, loadCount, loadFailureCount, evictionCount,
+                    totalLoadTimeNanos / 1_000_000, weight, size);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.automation.data;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flat index of the values below one top-level key of a parsed test data file, keyed by path.
+ * 
+ * Paths use dots for object keys and brackets for array indices, e.g. "accounts[3].profile.locale".
+ * Indexes are built lazily, one per top-level key on the first path lookup into it, so files with
+ * many top-level entries only index what tests use. Each lookup afterwards is a single hash lookup
+ * instead of a walk through nested JsonObjects.
+ * 
+ * Indexed values are the elements of the parsed tree itself, so an index keeps its subtree alive:
+ * its weight includes the subtree, and TestDataProvider drops the indexes of a file together
+ * with the file's parsed tree.
+ */
+final class TestDataPathIndex {
+    
+    private final Map<String, JsonElement> elements = new HashMap<>();
+    private final long subtreeSize;
+    private long pathChars;
+    
+    /**
+     * Index a top-level value and everything below it
+     * 
+     * @param key The top-level key, the first segment of every indexed path
+     * @param value The value at the key
+     */
+    TestDataPathIndex(String key, JsonElement value) {
+        index(new StringBuilder(key), value);
+        this.subtreeSize = TestDataProvider.estimateSize(value);
+    }
+    
+    private void index(StringBuilder path, JsonElement element) {
+        elements.put(path.toString(), element);
+        pathChars += path.length();
+        int length = path.length();
+        if (element.isJsonObject()) {
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                path.append('.').append(member.getKey());
+                index(path, member.getValue());
+                path.setLength(length);
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                path.append('[').append(i).append(']');
+                index(path, array.get(i));
+                path.setLength(length);
+            }
+        }
+    }
+    
+    /**
+     * Get the value at a path
+     * 
+     * @param path The path, e.g. "accounts[3].profile.locale"
+     * @return The value, or null if nothing exists at the path
+     */
+    JsonElement get(String path) {
+        return elements.get(path);
+    }
+    
+    /**
+     * Estimate the heap footprint of the index including the subtree it keeps alive,
+     * used to bound the cache
+     */
+    long estimateSize() {
+        // HashMap entry and table slot, plus a String per path
+        return 64 + elements.size() * (40L + 8 + 56) + 2 * pathChars + subtreeSize;
+    }
+}
@@ -0,0 +1,243 @@
+package com.automation.data;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Loads all test data files in the background at suite start.
+ * 
+ * Every JSON file under testdata/ is warmed in the form TestDataProvider reads it from, on a small
+ * pool of daemon threads while the target app launches: the compiled binary file is mapped when
+ * the test APK contains one, and only otherwise is the JSON parsed into the cache. Lookups, lists
+ * and row streams (including DataDrivenRunner) are then served from memory. Loads go through the
+ * cache's single-flight path, so a test that needs a file still being preloaded waits for that
+ * load instead of parsing the file a second time.
+ * CSV and XLSX files are streamed on every use and are not preloaded.
+ * 
+ * Parsed files stay subject to the cache budget (TestDataProvider.setCacheBudget()): files evicted
+ * to stay within it are parsed again on their next use, which is reported once preloading ends.
+ * Mapped binary files are not part of the budget and are never evicted.
+ * 
+ * Usage:
+ * - Call start() as early as possible: BaseTest does it in @BeforeClass; a custom
+ *   AndroidJUnitRunner can call it from onCreate() to start even earlier
+ * - Call awaitCompletion() before timed work so data access is served from memory
+ * 
+ * Files that fail to load are reported on System.err; the error is raised again when a test
+ * accesses the file.
+ */
+public final class TestDataPreloader {
+    
+    private static final String DATA_FOLDER = "testdata/";
+    private static final int MAX_THREADS = 4;
+    
+    private static CountDownLatch completion;
+    private static volatile boolean waitTimedOut;
+    
+    private TestDataPreloader() {}
+    
+    /**
+     * Start preloading all test data files.
+     * Only the first call in a process starts loading; later calls return immediately.
+     */
+    public static synchronized void start() {
+        if (completion != null) {
+            return;
+        }
+        List<String> files = listDataFiles();
+        List<String> jsonFiles = new ArrayList<>();
+        for (String file : files) {
+            if (file.endsWith(".json")) {
+                jsonFiles.add(file);
+            }
+        }
+        completion = new CountDownLatch(jsonFiles.size());
+        if (jsonFiles.isEmpty()) {
+            return;
+        }
+        
+        int threads = Math.min(MAX_THREADS, Math.min(jsonFiles.size(),
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new PreloadThreadFactory());
+        final CountDownLatch latch = completion;
+        for (final String file : jsonFiles) {
+            executor.execute(() -> {
+                try {
+                    preload(file);
+                } finally {
+                    latch.countDown();
+                    if (latch.getCount() == 0) {
+                        reportEvictions();
+                    }
+                }
+            });
+        }
+        // Threads exit once the queued files are done
+        executor.shutdown();
+        System.out.println("Preloading " + jsonFiles.size() + " test data files on " + threads + " threads");
+    }
+    
+    private static void preload(String fileName) {
+        long start = System.nanoTime();
+        try {
+            // Compiled data serves every lookup and row stream, so the JSON tree is not needed
+            boolean compiled = TestDataProvider.loadBinaryData(fileName) != null;
+            if (!compiled) {
+                TestDataProvider.loadJsonData(fileName);
+            }
+            System.out.println("Preloaded test data " + fileName + (compiled ? " (compiled)" : "") + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to preload test data " + fileName + ": " + e.getMessage());
+        }
+    }
+    
+    private static void reportEvictions() {
+        long evictions = TestDataProvider.getCacheStats().getEvictionCount();
+        if (evictions > 0) {
+            System.err.println("Test data cache budget exceeded while preloading: " + evictions
+                    + " parsed files were evicted and will be parsed again on use. "
+                    + "Raise TestDataProvider.setCacheBudget() or compile the files with compileTestData");
+        }
+    }
+    
+    /**
+     * Wait until every file started by start() has been loaded.
+     * Once a wait has timed out, later calls no longer block, so a stuck or slow preload
+     * delays at most one test; accessing a file still being loaded waits for that file only.
+     * 
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if preloading completed (or was never started), false otherwise
+     */
+    public static boolean awaitCompletion(long timeout, TimeUnit unit) {
+        CountDownLatch latch;
+        synchronized (TestDataPreloader.class) {
+            latch = completion;
+        }
+        if (latch == null) {
+            return true;
+        }
+        if (waitTimedOut) {
+            return latch.getCount() == 0;
+        }
+        try {
+            boolean completed = latch.await(timeout, unit);
+            if (!completed) {
+                waitTimedOut = true;
+            }
+            return completed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * List the files in the testdata/ resource folder, relative to it (e.g., "login_data.json").
+     * Reads the entries of the test APK on a device, or the folder on the classpath on a JVM.
+     */
+    public static List<String> listDataFiles() {
+        List<String> files = new ArrayList<>();
+        String archive = testApkPath();
+        if (archive == null) {
+            archive = classpathArchive(files);
+        }
+        if (archive != null) {
+            listArchive(new File(archive), files);
+        }
+        Collections.sort(files);
+        return files;
+    }
+    
+    private static String testApkPath() {
+        try {
+            return InstrumentationRegistry.getInstrumentation().getContext().getPackageCodePath();
+        } catch (IllegalStateException e) {
+            // Not running under instrumentation
+            return null;
+        }
+    }
+    
+    /**
+     * Locate testdata/ on the classpath. A directory is listed into files directly.
+     * 
+     * @return The jar holding the folder, or null if the folder was a directory or not found
+     */
+    private static String classpathArchive(List<String> files) {
+        URL url = TestDataPreloader.class.getClassLoader().getResource(DATA_FOLDER);
+        if (url == null) {
+            return null;
+        }
+        try {
+            if ("file".equals(url.getProtocol())) {
+                listDirectory(new File(url.toURI()), "", files);
+                return null;
+            }
+            if ("jar".equals(url.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) url.openConnection();
+                return new File(connection.getJarFileURL().toURI()).getPath();
+            }
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            System.err.println("Failed to list test data folder " + url + ": " + e.getMessage());
+        }
+        return null;
+    }
+    
+    private static void listDirectory(File directory, String prefix, List<String> files) {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                listDirectory(child, prefix + child.getName() + "/", files);
+            } else {
+                files.add(prefix + child.getName());
+            }
+        }
+    }
+    
+    private static void listArchive(File archive, List<String> files) {
+        try (ZipFile zip = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!entry.isDirectory() && name.startsWith(DATA_FOLDER)) {
+                    files.add(name.substring(DATA_FOLDER.length()));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list test data in " + archive + ": " + e.getMessage());
+        }
+    }
+    
+    private static final class PreloadThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "TestDataPreloader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,115 +1,606 @@
 package com.automation.data;
 
+import android.content.res.AssetFileDescriptor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.TypeAdapter;
 
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Test Data Provider for data-driven testing
- * Supports JSON, CSV, and in-memory data
+ * Supports JSON, CSV, Excel (XLSX), and in-memory data
+ * 
+ * Lookups read precompiled binary test data when the compileTestData Gradle task has packaged it
+ * into the test APK, and fall back to JSON otherwise. Rows (getDataList, streamDataList,
+ * iterateDataList) come from the compiled data, from the parsed tree when the file is already
+ * cached (e.g. by TestDataPreloader), or else are streamed from the file. Objects read from
+ * compiled data list their members in key order rather than file order.
+ * 
+ * Keys passed to getData, getDataList, getString, getInt and getBoolean may also be paths into
+ * nested data, e.g. "accounts[3].profile.locale". A path index is built for each top-level key on
+ * the first path lookup into it, so repeated lookups are constant time; indexes count against the
+ * cache budget together with the values they reference and are dropped when their file is.
  */
 public class TestDataProvider {
     
     private static final Gson gson = new Gson();
-    private static final Map<String, JsonObject> dataCache = new HashMap<>();
     
     /**
-     * Load test data from JSON file
+     * Default budget for parsed test data kept in memory (estimated heap bytes)
+     */
+    public static final long DEFAULT_CACHE_BUDGET_BYTES = 64L * 1024 * 1024;
+    
+    private static final TestDataCache<JsonObject> dataCache =
+            new TestDataCache<>(DEFAULT_CACHE_BUDGET_BYTES, TestDataProvider::estimateSize);
+    
+    private static final TestDataCache<TestDataTable> tableCache =
+            new TestDataCache<>(DEFAULT_CACHE_BUDGET_BYTES, TestDataTable::estimateSize);
+    
+    // Keyed by file name + "#" + top-level key
+    private static final TestDataCache<TestDataPathIndex> pathIndexCache =
+            new TestDataCache<>(DEFAULT_CACHE_BUDGET_BYTES, TestDataPathIndex::estimateSize);
+    
+    static {
+        // An index keeps its part of the parsed tree alive; drop it with the tree
+        dataCache.setRemovalListener(fileName -> pathIndexCache.invalidatePrefix(fileName + "#"));
+    }
+    
+    private static final Map<String, BinaryTestData> binaryData = new ConcurrentHashMap<>();
+    private static final Set<String> missingBinaryData =
+            Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private static volatile boolean binaryDataEnabled = true;
+    
+    /**
+     * Load test data from JSON file.
+     * Parsed files are cached; concurrent callers asking for the same file share a single parse.
      */
     public static JsonObject loadJsonData(String fileName) {
-        if (dataCache.containsKey(fileName)) {
-            return dataCache.get(fileName);
+        return dataCache.get(fileName, TestDataProvider::parseJsonData);
+    }
+    
+    /**
+     * Parse a test data file into a JSON tree
+     */
+    private static JsonObject parseJsonData(String fileName) {
+        try (Reader reader = openDataReader(fileName)) {
+            return JsonParser.parseReader(reader).getAsJsonObject();
+        } catch (Exception e) {
+            throw new RuntimeException("Error loading test data from " + fileName, e);
+        }
+    }
+    
+    /**
+     * Look up a value by top-level key, or by path when no top-level key matches.
+     * 
+     * @param fileName The test data file
+     * @param key A top-level key or a path such as "accounts[3].profile.locale"
+     * @return The value, or null if nothing exists at the key or path
+     */
+    private static JsonElement findElement(String fileName, String key) {
+        BinaryTestData binary = loadBinaryData(fileName);
+        if (binary != null) {
+            int offset = binary.findPath(key);
+            return offset == BinaryTestData.NOT_FOUND ? null : toJsonElement(binary, offset);
+        }
+        JsonObject jsonObject = loadJsonData(fileName);
+        JsonElement element = jsonObject.get(key);
+        if (element == null && isPath(key)) {
+            element = findPath(fileName, jsonObject, key);
+        }
+        return element;
+    }
+    
+    /**
+     * Look up a path through the index of the top-level key it starts with
+     */
+    private static JsonElement findPath(String fileName, JsonObject root, String path) {
+        // Top-level keys may contain dots themselves, so try every prefix that is one, longest first
+        for (int i = path.length() - 1; i > 0; i--) {
+            char c = path.charAt(i);
+            if (c != '.' && c != '[') {
+                continue;
+            }
+            String key = path.substring(0, i);
+            JsonElement value = root.get(key);
+            if (value != null) {
+                JsonElement element = pathIndexCache.get(fileName + "#" + key,
+                        cacheKey -> new TestDataPathIndex(key, value)).get(path);
+                if (element != null) {
+                    return element;
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Look up a value by top-level key or path, failing if it does not exist
+     */
+    private static JsonElement requireElement(String fileName, String key) {
+        JsonElement element = findElement(fileName, key);
+        if (element == null) {
+            throw new RuntimeException("Test data key not found: " + key + " in " + fileName);
+        }
+        return element;
+    }
+    
+    private static boolean isPath(String key) {
+        return key.indexOf('.') >= 0 || key.indexOf('[') >= 0;
+    }
+    
+    /**
+     * Estimate the heap footprint of a parsed JSON tree, used to bound the cache
+     */
+    static long estimateSize(JsonElement element) {
+        if (element.isJsonObject()) {
+            long size = 64;
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                size += 48 + 40 + 2L * member.getKey().length() + estimateSize(member.getValue());
+            }
+            return size;
+        }
+        if (element.isJsonArray()) {
+            long size = 40;
+            for (JsonElement item : element.getAsJsonArray()) {
+                size += 8 + estimateSize(item);
+            }
+            return size;
+        }
+        if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            return primitive.isString() ? 56 + 2L * primitive.getAsString().length() : 32;
+        }
+        // JsonNull is a shared instance
+        return 0;
+    }
+    
+    /**
+     * Open a UTF-8 reader over a test data file from the testdata/ resource folder
+     */
+    private static Reader openDataReader(String fileName) {
+        return new InputStreamReader(openDataStream(fileName), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Open a test data file from the testdata/ resource folder
+     */
+    private static InputStream openDataStream(String fileName) {
+        InputStream inputStream = TestDataProvider.class.getClassLoader()
+                .getResourceAsStream("testdata/" + fileName);
+        if (inputStream == null) {
+            throw new RuntimeException("Test data file not found: " + fileName);
+        }
+        return inputStream;
+    }
+    
+    /**
+     * Load precompiled binary test data for a JSON file.
+     * The compileTestData Gradle task compiles testdata/<name>.json into the test APK assets
+     * as testdata/<name>.tdb (stored uncompressed), which is memory-mapped here without parsing.
+     * 
+     * @param fileName The JSON test data file name (e.g., "login_data.json")
+     * @return The mapped binary data, or null if no compiled file is available
+     */
+    public static BinaryTestData loadBinaryData(String fileName) {
+        if (!binaryDataEnabled) {
+            return null;
+        }
+        BinaryTestData data = binaryData.get(fileName);
+        if (data != null || missingBinaryData.contains(fileName)) {
+            return data;
         }
         
+        data = mapBinaryData(fileName);
+        if (data == null) {
+            missingBinaryData.add(fileName);
+        } else {
+            binaryData.put(fileName, data);
+        }
+        return data;
+    }
+    
+    /**
+     * Memory-map a compiled test data file from the test APK assets
+     */
+    private static BinaryTestData mapBinaryData(String fileName) {
+        String baseName = fileName.endsWith(".json")
+                ? fileName.substring(0, fileName.length() - ".json".length())
+                : fileName;
+        String assetName = "testdata/" + baseName + ".tdb";
+        
+        AssetFileDescriptor descriptor;
         try {
-            InputStream inputStream = TestDataProvider.class.getClassLoader()
-                    .getResourceAsStream("testdata/" + fileName);
-            if (inputStream == null) {
-                throw new RuntimeException("Test data file not found: " + fileName);
+            descriptor = InstrumentationRegistry.getInstrumentation().getContext()
+                    .getAssets().openFd(assetName);
+        } catch (IllegalStateException | IOException e) {
+            // Not running under instrumentation, or no compiled (uncompressed) asset for this file
+            return null;
+        }
+        
+        try (FileInputStream inputStream = descriptor.createInputStream();
+             FileChannel channel = inputStream.getChannel()) {
+            // The mapping stays valid after the channel is closed
+            return new BinaryTestData(channel.map(FileChannel.MapMode.READ_ONLY,
+                    descriptor.getStartOffset(), descriptor.getLength()));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to map compiled test data " + assetName + ", using JSON: " + e.getMessage());
+            return null;
+        } finally {
+            try {
+                descriptor.close();
+            } catch (IOException ignored) {
+                // Nothing to clean up
             }
-            
-            JsonObject jsonObject = JsonParser.parseReader(
-                    new InputStreamReader(inputStream, StandardCharsets.UTF_8)
-            ).getAsJsonObject();
-            
-            dataCache.put(fileName, jsonObject);
-            return jsonObject;
-        } catch (Exception e) {
-            throw new RuntimeException("Error loading test data from " + fileName, e);
         }
     }
     
+    /**
+     * Enable or disable the compiled binary backend.
+     * When disabled, all lookups read the JSON files.
+     */
+    public static void setBinaryDataEnabled(boolean enabled) {
+        binaryDataEnabled = enabled;
+    }
+    
     /**
      * Get test data as a specific type
      */
     public static <T> T getData(String fileName, String key, Class<T> type) {
-        JsonObject jsonObject = loadJsonData(fileName);
-        JsonElement element = jsonObject.get(key);
+        JsonElement element = findElement(fileName, key);
         return gson.fromJson(element, type);
     }
     
     /**
      * Get test data as a list
+     * TestDataModel classes with a generated DataBinder are bound without reflection
      */
     public static <T> List<T> getDataList(String fileName, String key, Class<T> type) {
-        JsonObject jsonObject = loadJsonData(fileName);
-        JsonElement element = jsonObject.get(key);
+        DataRowIterator<T> rows;
+        if (isPath(key)) {
+            JsonElement element = requireElement(fileName, key);
+            JsonArray array = element.isJsonArray() ? element.getAsJsonArray() : new JsonArray();
+            rows = new ElementRowIterator<>(array.size(), array::get, DataBinders.adapterFor(gson, type), fileName);
+        } else {
+            rows = streamDataList(fileName, key, type);
+        }
         List<T> result = new ArrayList<>();
-        
-        if (element.isJsonArray()) {
-            for (JsonElement item : element.getAsJsonArray()) {
-                result.add(gson.fromJson(item, type));
+        try {
+            while (rows.hasNext()) {
+                result.add(rows.next());
             }
+        } finally {
+            rows.close();
         }
-        
         return result;
     }
     
+    /**
+     * Stream test data rows lazily from a JSON array.
+     * Unlike getDataList(), rows are not collected into a list: each array element is decoded
+     * only when the iterator advances. Rows are read from compiled data or an already cached
+     * tree when available; otherwise the file is streamed without building a tree.
+     * Use this for large data files; the returned iterator must be closed if not exhausted.
+     * 
+     * @param fileName The test data file in the testdata/ resource folder
+     * @param key The top-level key holding the array of rows
+     * @param type The type each row is decoded into
+     * @return Lazy iterator over the rows
+     */
+    public static <T> DataRowIterator<T> streamDataList(String fileName, String key, Class<T> type) {
+        TypeAdapter<T> adapter = DataBinders.adapterFor(gson, type);
+        BinaryTestData binary = loadBinaryData(fileName);
+        if (binary != null) {
+            int array = binary.find(key);
+            if (array == BinaryTestData.NOT_FOUND) {
+                throw new RuntimeException("Test data key not found: " + key + " in " + fileName);
+            }
+            int size = binary.type(array) == BinaryTestData.TYPE_ARRAY ? binary.size(array) : 0;
+            return new ElementRowIterator<>(size, index -> toJsonElement(binary, binary.element(array, index)),
+                    adapter, fileName);
+        }
+        JsonObject tree = dataCache.getIfPresent(fileName);
+        if (tree != null) {
+            JsonElement element = tree.get(key);
+            if (element == null) {
+                throw new RuntimeException("Test data key not found: " + key + " in " + fileName);
+            }
+            JsonArray array = element.isJsonArray() ? element.getAsJsonArray() : new JsonArray();
+            return new ElementRowIterator<>(array.size(), array::get, adapter, fileName);
+        }
+        return new JsonRowIterator<>(openDataReader(fileName), key, adapter, fileName);
+    }
+    
+    /**
+     * Copy a value of compiled test data into a JSON tree, without parsing any text
+     */
+    private static JsonElement toJsonElement(BinaryTestData binary, int offset) {
+        switch (binary.type(offset)) {
+            case BinaryTestData.TYPE_OBJECT: {
+                JsonObject object = new JsonObject();
+                int size = binary.size(offset);
+                for (int i = 0; i < size; i++) {
+                    object.add(binary.key(offset, i), toJsonElement(binary, binary.value(offset, i)));
+                }
+                return object;
+            }
+            case BinaryTestData.TYPE_ARRAY: {
+                int size = binary.size(offset);
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(toJsonElement(binary, binary.element(offset, i)));
+                }
+                return array;
+            }
+            case BinaryTestData.TYPE_STRING:
+                return new JsonPrimitive(binary.getString(offset));
+            case BinaryTestData.TYPE_LONG:
+                return new JsonPrimitive(binary.getLong(offset));
+            case BinaryTestData.TYPE_DOUBLE:
+                return new JsonPrimitive(new SourceNumber(binary.getString(offset), binary.getDouble(offset)));
+            case BinaryTestData.TYPE_TRUE:
+                return new JsonPrimitive(true);
+            case BinaryTestData.TYPE_FALSE:
+                return new JsonPrimitive(false);
+            default:
+                return JsonNull.INSTANCE;
+        }
+    }
+    
+    /**
+     * A decimal number that keeps its source text, as numbers parsed from JSON do
+     */
+    private static final class SourceNumber extends Number {
+        private static final long serialVersionUID = 1L;
+        
+        private final String text;
+        private final double value;
+        
+        SourceNumber(String text, double value) {
+            this.text = text;
+            this.value = value;
+        }
+        
+        @Override
+        public int intValue() {
+            return (int) value;
+        }
+        
+        @Override
+        public long longValue() {
+            return (long) value;
+        }
+        
+        @Override
+        public float floatValue() {
+            return (float) value;
+        }
+        
+        @Override
+        public double doubleValue() {
+            return value;
+        }
+        
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+    
+    /**
+     * Iterate test data rows lazily from a JSON array.
+     * Drop-in replacement for getDataList() in for-each loops: every call to iterator()
+     * opens a fresh stream, which is closed once the rows are exhausted.
+     * 
+     * @param fileName The test data file in the testdata/ resource folder
+     * @param key The top-level key holding the array of rows
+     * @param type The type each row is decoded into
+     * @return Iterable over the rows
+     */
+    public static <T> Iterable<T> iterateDataList(String fileName, String key, Class<T> type) {
+        return new Iterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return streamDataList(fileName, key, type);
+            }
+        };
+    }
+    
+    /**
+     * Get a JSON array of rows as a column-oriented table.
+     * The array is streamed straight into primitive and dictionary-encoded columns, without
+     * building a JSON tree or a map per row. Tables are cached per file and key.
+     * Prefer this over getDataList(..., Map.class) for large data sets that are filtered
+     * or projected, e.g. getDataTable(file, key).filterEquals("expected_result", "failure").
+     * 
+     * @param fileName The test data file in the testdata/ resource folder
+     * @param key The top-level key holding the array of rows
+     * @return The rows as a table
+     */
+    public static TestDataTable getDataTable(String fileName, String key) {
+        return tableCache.get(fileName + "#" + key, cacheKey -> buildDataTable(fileName, key));
+    }
+    
+    private static TestDataTable buildDataTable(String fileName, String key) {
+        TestDataTable.Builder builder = new TestDataTable.Builder();
+        DataRowIterator<Void> rows = new JsonRowIterator<>(openDataReader(fileName), key, builder.rowReader(),
+                fileName);
+        try {
+            while (rows.hasNext()) {
+                rows.next();
+            }
+        } finally {
+            rows.close();
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Stream test data rows lazily from a CSV file.
+     * The first line holds the column names; each following line is mapped to the given type
+     * (Map.class for raw column/value maps, or a TestDataModel implementation).
+     * The returned iterator must be closed if not exhausted.
+     * 
+     * @param fileName The CSV file in the testdata/ resource folder
+     * @param type The type each row is mapped to
+     * @return Lazy iterator over the rows
+     */
+    public static <T> DataRowIterator<T> streamCsvData(String fileName, Class<T> type) {
+        return new CsvRowIterator<>(openDataReader(fileName), new RowMapper<>(gson, type), fileName);
+    }
+    
+    /**
+     * Stream test data rows lazily from a sheet of an XLSX workbook.
+     * The sheet is parsed with POI's streaming event model, so even very large sheets are read
+     * with constant memory. The first row holds the column names; each following row is mapped
+     * to the given type. Requires poi and poi-ooxml on the test classpath.
+     * The returned iterator must be closed if not exhausted.
+     * 
+     * @param fileName The XLSX file in the testdata/ resource folder
+     * @param sheetName The sheet to read, or null for the first sheet
+     * @param type The type each row is mapped to
+     * @return Lazy iterator over the rows
+     */
+    public static <T> DataRowIterator<T> streamExcelData(String fileName, String sheetName, Class<T> type) {
+        return new ExcelRowIterator<>(openDataStream(fileName), sheetName, new RowMapper<>(gson, type), fileName);
+    }
+    
     /**
      * Get string value from test data
      */
     public static String getString(String fileName, String key) {
-        JsonObject jsonObject = loadJsonData(fileName);
-        return jsonObject.get(key).getAsString();
+        BinaryTestData binary = loadBinaryData(fileName);
+        if (binary != null) {
+            return binary.getString(key);
+        }
+        return requireElement(fileName, key).getAsString();
     }
     
     /**
      * Get integer value from test data
      */
     public static int getInt(String fileName, String key) {
-        JsonObject jsonObject = loadJsonData(fileName);
-        return jsonObject.get(key).getAsInt();
+        BinaryTestData binary = loadBinaryData(fileName);
+        if (binary != null) {
+            return binary.getInt(key);
+        }
+        return requireElement(fileName, key).getAsInt();
     }
     
     /**
      * Get boolean value from test data
      */
     public static boolean getBoolean(String fileName, String key) {
-        JsonObject jsonObject = loadJsonData(fileName);
-        return jsonObject.get(key).getAsBoolean();
+        BinaryTestData binary = loadBinaryData(fileName);
+        if (binary != null) {
+            return binary.getBoolean(key);
+        }
+        return requireElement(fileName, key).getAsBoolean();
+    }
+    
+    /**
+     * Reduce a parameter space to a covering array.
+     * Instead of the full cross product, every combination of values of any `strength`
+     * parameters (pairwise by default) appears in at least one row, respecting the space's
+     * constraints and must-include rows. The result is deterministic, so every shard sees
+     * the same rows.
+     * 
+     * @param space The parameters, values, strength and constraints
+     * @return The rows, each mapping parameter names to values
+     * @throws IllegalArgumentException if the constraints leave a must-include row or an allowed
+     *         combination that cannot be completed into a valid row
+     */
+    public static List<Map<String, Object>> getCombinations(ParameterSpace space) {
+        return CoveringArrayGenerator.generate(space);
+    }
+    
+    /**
+     * Reduce a parameter space to a covering array, binding each row to a type
+     */
+    public static <T> List<T> getCombinations(ParameterSpace space, Class<T> type) {
+        List<T> result = new ArrayList<>();
+        for (Map<String, Object> row : getCombinations(space)) {
+            result.add(createFromMap(row, type));
+        }
+        return result;
+    }
+    
+    /**
+     * Read a parameter space from test data: an object mapping each parameter to an array of values,
+     * e.g. {"locale": ["en_US", "ja_JP"], "network": ["wifi", "offline"]}.
+     * Constraints, strength and must-include rows can be added to the returned space.
+     */
+    public static ParameterSpace getParameterSpace(String fileName, String key) {
+        JsonElement element = requireElement(fileName, key);
+        if (!element.isJsonObject()) {
+            throw new RuntimeException("Parameter space " + key + " in " + fileName + " must be an object");
+        }
+        return ParameterSpace.fromJson(element.getAsJsonObject());
     }
     
     /**
      * Create test data object from map
+     * Uses the generated DataBinder when available instead of converting through a JSON tree
      */
     public static <T> T createFromMap(Map<String, Object> data, Class<T> type) {
+        DataBinder<T> binder = DataBinders.get(type);
+        if (binder != null) {
+            return binder.fromMap(data);
+        }
         return gson.fromJson(gson.toJsonTree(data), type);
     }
     
+    /**
+     * Set the memory budget for cached test data.
+     * Least-recently-used files are evicted once the estimated size of all parsed files exceeds it.
+     * The budget applies separately to parsed JSON files, path indexes and data tables;
+     * path indexes of a file are dropped when its parsed JSON is evicted.
+     * 
+     * @param budgetBytes The budget in estimated heap bytes
+     */
+    public static void setCacheBudget(long budgetBytes) {
+        dataCache.setMaxWeight(budgetBytes);
+        pathIndexCache.setMaxWeight(budgetBytes);
+        tableCache.setMaxWeight(budgetBytes);
+    }
+    
+    /**
+     * Get hit/miss/load statistics of the test data cache
+     */
+    public static TestDataCache.Stats getCacheStats() {
+        return dataCache.stats();
+    }
+    
     /**
      * Clear data cache
      */
     public static void clearCache() {
-        dataCache.clear();
+        dataCache.invalidateAll();
+        pathIndexCache.invalidateAll();
+        tableCache.invalidateAll();
+        binaryData.clear();
+        missingBinaryData.clear();
     }
 }
 
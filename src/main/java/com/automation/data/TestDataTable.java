@@ -0,0 +1,809 @@
+package com.automation.data;
+
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented, read-only table of test data rows.
+ * 
+ * Each column is stored as one primitive array (int, long, double or boolean bits) or as
+ * dictionary-encoded strings (an int code per row plus one copy of each distinct value),
+ * with nulls tracked in a bitset. Compared to a List of Maps this avoids a map, boxed values
+ * and duplicate strings per row, and filtering compares primitives or dictionary codes.
+ * 
+ * Column types are inferred while loading: numeric columns widen from int to long to double,
+ * and a column holding mixed kinds of values falls back to strings. Nested objects and
+ * arrays are kept as JSON text.
+ * 
+ * filterEquals(), filter() and select() return views sharing the column storage, so they
+ * copy no data. Rows are read by index or through a reusable Cursor, without allocation.
+ * 
+ * Usage:
+ * <pre>
+ * TestDataTable failures = TestDataProvider.getDataTable("login_data.json", "test_users")
+ *         .filterEquals("expected_result", "failure");
+ * TestDataTable.Cursor row = failures.cursor();
+ * while (row.next()) {
+ *     loginPage.login(row.getString("username"), row.getString("password"));
+ * }
+ * </pre>
+ */
+public final class TestDataTable {
+    
+    /**
+     * Storage type of a column
+     */
+    public enum ColumnType {
+        INT, LONG, DOUBLE, BOOLEAN, STRING
+    }
+    
+    /**
+     * Row predicate for filter()
+     */
+    public interface RowFilter {
+        boolean accept(Cursor row);
+    }
+    
+    private final String[] names;
+    private final Column[] columns;
+    private final Map<String, Integer> columnIndex;
+    /** Physical row of each row in this view, or null when the view holds every row in order */
+    private final int[] selection;
+    private final int rowCount;
+    
+    private TestDataTable(String[] names, Column[] columns, int[] selection, int rowCount) {
+        this.names = names;
+        this.columns = columns;
+        this.selection = selection;
+        this.rowCount = rowCount;
+        this.columnIndex = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            columnIndex.put(names[i], i);
+        }
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public int getColumnCount() {
+        return names.length;
+    }
+    
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+    
+    /**
+     * Get the index of a column
+     * 
+     * @return The column index, or -1 if the table has no such column
+     */
+    public int getColumnIndex(String name) {
+        Integer index = columnIndex.get(name);
+        return index == null ? -1 : index;
+    }
+    
+    /**
+     * Get the storage type of a column
+     */
+    public ColumnType getColumnType(String name) {
+        return columns[requireColumn(name)].type;
+    }
+    
+    private int requireColumn(String name) {
+        Integer index = columnIndex.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Test data column not found: " + name);
+        }
+        return index;
+    }
+    
+    private int physicalRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of range, table has " + rowCount + " rows");
+        }
+        return selection == null ? row : selection[row];
+    }
+    
+    public boolean isNull(int row, int column) {
+        return columns[column].isNull(physicalRow(row));
+    }
+    
+    /**
+     * Get a value as a string; non-string columns are formatted as text
+     * 
+     * @return The value, or null if the cell is null
+     */
+    public String getString(int row, int column) {
+        return columns[column].getString(physicalRow(row));
+    }
+    
+    public int getInt(int row, int column) {
+        return (int) columns[column].getLong(physicalRow(row));
+    }
+    
+    public long getLong(int row, int column) {
+        return columns[column].getLong(physicalRow(row));
+    }
+    
+    public double getDouble(int row, int column) {
+        return columns[column].getDouble(physicalRow(row));
+    }
+    
+    public boolean getBoolean(int row, int column) {
+        return columns[column].getBoolean(physicalRow(row));
+    }
+    
+    /**
+     * Get a value as a String, Integer, Long, Double or Boolean
+     * 
+     * @return The value, or null if the cell is null
+     */
+    public Object getValue(int row, int column) {
+        return columns[column].getValue(physicalRow(row));
+    }
+    
+    /**
+     * Copy one row into a map of column name to value, skipping null cells.
+     * Useful to hand a row to TestDataProvider.createFromMap().
+     */
+    public Map<String, Object> toMap(int row) {
+        int physical = physicalRow(row);
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            Object value = columns[i].getValue(physical);
+            if (value != null) {
+                map.put(names[i], value);
+            }
+        }
+        return map;
+    }
+    
+    /**
+     * Create a cursor positioned before the first row.
+     * The cursor is reused for every row, so iterating allocates nothing per row.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+    
+    /**
+     * Get the rows whose column equals the given value.
+     * The value is converted to the column type (e.g., "3" matches an int column holding 3);
+     * a null value selects null cells. String columns are matched by dictionary code.
+     * 
+     * @param column The column name
+     * @param value The value to match
+     * @return A view over the matching rows
+     */
+    public TestDataTable filterEquals(String column, Object value) {
+        Column data = columns[requireColumn(column)];
+        int[] matches = new int[rowCount];
+        int count = 0;
+        if (value == null) {
+            for (int row = 0; row < rowCount; row++) {
+                int physical = selection == null ? row : selection[row];
+                if (data.isNull(physical)) {
+                    matches[count++] = physical;
+                }
+            }
+        } else {
+            count = data.matchEquals(value, selection, rowCount, matches);
+        }
+        return new TestDataTable(names, columns, Arrays.copyOf(matches, count), count);
+    }
+    
+    /**
+     * Get the rows accepted by a filter.
+     * The filter receives one reused cursor positioned on each row in turn.
+     */
+    public TestDataTable filter(RowFilter filter) {
+        int[] matches = new int[rowCount];
+        int count = 0;
+        Cursor cursor = new Cursor();
+        while (cursor.next()) {
+            if (filter.accept(cursor)) {
+                matches[count++] = physicalRow(cursor.position);
+            }
+        }
+        return new TestDataTable(names, columns, Arrays.copyOf(matches, count), count);
+    }
+    
+    /**
+     * Project the table onto a subset of columns, in the given order
+     */
+    public TestDataTable select(String... columnNames) {
+        Column[] selected = new Column[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            selected[i] = columns[requireColumn(columnNames[i])];
+        }
+        return new TestDataTable(columnNames.clone(), selected, selection, rowCount);
+    }
+    
+    /**
+     * Estimate the heap footprint of the column storage, used to bound the cache
+     */
+    long estimateSize() {
+        long size = 64 + 4L * (selection == null ? 0 : selection.length);
+        for (int i = 0; i < columns.length; i++) {
+            size += 64 + 2L * names[i].length() + columns[i].estimateSize();
+        }
+        return size;
+    }
+    
+    @Override
+    public String toString() {
+        return "TestDataTable{rows=" + rowCount + ", columns=" + Arrays.toString(names) + "}";
+    }
+    
+    /**
+     * Reusable view of the current row.
+     * Values are read straight from the column arrays; moving the cursor allocates nothing.
+     */
+    public final class Cursor {
+        private int position = -1;
+        
+        private Cursor() {}
+        
+        /**
+         * Advance to the next row
+         * 
+         * @return false once past the last row
+         */
+        public boolean next() {
+            if (position < rowCount) {
+                position++;
+            }
+            return position < rowCount;
+        }
+        
+        /**
+         * Move to the given row of the table
+         */
+        public void moveTo(int row) {
+            physicalRow(row);
+            position = row;
+        }
+        
+        /**
+         * Get the index of the current row in the table
+         */
+        public int getPosition() {
+            return position;
+        }
+        
+        public boolean isNull(String column) {
+            return TestDataTable.this.isNull(position, requireColumn(column));
+        }
+        
+        public String getString(String column) {
+            return TestDataTable.this.getString(position, requireColumn(column));
+        }
+        
+        public int getInt(String column) {
+            return TestDataTable.this.getInt(position, requireColumn(column));
+        }
+        
+        public long getLong(String column) {
+            return TestDataTable.this.getLong(position, requireColumn(column));
+        }
+        
+        public double getDouble(String column) {
+            return TestDataTable.this.getDouble(position, requireColumn(column));
+        }
+        
+        public boolean getBoolean(String column) {
+            return TestDataTable.this.getBoolean(position, requireColumn(column));
+        }
+        
+        public Object getValue(String column) {
+            return TestDataTable.this.getValue(position, requireColumn(column));
+        }
+        
+        /**
+         * Copy the current row into a map of column name to value
+         */
+        public Map<String, Object> toMap() {
+            return TestDataTable.this.toMap(position);
+        }
+    }
+    
+    // ------------------------------------------------------------------------
+    // Column storage
+    // ------------------------------------------------------------------------
+    
+    /**
+     * One column: a primitive array or dictionary codes, plus a null bitset.
+     * Mutable only while the table is being built.
+     */
+    private static final class Column {
+        ColumnType type;
+        int size;
+        long[] nulls = new long[1];
+        int[] ints;
+        long[] longs;
+        double[] doubles;
+        long[] booleans;
+        int[] codes;
+        List<String> dictionary;
+        Map<String, Integer> dictionaryIndex;
+        
+        boolean isNull(int row) {
+            return row >= size || (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+        
+        private void requireValue(int row) {
+            if (isNull(row)) {
+                throw new IllegalStateException("Test data value is null at row " + row);
+            }
+        }
+        
+        String getString(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+                case INT: return Integer.toString(ints[row]);
+                case LONG: return Long.toString(longs[row]);
+                case DOUBLE: return Double.toString(doubles[row]);
+                case BOOLEAN: return Boolean.toString(bit(booleans, row));
+                default: return dictionary.get(codes[row]);
+            }
+        }
+        
+        long getLong(int row) {
+            requireValue(row);
+            switch (type) {
+                case INT: return ints[row];
+                case LONG: return longs[row];
+                case DOUBLE: return (long) doubles[row];
+                case BOOLEAN: throw new IllegalStateException("Test data value is a boolean at row " + row);
+                default: return Long.parseLong(dictionary.get(codes[row]).trim());
+            }
+        }
+        
+        double getDouble(int row) {
+            requireValue(row);
+            switch (type) {
+                case INT: return ints[row];
+                case LONG: return longs[row];
+                case DOUBLE: return doubles[row];
+                case BOOLEAN: throw new IllegalStateException("Test data value is a boolean at row " + row);
+                default: return Double.parseDouble(dictionary.get(codes[row]).trim());
+            }
+        }
+        
+        boolean getBoolean(int row) {
+            requireValue(row);
+            if (type == ColumnType.BOOLEAN) {
+                return bit(booleans, row);
+            }
+            if (type == ColumnType.STRING) {
+                return Boolean.parseBoolean(dictionary.get(codes[row]));
+            }
+            throw new IllegalStateException("Test data value is a number at row " + row);
+        }
+        
+        Object getValue(int row) {
+            if (isNull(row)) {
+                return null;
+            }
+            switch (type) {
+                case INT: return ints[row];
+                case LONG: return longs[row];
+                case DOUBLE: return doubles[row];
+                case BOOLEAN: return bit(booleans, row);
+                default: return dictionary.get(codes[row]);
+            }
+        }
+        
+        /**
+         * Collect the physical rows of a view whose value equals the given non-null value
+         * 
+         * @return The number of matches written to the matches array
+         */
+        int matchEquals(Object value, int[] selection, int rowCount, int[] matches) {
+            if (type == null) {
+                return 0;
+            }
+            int count = 0;
+            switch (type) {
+                case STRING: {
+                    Integer code = dictionaryIndex.get(value.toString());
+                    if (code == null) {
+                        return 0;
+                    }
+                    int wanted = code;
+                    for (int row = 0; row < rowCount; row++) {
+                        int physical = selection == null ? row : selection[row];
+                        if (codes[physical] == wanted && !isNull(physical)) {
+                            matches[count++] = physical;
+                        }
+                    }
+                    return count;
+                }
+                case BOOLEAN: {
+                    Object wanted = parseValue(value);
+                    if (!(wanted instanceof Boolean)) {
+                        return 0;
+                    }
+                    boolean flag = (Boolean) wanted;
+                    for (int row = 0; row < rowCount; row++) {
+                        int physical = selection == null ? row : selection[row];
+                        if (bit(booleans, physical) == flag && !isNull(physical)) {
+                            matches[count++] = physical;
+                        }
+                    }
+                    return count;
+                }
+                default: {
+                    Object wanted = parseValue(value);
+                    if (!(wanted instanceof Number)) {
+                        return 0;
+                    }
+                    double number = ((Number) wanted).doubleValue();
+                    long whole = ((Number) wanted).longValue();
+                    boolean integral = !(wanted instanceof Double) || number == whole;
+                    for (int row = 0; row < rowCount; row++) {
+                        int physical = selection == null ? row : selection[row];
+                        boolean equal;
+                        if (type == ColumnType.INT) {
+                            equal = integral && ints[physical] == whole;
+                        } else if (type == ColumnType.LONG) {
+                            equal = integral && longs[physical] == whole;
+                        } else {
+                            equal = doubles[physical] == number;
+                        }
+                        if (equal && !isNull(physical)) {
+                            matches[count++] = physical;
+                        }
+                    }
+                    return count;
+                }
+            }
+        }
+        
+        long estimateSize() {
+            long size = 48 + 8L * nulls.length;
+            if (type == null) {
+                return size;
+            }
+            switch (type) {
+                case INT: return size + 4L * ints.length;
+                case LONG: return size + 8L * longs.length;
+                case DOUBLE: return size + 8L * doubles.length;
+                case BOOLEAN: return size + 8L * booleans.length;
+                default:
+                    size += 4L * codes.length;
+                    for (String value : dictionary) {
+                        // Entry in the list and the index, plus the string itself
+                        size += 8 + 48 + 56 + 2L * value.length();
+                    }
+                    return size;
+            }
+        }
+        
+        // --------------------------------------------------------------------
+        // Building
+        // --------------------------------------------------------------------
+        
+        /**
+         * Store a value at the given row, marking skipped rows as null.
+         * 
+         * @param value A String, Boolean, Integer, Long or Double
+         */
+        void set(int row, Object value) {
+            ColumnType valueType = typeOf(value);
+            if (type == null) {
+                allocate(valueType, Math.max(16, row + 1));
+            } else if (type != valueType) {
+                promote(valueType);
+            }
+            ensureCapacity(row + 1);
+            for (int skipped = size; skipped < row; skipped++) {
+                setBit(nulls, skipped, true);
+            }
+            setBit(nulls, row, false);
+            size = Math.max(size, row + 1);
+            
+            switch (type) {
+                case INT: ints[row] = (Integer) value; break;
+                case LONG: longs[row] = ((Number) value).longValue(); break;
+                case DOUBLE: doubles[row] = ((Number) value).doubleValue(); break;
+                case BOOLEAN: setBit(booleans, row, (Boolean) value); break;
+                default: codes[row] = encode(value.toString()); break;
+            }
+        }
+        
+        private static ColumnType typeOf(Object value) {
+            if (value instanceof Integer) {
+                return ColumnType.INT;
+            }
+            if (value instanceof Long) {
+                return ColumnType.LONG;
+            }
+            if (value instanceof Double) {
+                return ColumnType.DOUBLE;
+            }
+            if (value instanceof Boolean) {
+                return ColumnType.BOOLEAN;
+            }
+            return ColumnType.STRING;
+        }
+        
+        private void allocate(ColumnType newType, int capacity) {
+            type = newType;
+            switch (newType) {
+                case INT: ints = new int[capacity]; break;
+                case LONG: longs = new long[capacity]; break;
+                case DOUBLE: doubles = new double[capacity]; break;
+                case BOOLEAN: booleans = new long[(capacity + 63) >>> 6]; break;
+                default:
+                    codes = new int[capacity];
+                    dictionary = new ArrayList<>();
+                    dictionaryIndex = new HashMap<>();
+                    break;
+            }
+        }
+        
+        /**
+         * Widen the column so it can also hold values of the given type:
+         * int to long to double for numbers, strings for anything else
+         */
+        private void promote(ColumnType valueType) {
+            if (type == ColumnType.STRING) {
+                // Strings hold anything; values are stored as text
+                return;
+            }
+            boolean numeric = type == ColumnType.INT || type == ColumnType.LONG || type == ColumnType.DOUBLE;
+            boolean numericValue = valueType == ColumnType.INT || valueType == ColumnType.LONG
+                    || valueType == ColumnType.DOUBLE;
+            ColumnType target;
+            if (numeric && numericValue) {
+                if (valueType.ordinal() <= type.ordinal()) {
+                    // Narrower number fits the column as is
+                    return;
+                }
+                target = valueType;
+            } else {
+                target = ColumnType.STRING;
+            }
+            
+            Object[] values = new Object[size];
+            for (int row = 0; row < size; row++) {
+                values[row] = target == ColumnType.STRING ? getString(row) : getValue(row);
+            }
+            int capacity = Math.max(16, capacity());
+            ints = null;
+            longs = null;
+            doubles = null;
+            booleans = null;
+            allocate(target, capacity);
+            for (int row = 0; row < size; row++) {
+                if (values[row] == null) {
+                    continue;
+                }
+                switch (target) {
+                    case LONG: longs[row] = ((Number) values[row]).longValue(); break;
+                    case DOUBLE: doubles[row] = ((Number) values[row]).doubleValue(); break;
+                    default: codes[row] = encode((String) values[row]); break;
+                }
+            }
+        }
+        
+        private int capacity() {
+            switch (type) {
+                case INT: return ints.length;
+                case LONG: return longs.length;
+                case DOUBLE: return doubles.length;
+                case BOOLEAN: return booleans.length << 6;
+                default: return codes.length;
+            }
+        }
+        
+        private void ensureCapacity(int required) {
+            if (nulls.length << 6 < required) {
+                nulls = Arrays.copyOf(nulls, Math.max(nulls.length * 2, (required + 63) >>> 6));
+            }
+            int capacity = capacity();
+            if (capacity >= required) {
+                return;
+            }
+            int grown = Math.max(capacity * 2, required);
+            switch (type) {
+                case INT: ints = Arrays.copyOf(ints, grown); break;
+                case LONG: longs = Arrays.copyOf(longs, grown); break;
+                case DOUBLE: doubles = Arrays.copyOf(doubles, grown); break;
+                case BOOLEAN: booleans = Arrays.copyOf(booleans, (grown + 63) >>> 6); break;
+                default: codes = Arrays.copyOf(codes, grown); break;
+            }
+        }
+        
+        private int encode(String value) {
+            Integer code = dictionaryIndex.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryIndex.put(value, code);
+            }
+            return code;
+        }
+        
+        /**
+         * Pad the column with nulls up to the row count and release unused capacity
+         */
+        void finish(int rowCount) {
+            if (type == null) {
+                // Only nulls were seen
+                nulls = new long[(rowCount + 63) >>> 6];
+                Arrays.fill(nulls, -1L);
+                size = rowCount;
+                return;
+            }
+            ensureCapacity(rowCount);
+            for (int row = size; row < rowCount; row++) {
+                setBit(nulls, row, true);
+            }
+            size = rowCount;
+            int words = (rowCount + 63) >>> 6;
+            nulls = Arrays.copyOf(nulls, words);
+            switch (type) {
+                case INT: ints = Arrays.copyOf(ints, rowCount); break;
+                case LONG: longs = Arrays.copyOf(longs, rowCount); break;
+                case DOUBLE: doubles = Arrays.copyOf(doubles, rowCount); break;
+                case BOOLEAN: booleans = Arrays.copyOf(booleans, words); break;
+                default:
+                    codes = Arrays.copyOf(codes, rowCount);
+                    ((ArrayList<String>) dictionary).trimToSize();
+                    break;
+            }
+        }
+    }
+    
+    private static boolean bit(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+    
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+    
+    /**
+     * Convert a filter value given as text to the number or boolean it represents
+     */
+    private static Object parseValue(Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+        String text = ((String) value).trim();
+        if ("true".equals(text) || "false".equals(text)) {
+            return Boolean.valueOf(text);
+        }
+        try {
+            return parseNumber(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Parse a JSON number literal into the narrowest of Integer, Long and Double
+     */
+    private static Number parseNumber(String literal) {
+        boolean integral = literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0;
+        if (integral) {
+            try {
+                long value = Long.parseLong(literal);
+                if (value == (int) value) {
+                    return (int) value;
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                // Beyond the long range
+            }
+        }
+        return Double.parseDouble(literal);
+    }
+    
+    // ------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------
+    
+    /**
+     * Builds a table one row at a time, straight from a JSON token stream.
+     * Columns are created as keys first appear; missing keys are null.
+     */
+    static final class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<Column> columns = new ArrayList<>();
+        private final Map<String, Column> byName = new HashMap<>();
+        private int rowCount;
+        
+        /**
+         * Get a type adapter that appends each JSON row it reads to this builder.
+         * Rows that are not objects are stored in a single "value" column.
+         */
+        TypeAdapter<Void> rowReader() {
+            return new TypeAdapter<Void>() {
+                @Override
+                public Void read(JsonReader in) throws IOException {
+                    readRow(in);
+                    return null;
+                }
+                
+                @Override
+                public void write(JsonWriter out, Void value) {
+                    throw new UnsupportedOperationException("TestDataTable rows are read-only");
+                }
+            };
+        }
+        
+        void readRow(JsonReader in) throws IOException {
+            int row = rowCount++;
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                set(row, "value", readValue(in));
+                return;
+            }
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                set(row, name, readValue(in));
+            }
+            in.endObject();
+        }
+        
+        private static Object readValue(JsonReader in) throws IOException {
+            switch (in.peek()) {
+                case NULL:
+                    in.nextNull();
+                    return null;
+                case BOOLEAN:
+                    return in.nextBoolean();
+                case NUMBER:
+                    return parseNumber(in.nextString());
+                case STRING:
+                    return in.nextString();
+                default:
+                    // Nested object or array
+                    return JsonParser.parseReader(in).toString();
+            }
+        }
+        
+        private void set(int row, String name, Object value) {
+            Column column = byName.get(name);
+            if (column == null) {
+                column = new Column();
+                names.add(name);
+                columns.add(column);
+                byName.put(name, column);
+            }
+            if (value != null) {
+                column.set(row, value);
+            }
+        }
+        
+        TestDataTable build() {
+            for (Column column : columns) {
+                column.finish(rowCount);
+            }
+            return new TestDataTable(names.toArray(new String[0]), columns.toArray(new Column[0]), null, rowCount);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.automation.idling;
+
+import androidx.annotation.Nullable;
+import androidx.test.espresso.IdlingResource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counting Idling Resource backed by a lock-free counter
+ * Drop-in replacement for CountingIdlingResource on hot paths
+ * 
+ * The busy count is a single AtomicInteger updated with compare-and-set, so any number of
+ * threads can increment and decrement concurrently without locking. The idle transition
+ * callback fires exactly once per busy-to-idle edge: only the thread whose decrement takes
+ * the count from 1 to 0 notifies Espresso.
+ * 
+ * When created with IdlingMetrics, every busy interval is recorded there without allocation.
+ * When attached to a CompositeIdlingResource, each edge is also reported to the composite.
+ */
+public class AtomicCountingIdlingResource implements IdlingResource {
+    
+    private final String name;
+    private final AtomicInteger counter = new AtomicInteger();
+    @Nullable
+    private final IdlingMetrics metrics;
+    @Nullable
+    private volatile CompositeIdlingResource parent;
+    
+    @Nullable
+    private volatile ResourceCallback callback;
+    
+    public AtomicCountingIdlingResource(String name) {
+        this(name, null);
+    }
+    
+    /**
+     * Create a resource that records its busy intervals
+     * 
+     * @param name The resource name
+     * @param metrics Receives busy intervals, or null to record nothing
+     */
+    public AtomicCountingIdlingResource(String name, @Nullable IdlingMetrics metrics) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Idling resource name must not be empty");
+        }
+        this.name = name;
+        this.metrics = metrics;
+    }
+    
+    /**
+     * Create a sub-resource of a composite
+     */
+    AtomicCountingIdlingResource(String name, @Nullable IdlingMetrics metrics, CompositeIdlingResource parent) {
+        this(name, metrics);
+        this.parent = parent;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public boolean isIdleNow() {
+        return counter.get() == 0;
+    }
+    
+    @Override
+    public void registerIdleTransitionCallback(ResourceCallback callback) {
+        this.callback = callback;
+    }
+    
+    /**
+     * Increment the busy count
+     */
+    public void increment() {
+        if (counter.incrementAndGet() == 1) {
+            if (metrics != null) {
+                long now = System.nanoTime();
+                metrics.busy(now);
+                // A decrement may have taken the count back to 0 before busy() was recorded,
+                // finding no interval to end; do not leave the metrics busy while idle
+                if (counter.get() == 0) {
+                    metrics.abandon(now);
+                }
+            }
+            CompositeIdlingResource composite = parent;
+            if (composite != null) {
+                composite.resourceBusy();
+            }
+        }
+    }
+    
+    /**
+     * Decrement the busy count, notifying Espresso when it reaches zero
+     * 
+     * @throws IllegalStateException if the resource is already idle
+     */
+    public void decrement() {
+        if (!decrementIfBusy()) {
+            throw new IllegalStateException("Counter has been corrupted! Idling resource " + name
+                    + " was decremented while idle");
+        }
+    }
+    
+    /**
+     * Decrement the busy count unless it is already zero
+     * 
+     * @return true if the count was decremented, false if the resource was idle
+     */
+    public boolean decrementIfBusy() {
+        while (true) {
+            int count = counter.get();
+            if (count == 0) {
+                return false;
+            }
+            if (counter.compareAndSet(count, count - 1)) {
+                if (count == 1) {
+                    if (metrics != null) {
+                        metrics.idle(System.nanoTime());
+                    }
+                    CompositeIdlingResource composite = parent;
+                    if (composite != null) {
+                        composite.resourceIdle();
+                    }
+                    notifyIdle();
+                }
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Get the busy-time metrics of this resource
+     * 
+     * @return The metrics, or null if the resource records none
+     */
+    @Nullable
+    public IdlingMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Stop reporting to the composite, withdrawing this resource's busy state from it.
+     * Should be called while the resource is idle; an edge racing with it may be miscounted.
+     */
+    void detach() {
+        CompositeIdlingResource composite = parent;
+        parent = null;
+        if (composite != null && counter.get() > 0) {
+            composite.resourceIdle();
+        }
+    }
+    
+    /**
+     * Get the current busy count
+     */
+    public int getCount() {
+        return counter.get();
+    }
+    
+    private void notifyIdle() {
+        ResourceCallback current = callback;
+        if (current != null) {
+            current.onTransitionToIdle();
+        }
+    }
+}
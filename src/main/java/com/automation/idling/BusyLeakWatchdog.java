@@ -0,0 +1,203 @@
+package com.automation.idling;
+
+import androidx.annotation.Nullable;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit rule that fails a test fast when a BusyToken is held longer than a budget
+ * 
+ * Without it, a token that is never closed keeps its resource busy and Espresso waits out the
+ * full IdlingPolicies timeout before failing. While the test runs, the watchdog checks the open
+ * tokens every quarter of the budget. When a token is over budget, the test thread is interrupted,
+ * which aborts a pending Espresso interaction, and the token is force-released so the resource
+ * does not hold up later tests. The test then fails with the stack trace of the acquire() call
+ * that leaked. Over-decrements recorded by IdlingResourceManager.decrement() during the test fail
+ * it as well.
+ * 
+ * Only tokens are policed, since a token is one operation: a resource can legitimately stay busy
+ * longer than the budget through overlapping increments, and tasks of the idling executors and
+ * handlers may run or wait as long as they need; their tokens are exempt from the budget.
+ * 
+ * Keep the budget below the Espresso idling resource timeout (26 seconds by default).
+ */
+public class BusyLeakWatchdog implements TestRule {
+    
+    /**
+     * Default time a token may be held before it counts as leaked
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 10000;
+    
+    private static final long MIN_CHECK_INTERVAL_MILLIS = 50;
+    
+    private static ScheduledExecutorService scheduler;
+    
+    private final IdlingResourceManager manager;
+    private final long budgetMillis;
+    private final List<Throwable> leaks = new CopyOnWriteArrayList<>();
+    // Guarded by "this"; set while the test body runs
+    private Thread testThread;
+    private boolean interrupted;
+    private volatile IdlingDiagnostics leakDiagnostics;
+    
+    public BusyLeakWatchdog() {
+        this(DEFAULT_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * @param budget Maximum time a token may be held
+     * @param unit Unit of the budget
+     */
+    public BusyLeakWatchdog(long budget, TimeUnit unit) {
+        this(IdlingResourceManager.getInstance(), budget, unit);
+    }
+    
+    public BusyLeakWatchdog(IdlingResourceManager manager, long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Busy budget must be positive: " + budget);
+        }
+        this.manager = manager;
+        this.budgetMillis = unit.toMillis(budget);
+    }
+    
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                // Leftovers belong to earlier tests, which already reported them
+                leaks.clear();
+                leakDiagnostics = null;
+                manager.drainOverDecrements();
+                
+                synchronized (BusyLeakWatchdog.this) {
+                    testThread = Thread.currentThread();
+                    interrupted = false;
+                }
+                
+                long interval = Math.max(MIN_CHECK_INTERVAL_MILLIS, budgetMillis / 4);
+                ScheduledFuture<?> check = scheduler().scheduleWithFixedDelay(
+                        () -> checkBudget(), interval, interval, TimeUnit.MILLISECONDS);
+                Throwable failure = null;
+                try {
+                    base.evaluate();
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    check.cancel(false);
+                    synchronized (BusyLeakWatchdog.this) {
+                        testThread = null;
+                        if (interrupted) {
+                            // The interrupt may not have been consumed; it must not reach the next test
+                            Thread.interrupted();
+                        }
+                    }
+                }
+                
+                checkBudget();
+                // The leak comes first: when it interrupted the test, the test's own failure is a consequence
+                List<Throwable> errors = new ArrayList<>(leaks);
+                if (failure != null) {
+                    errors.add(failure);
+                }
+                for (Throwable overDecrement : manager.drainOverDecrements()) {
+                    errors.add(new AssertionError(overDecrement.getMessage(), overDecrement));
+                }
+                releaseRemaining(description);
+                MultipleFailureException.assertEmpty(errors);
+            }
+        };
+    }
+    
+    /**
+     * Fail the test for every open token held longer than the budget.
+     * Synchronized so the final check after the test waits for a scheduled one in progress.
+     */
+    private synchronized void checkBudget() {
+        long budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        List<Throwable> found = new ArrayList<>();
+        List<BusyToken> overBudget = new ArrayList<>();
+        for (BusyToken token : manager.getOpenTokens()) {
+            if (!token.isBudgeted()) {
+                continue;
+            }
+            long heldNanos = token.getHeldNanos();
+            if (heldNanos > budgetNanos) {
+                overBudget.add(token);
+                found.add(new AssertionError("Idling resource '" + token.getName() + "' was held busy for "
+                        + TimeUnit.NANOSECONDS.toMillis(heldNanos) + "ms, over the " + budgetMillis
+                        + "ms budget without being closed", token.getCallSite()));
+            }
+        }
+        
+        if (found.isEmpty()) {
+            return;
+        }
+        
+        if (leakDiagnostics == null) {
+            leakDiagnostics = manager.captureDiagnostics();
+        }
+        // Interrupt before releasing, so the test stops at the interaction that was waiting
+        if (testThread != null) {
+            testThread.interrupt();
+            interrupted = true;
+        }
+        for (BusyToken token : overBudget) {
+            token.forceRelease();
+        }
+        for (Throwable leak : found) {
+            System.err.println(leak.getMessage());
+        }
+        leaks.addAll(found);
+    }
+    
+    /**
+     * Release tokens still open within budget when the test ends, so they cannot keep the next
+     * test busy. Task tokens are left to IdlingResourceManager.resetBusyCounts().
+     */
+    private void releaseRemaining(Description description) {
+        for (BusyToken token : manager.getOpenTokens()) {
+            if (token.isBudgeted() && token.forceRelease()) {
+                System.err.println("Released busy token '" + token.getName() + "' still open at the end of "
+                        + description.getDisplayName());
+            }
+        }
+    }
+    
+    /**
+     * Get the synchronization state captured when the current test first went over budget,
+     * before the leaked busy counts were released
+     * 
+     * @return The snapshot, or null if nothing went over budget in the current test
+     */
+    @Nullable
+    public IdlingDiagnostics getLeakDiagnostics() {
+        return leakDiagnostics;
+    }
+    
+    public long getBudgetMillis() {
+        return budgetMillis;
+    }
+    
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "BusyLeakWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+}
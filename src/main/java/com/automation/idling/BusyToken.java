@@ -0,0 +1,126 @@
+package com.automation.idling;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scoped busy marker for an idling resource, obtained from IdlingResourceManager.acquire()
+ * 
+ * The resource stays busy until the token is closed, so try-with-resources or a completion
+ * callback cannot forget the matching decrement. Each token records where it was acquired;
+ * BusyLeakWatchdog uses that call site to report tokens that are never closed.
+ * 
+ * Usage:
+ * <pre>
+ * BusyToken token = IdlingResourceManager.getInstance().acquire("network");
+ * call.enqueue(new Callback() {
+ *     public void onResponse(...) { token.close(); }
+ *     public void onFailure(...) { token.close(); }
+ * });
+ * </pre>
+ * Closing is idempotent: only the first close() decrements the resource.
+ */
+public final class BusyToken implements AutoCloseable {
+    
+    private final String name;
+    private final AtomicCountingIdlingResource resource;
+    private final IdlingResourceManager manager;
+    @Nullable
+    private final Throwable callSite;
+    private final boolean budgeted;
+    private final long acquiredNanos;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private volatile boolean leaked;
+    
+    /**
+     * @param budgeted Whether BusyLeakWatchdog holds the token to its budget; only budgeted
+     *                 tokens record their call site
+     */
+    BusyToken(String name, AtomicCountingIdlingResource resource, IdlingResourceManager manager, boolean budgeted) {
+        this.name = name;
+        this.resource = resource;
+        this.manager = manager;
+        this.budgeted = budgeted;
+        this.callSite = budgeted ? new Throwable("Busy token for '" + name + "' acquired on thread "
+                + Thread.currentThread().getName()) : null;
+        this.acquiredNanos = System.nanoTime();
+    }
+    
+    /**
+     * Release the resource. Does nothing if the token is already closed.
+     */
+    @Override
+    public void close() {
+        release();
+    }
+    
+    /**
+     * Close the token on behalf of its owner, marking it as leaked
+     * 
+     * @return true if the token was still open
+     */
+    boolean forceRelease() {
+        leaked = true;
+        if (release()) {
+            return true;
+        }
+        // The owner closed it first, so it was not leaked after all
+        leaked = false;
+        return false;
+    }
+    
+    private boolean release() {
+        if (!open.compareAndSet(true, false)) {
+            return false;
+        }
+        resource.decrementIfBusy();
+        manager.release(this);
+        return true;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public boolean isOpen() {
+        return open.get();
+    }
+    
+    /**
+     * Check whether the token was released by the watchdog instead of its owner
+     */
+    public boolean isLeaked() {
+        return leaked;
+    }
+    
+    /**
+     * Get how long the token has been held, in nanoseconds
+     */
+    public long getHeldNanos() {
+        return System.nanoTime() - acquiredNanos;
+    }
+    
+    /**
+     * Check whether the token counts as leaked once held longer than BusyLeakWatchdog's budget.
+     * Tokens of idling executor and handler tasks do not: a task may wait or run as long as it needs.
+     */
+    boolean isBudgeted() {
+        return budgeted;
+    }
+    
+    /**
+     * Get a throwable whose stack trace shows where the token was acquired
+     * 
+     * @return The call site, or null for tokens of idling executor and handler tasks
+     */
+    @Nullable
+    public Throwable getCallSite() {
+        return callSite;
+    }
+    
+    @Override
+    public String toString() {
+        return "BusyToken{" + name + (isOpen() ? ", open" : ", closed") + (leaked ? ", leaked" : "") + "}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.automation.idling;
+
+import androidx.annotation.Nullable;
+import androidx.test.espresso.IdlingResource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single Idling Resource aggregating any number of named AtomicCountingIdlingResources
+ * 
+ * Espresso polls every registered resource at each synchronization point. Registering only this
+ * composite turns that into one O(1) check: the composite keeps a count of busy sub-resources,
+ * updated only on each sub-resource's idle-to-busy and busy-to-idle edges. Per-name state stays
+ * available on the sub-resources for diagnostics.
+ * 
+ * Edges of different threads may be applied out of order, so the count can briefly go negative;
+ * that reads as busy, and the idle callback fires whenever the count returns to 0.
+ */
+public class CompositeIdlingResource implements IdlingResource {
+    
+    private final String name;
+    private final AtomicInteger busyResources = new AtomicInteger();
+    
+    @Nullable
+    private volatile ResourceCallback callback;
+    
+    public CompositeIdlingResource(String name) {
+        this.name = name;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public boolean isIdleNow() {
+        return busyResources.get() == 0;
+    }
+    
+    @Override
+    public void registerIdleTransitionCallback(ResourceCallback callback) {
+        this.callback = callback;
+    }
+    
+    /**
+     * A sub-resource went from idle to busy
+     */
+    void resourceBusy() {
+        if (busyResources.incrementAndGet() == 0) {
+            notifyIdle();
+        }
+    }
+    
+    /**
+     * A sub-resource went from busy to idle
+     */
+    void resourceIdle() {
+        if (busyResources.decrementAndGet() == 0) {
+            notifyIdle();
+        }
+    }
+    
+    /**
+     * Forget all busy sub-resources, e.g. after they have been detached
+     */
+    void reset() {
+        if (busyResources.getAndSet(0) != 0) {
+            notifyIdle();
+        }
+    }
+    
+    /**
+     * Get the number of sub-resources that are currently busy
+     */
+    public int getBusyResourceCount() {
+        return busyResources.get();
+    }
+    
+    private void notifyIdle() {
+        ResourceCallback current = callback;
+        if (current != null) {
+            current.onTransitionToIdle();
+        }
+    }
+}
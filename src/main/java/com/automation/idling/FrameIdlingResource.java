@@ -0,0 +1,173 @@
+package com.automation.idling;
+
+import android.app.Activity;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import androidx.annotation.Nullable;
+import androidx.test.espresso.IdlingResource;
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry;
+import androidx.test.runner.lifecycle.Stage;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+
+/**
+ * Idling Resource that is idle once the UI has settled: N consecutive frames without a redraw
+ * 
+ * Disabling system animations does not stop Lottie, custom ValueAnimators or Compose transitions,
+ * which all redraw the window on every frame while they run. This resource listens for draws of
+ * the resumed activity's window (ViewTreeObserver.OnDrawListener) and counts vsync frames with
+ * Choreographer frame callbacks; the UI is settled once the required number of frames pass without
+ * a draw. Nothing is polled: frame callbacks are only posted until the UI settles, and the next
+ * draw makes the resource busy again and restarts the count.
+ * 
+ * All state is touched on the main thread only, where Espresso calls isIdleNow() and where the
+ * draw and frame callbacks run.
+ * 
+ * A screen that redraws forever (e.g. an indeterminate ProgressBar) never settles; register this
+ * resource only for screens that come to rest. Windows other than the activity's (dialogs,
+ * popups) are not observed.
+ * 
+ * Usage:
+ * <pre>
+ * IdlingResourceManager.getInstance().registerFrameIdlingResource(FrameIdlingResource.DEFAULT_QUIET_FRAMES);
+ * </pre>
+ */
+public class FrameIdlingResource implements IdlingResource {
+    
+    /**
+     * Default number of frames without a draw after which the UI counts as settled
+     */
+    public static final int DEFAULT_QUIET_FRAMES = 3;
+    
+    private final int requiredQuietFrames;
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> onFrame();
+    private final ViewTreeObserver.OnDrawListener drawListener = () -> onDraw();
+    
+    // Main thread state
+    private WeakReference<View> observedRoot = new WeakReference<>(null);
+    private int quietFrames;
+    private boolean drawnSinceLastFrame;
+    private boolean frameCallbackPosted;
+    private volatile boolean idle;
+    
+    @Nullable
+    private volatile ResourceCallback callback;
+    
+    public FrameIdlingResource() {
+        this(DEFAULT_QUIET_FRAMES);
+    }
+    
+    /**
+     * @param requiredQuietFrames Number of consecutive frames without a draw before the UI is idle
+     */
+    public FrameIdlingResource(int requiredQuietFrames) {
+        if (requiredQuietFrames < 1) {
+            throw new IllegalArgumentException("At least one quiet frame is required: " + requiredQuietFrames);
+        }
+        this.requiredQuietFrames = requiredQuietFrames;
+    }
+    
+    @Override
+    public String getName() {
+        return "FrameIdlingResource(" + requiredQuietFrames + " quiet frames)";
+    }
+    
+    @Override
+    public boolean isIdleNow() {
+        View root = findResumedRoot();
+        if (root == null) {
+            // Nothing on screen to settle
+            return true;
+        }
+        if (root != observedRoot.get()) {
+            observe(root);
+        }
+        return idle;
+    }
+    
+    @Override
+    public void registerIdleTransitionCallback(ResourceCallback callback) {
+        this.callback = callback;
+    }
+    
+    public int getRequiredQuietFrames() {
+        return requiredQuietFrames;
+    }
+    
+    /**
+     * Stop observing the current window. Call on the main thread once the resource is unregistered.
+     */
+    public void stop() {
+        View root = observedRoot.get();
+        if (root != null) {
+            ViewTreeObserver observer = root.getViewTreeObserver();
+            if (observer.isAlive()) {
+                observer.removeOnDrawListener(drawListener);
+            }
+        }
+        observedRoot = new WeakReference<>(null);
+        if (frameCallbackPosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameCallbackPosted = false;
+        }
+    }
+    
+    private void observe(View root) {
+        stop();
+        observedRoot = new WeakReference<>(root);
+        root.getViewTreeObserver().addOnDrawListener(drawListener);
+        // A new window is not settled until it has gone quiet
+        idle = false;
+        quietFrames = 0;
+        drawnSinceLastFrame = false;
+        scheduleFrame();
+    }
+    
+    private void onDraw() {
+        drawnSinceLastFrame = true;
+        quietFrames = 0;
+        idle = false;
+        scheduleFrame();
+    }
+    
+    private void onFrame() {
+        frameCallbackPosted = false;
+        if (drawnSinceLastFrame) {
+            // Frame callbacks run before traversal, so this is the draw of the previous frame
+            drawnSinceLastFrame = false;
+            quietFrames = 0;
+        } else {
+            quietFrames++;
+        }
+        if (quietFrames < requiredQuietFrames) {
+            scheduleFrame();
+        } else if (!idle) {
+            idle = true;
+            ResourceCallback current = callback;
+            if (current != null) {
+                current.onTransitionToIdle();
+            }
+        }
+    }
+    
+    private void scheduleFrame() {
+        if (!frameCallbackPosted) {
+            frameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+    
+    @Nullable
+    private static View findResumedRoot() {
+        Collection<Activity> resumed = ActivityLifecycleMonitorRegistry.getInstance()
+                .getActivitiesInStage(Stage.RESUMED);
+        if (resumed.isEmpty()) {
+            return null;
+        }
+        Activity activity = resumed.iterator().next();
+        return activity.getWindow() != null ? activity.getWindow().getDecorView() : null;
+    }
+}
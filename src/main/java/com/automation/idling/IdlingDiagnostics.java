@@ -0,0 +1,325 @@
+package com.automation.idling;
+
+import android.os.Looper;
+import android.util.Printer;
+
+import androidx.annotation.Nullable;
+import androidx.test.espresso.AppNotIdleException;
+import androidx.test.espresso.IdlingResourceTimeoutException;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.runners.model.MultipleFailureException;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the synchronization state at the moment a test stalls
+ * 
+ * Taken by IdlingResourceManager.captureDiagnostics() when Espresso gives up waiting
+ * (AppNotIdleException, IdlingResourceTimeoutException) or a test fails while resources are
+ * still busy. Records the busy resources with their counts and how long each has been busy,
+ * the open busy tokens with their call sites, the pending messages of the main looper and of
+ * registered background loopers, and the stacks of all threads, main thread first.
+ * 
+ * Every part is bounded (threads, frames, looper lines), so capturing is cheap and the JSON
+ * stays small enough to attach to every failure. BaseTest writes it next to the failure
+ * screenshot as "<screenshot>_idling.json".
+ */
+public final class IdlingDiagnostics {
+    
+    private static final int MAX_THREADS = 64;
+    private static final int MAX_FRAMES = 32;
+    private static final int MAX_CALL_SITE_FRAMES = 8;
+    private static final int MAX_LOOPER_LINES = 100;
+    private static final int MAX_CAUSE_DEPTH = 10;
+    
+    private final long capturedAtMillis;
+    private final int compositeBusyCount;
+    private final List<BusyResource> busyResources = new ArrayList<>();
+    private final List<TokenDump> openTokens = new ArrayList<>();
+    private final List<LooperDump> loopers = new ArrayList<>();
+    private final List<ThreadDump> threads = new ArrayList<>();
+    private int omittedThreads;
+    
+    private IdlingDiagnostics(long capturedAtMillis, int compositeBusyCount) {
+        this.capturedAtMillis = capturedAtMillis;
+        this.compositeBusyCount = compositeBusyCount;
+    }
+    
+    /**
+     * Capture the current state; use IdlingResourceManager.captureDiagnostics()
+     */
+    static IdlingDiagnostics capture(IdlingResourceManager manager, List<AtomicCountingIdlingResource> resources,
+            List<Looper> backgroundLoopers) {
+        long now = System.nanoTime();
+        IdlingDiagnostics diagnostics = new IdlingDiagnostics(System.currentTimeMillis(),
+                manager.getCompositeIdlingResource().getBusyResourceCount());
+        
+        for (AtomicCountingIdlingResource resource : resources) {
+            int count = resource.getCount();
+            if (count > 0) {
+                IdlingMetrics metrics = resource.getMetrics();
+                long since = metrics != null ? metrics.getBusySinceNanos() : 0;
+                diagnostics.busyResources.add(new BusyResource(resource.getName(), count,
+                        since != 0 ? Math.max(0, now - since) : -1));
+            }
+        }
+        
+        for (BusyToken token : manager.getOpenTokens()) {
+            diagnostics.openTokens.add(new TokenDump(token));
+        }
+        
+        Looper mainLooper = Looper.getMainLooper();
+        if (mainLooper != null) {
+            diagnostics.loopers.add(LooperDump.of(mainLooper));
+        }
+        for (Looper looper : backgroundLoopers) {
+            diagnostics.loopers.add(LooperDump.of(looper));
+        }
+        
+        Thread mainThread = mainLooper != null ? mainLooper.getThread() : null;
+        Map<Thread, StackTraceElement[]> stacks = Thread.getAllStackTraces();
+        if (mainThread != null && stacks.containsKey(mainThread)) {
+            diagnostics.threads.add(new ThreadDump(mainThread, stacks.remove(mainThread)));
+        }
+        for (Map.Entry<Thread, StackTraceElement[]> entry : stacks.entrySet()) {
+            if (diagnostics.threads.size() >= MAX_THREADS) {
+                diagnostics.omittedThreads++;
+                continue;
+            }
+            diagnostics.threads.add(new ThreadDump(entry.getKey(), entry.getValue()));
+        }
+        return diagnostics;
+    }
+    
+    /**
+     * Check whether a test failure means Espresso gave up waiting for the app to become idle.
+     * Looks through causes and through the failures collected in a MultipleFailureException.
+     */
+    public static boolean isStall(@Nullable Throwable failure) {
+        return isStall(failure, 0);
+    }
+    
+    private static boolean isStall(@Nullable Throwable failure, int depth) {
+        for (Throwable current = failure; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof AppNotIdleException || current instanceof IdlingResourceTimeoutException) {
+                return true;
+            }
+            if (current instanceof MultipleFailureException) {
+                for (Throwable each : ((MultipleFailureException) current).getFailures()) {
+                    if (isStall(each, depth + 1)) {
+                        return true;
+                    }
+                }
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+    
+    /**
+     * Check whether anything was still keeping Espresso waiting when the snapshot was taken
+     */
+    public boolean hasBusyWork() {
+        return !busyResources.isEmpty() || !openTokens.isEmpty() || compositeBusyCount > 0;
+    }
+    
+    /**
+     * Get the names of the resources that were busy
+     */
+    public List<String> getBusyResourceNames() {
+        List<String> names = new ArrayList<>(busyResources.size());
+        for (BusyResource resource : busyResources) {
+            names.add(resource.name);
+        }
+        return names;
+    }
+    
+    /**
+     * Serialize the snapshot as compact JSON
+     */
+    public String toJson() {
+        StringWriter out = new StringWriter();
+        try {
+            writeJson(out);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Write the snapshot next to a screenshot, replacing its extension with "_idling.json"
+     * 
+     * @param screenshotPath Path of the failure screenshot
+     * @return The path of the written file, or null if writing failed
+     */
+    @Nullable
+    public String writeNextTo(String screenshotPath) {
+        int dot = screenshotPath.lastIndexOf('.');
+        int slash = screenshotPath.lastIndexOf(File.separatorChar);
+        String base = dot > slash ? screenshotPath.substring(0, dot) : screenshotPath;
+        File file = new File(base + "_idling.json");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writeJson(out);
+        } catch (IOException e) {
+            System.err.println("Failed to save idling diagnostics: " + e.getMessage());
+            return null;
+        }
+        return file.getAbsolutePath();
+    }
+    
+    private void writeJson(Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("capturedAt").value(capturedAtMillis);
+        json.name("compositeBusyCount").value(compositeBusyCount);
+        
+        json.name("busyResources").beginArray();
+        for (BusyResource resource : busyResources) {
+            json.beginObject();
+            json.name("name").value(resource.name);
+            json.name("count").value(resource.count);
+            long busyMillis = resource.busyNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(resource.busyNanos);
+            json.name("busyForMs").value(busyMillis);
+            json.endObject();
+        }
+        json.endArray();
+        
+        json.name("openTokens").beginArray();
+        for (TokenDump token : openTokens) {
+            json.beginObject();
+            json.name("name").value(token.name);
+            json.name("heldMs").value(TimeUnit.NANOSECONDS.toMillis(token.heldNanos));
+            json.name("callSite");
+            writeFrames(json, token.callSite, MAX_CALL_SITE_FRAMES);
+            json.endObject();
+        }
+        json.endArray();
+        
+        json.name("loopers").beginArray();
+        for (LooperDump looper : loopers) {
+            json.beginObject();
+            json.name("thread").value(looper.threadName);
+            json.name("queue").beginArray();
+            for (String line : looper.lines) {
+                json.value(line);
+            }
+            json.endArray();
+            if (looper.omittedLines > 0) {
+                json.name("omittedLines").value(looper.omittedLines);
+            }
+            json.endObject();
+        }
+        json.endArray();
+        
+        json.name("threads").beginArray();
+        for (ThreadDump thread : threads) {
+            json.beginObject();
+            json.name("name").value(thread.name);
+            json.name("state").value(thread.state);
+            json.name("stack");
+            writeFrames(json, thread.frames, MAX_FRAMES);
+            json.endObject();
+        }
+        json.endArray();
+        if (omittedThreads > 0) {
+            json.name("omittedThreads").value(omittedThreads);
+        }
+        json.endObject();
+        json.flush();
+    }
+    
+    private static void writeFrames(JsonWriter json, StackTraceElement[] frames, int limit) throws IOException {
+        json.beginArray();
+        int count = Math.min(frames.length, limit);
+        for (int i = 0; i < count; i++) {
+            json.value(frames[i].toString());
+        }
+        if (frames.length > count) {
+            json.value("... " + (frames.length - count) + " more");
+        }
+        json.endArray();
+    }
+    
+    private static final class BusyResource {
+        final String name;
+        final int count;
+        /** Time since the resource went busy, or -1 if unknown */
+        final long busyNanos;
+        
+        BusyResource(String name, int count, long busyNanos) {
+            this.name = name;
+            this.count = count;
+            this.busyNanos = busyNanos;
+        }
+    }
+    
+    private static final class TokenDump {
+        final String name;
+        final long heldNanos;
+        final StackTraceElement[] callSite;
+        
+        TokenDump(BusyToken token) {
+            this.name = token.getName();
+            this.heldNanos = token.getHeldNanos();
+            Throwable site = token.getCallSite();
+            this.callSite = site != null ? site.getStackTrace() : new StackTraceElement[0];
+        }
+    }
+    
+    private static final class ThreadDump {
+        final String name;
+        final String state;
+        final StackTraceElement[] frames;
+        
+        ThreadDump(Thread thread, StackTraceElement[] frames) {
+            this.name = thread.getName();
+            this.state = thread.getState().name();
+            this.frames = frames;
+        }
+    }
+    
+    private static final class LooperDump implements Printer {
+        final String threadName;
+        final List<String> lines = new ArrayList<>();
+        int omittedLines;
+        
+        private LooperDump(String threadName) {
+            this.threadName = threadName;
+        }
+        
+        static LooperDump of(Looper looper) {
+            LooperDump dump = new LooperDump(looper.getThread().getName());
+            try {
+                // Safe off the looper's thread: the queue dump holds the queue's lock
+                looper.dump(dump, "");
+            } catch (RuntimeException e) {
+                dump.lines.clear();
+                dump.lines.add("Looper dump failed: " + e);
+            }
+            return dump;
+        }
+        
+        @Override
+        public void println(String line) {
+            if (lines.size() < MAX_LOOPER_LINES) {
+                lines.add(line);
+            } else {
+                omittedLines++;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.automation.idling;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor wrapper that keeps an idling resource busy while submitted tasks are outstanding
+ * 
+ * Wrap any Executor the app uses for background work (e.g. injected through a test module),
+ * so Espresso waits exactly until that work is done. Wrappers created with the same resource
+ * name share one counter in IdlingResourceManager.
+ * 
+ * Also serves as the hook for Kotlin coroutines: wrap the dispatcher's executor and turn it
+ * back into a dispatcher, e.g.
+ * <pre>
+ * val dispatcher = IdlingExecutor(Dispatchers.IO.asExecutor(), "coroutines").asCoroutineDispatcher()
+ * </pre>
+ * The delegate must run or reject every task; a task it silently drops stays busy.
+ */
+public class IdlingExecutor implements Executor {
+    
+    private final Executor delegate;
+    private final String resourceName;
+    private final IdlingResourceManager manager;
+    
+    /**
+     * @param delegate The executor that runs the tasks
+     * @param resourceName The idling resource kept busy by outstanding tasks
+     */
+    public IdlingExecutor(Executor delegate, String resourceName) {
+        this(delegate, resourceName, IdlingResourceManager.getInstance());
+    }
+    
+    public IdlingExecutor(Executor delegate, String resourceName, IdlingResourceManager manager) {
+        this.delegate = delegate;
+        this.resourceName = resourceName;
+        this.manager = manager;
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        IdlingRunnable tracked = IdlingRunnable.track(manager, resourceName, command);
+        try {
+            delegate.execute(tracked);
+        } catch (RuntimeException e) {
+            tracked.release();
+            throw e;
+        }
+    }
+    
+    public String getResourceName() {
+        return resourceName;
+    }
+}
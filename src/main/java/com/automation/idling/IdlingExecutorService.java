@@ -0,0 +1,80 @@
+package com.automation.idling;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutorService wrapper that keeps an idling resource busy while submitted tasks are outstanding
+ * 
+ * submit(), invokeAll() and invokeAny() all go through execute(), so every task counts from
+ * submission until it finishes. Tasks dropped by shutdownNow() are released. Wrappers created
+ * with the same resource name share one counter in IdlingResourceManager.
+ * 
+ * Usage:
+ * <pre>
+ * ExecutorService io = new IdlingExecutorService(Executors.newFixedThreadPool(4), "network");
+ * </pre>
+ * The delegate must run or reject every task; a task it silently discards stays busy.
+ */
+public class IdlingExecutorService extends AbstractExecutorService {
+    
+    private final ExecutorService delegate;
+    private final String resourceName;
+    private final IdlingResourceManager manager;
+    
+    /**
+     * @param delegate The executor service that runs the tasks
+     * @param resourceName The idling resource kept busy by outstanding tasks
+     */
+    public IdlingExecutorService(ExecutorService delegate, String resourceName) {
+        this(delegate, resourceName, IdlingResourceManager.getInstance());
+    }
+    
+    public IdlingExecutorService(ExecutorService delegate, String resourceName, IdlingResourceManager manager) {
+        this.delegate = delegate;
+        this.resourceName = resourceName;
+        this.manager = manager;
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        IdlingRunnable tracked = IdlingRunnable.track(manager, resourceName, command);
+        try {
+            delegate.execute(tracked);
+        } catch (RuntimeException e) {
+            tracked.release();
+            throw e;
+        }
+    }
+    
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+    
+    @Override
+    public List<Runnable> shutdownNow() {
+        return IdlingRunnable.releaseAll(delegate.shutdownNow());
+    }
+    
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+    
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+    
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+    
+    public String getResourceName() {
+        return resourceName;
+    }
+}
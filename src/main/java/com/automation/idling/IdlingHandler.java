@@ -0,0 +1,157 @@
+package com.automation.idling;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handler wrapper that keeps an idling resource busy while posted callbacks are pending
+ * 
+ * Posts go to the wrapped Handler; each callback counts from post() until it has run or is
+ * removed through this wrapper. Handler's remove methods are final and cannot be intercepted,
+ * so callbacks must be removed through removeCallbacks() here to be released.
+ * 
+ * Delayed callbacks count for their whole delay, so Espresso waits for a postDelayed() timeout
+ * to fire. For a Looper that should only be idle when no message is due, register the Looper
+ * itself with IdlingResourceManager.registerLooper() instead.
+ */
+public class IdlingHandler {
+    
+    private final Handler handler;
+    private final String resourceName;
+    private final IdlingResourceManager manager;
+    /** Pending posts per callback, so removeCallbacks() can release them */
+    private final Map<Runnable, List<Posted>> pending = new HashMap<>();
+    
+    /**
+     * @param looper The looper to post to
+     * @param resourceName The idling resource kept busy by pending callbacks
+     */
+    public IdlingHandler(Looper looper, String resourceName) {
+        this(new Handler(looper), resourceName);
+    }
+    
+    /**
+     * @param handler The handler to post to
+     * @param resourceName The idling resource kept busy by pending callbacks
+     */
+    public IdlingHandler(Handler handler, String resourceName) {
+        this.handler = handler;
+        this.resourceName = resourceName;
+        this.manager = IdlingResourceManager.getInstance();
+    }
+    
+    public boolean post(Runnable callback) {
+        return postDelayed(callback, 0);
+    }
+    
+    public boolean postDelayed(Runnable callback, long delayMillis) {
+        Posted posted = track(callback);
+        return posted.accepted(handler.postDelayed(posted, delayMillis));
+    }
+    
+    public boolean postAtFrontOfQueue(Runnable callback) {
+        Posted posted = track(callback);
+        return posted.accepted(handler.postAtFrontOfQueue(posted));
+    }
+    
+    /**
+     * Remove pending posts of a callback and release them
+     */
+    public void removeCallbacks(Runnable callback) {
+        List<Posted> posts;
+        synchronized (pending) {
+            posts = pending.remove(callback);
+        }
+        if (posts != null) {
+            for (Posted posted : posts) {
+                handler.removeCallbacks(posted);
+                posted.tracked.release();
+            }
+        }
+    }
+    
+    /**
+     * Remove all pending posts made through this wrapper and release them
+     */
+    public void removeAllCallbacks() {
+        List<Posted> posts = new ArrayList<>();
+        synchronized (pending) {
+            for (List<Posted> callbackPosts : pending.values()) {
+                posts.addAll(callbackPosts);
+            }
+            pending.clear();
+        }
+        for (Posted posted : posts) {
+            handler.removeCallbacks(posted);
+            posted.tracked.release();
+        }
+    }
+    
+    /**
+     * Get the wrapped handler. Posts made on it directly are not tracked.
+     */
+    public Handler getHandler() {
+        return handler;
+    }
+    
+    public String getResourceName() {
+        return resourceName;
+    }
+    
+    private Posted track(Runnable callback) {
+        Posted posted = new Posted(callback, IdlingRunnable.track(manager, resourceName, callback));
+        synchronized (pending) {
+            List<Posted> posts = pending.get(callback);
+            if (posts == null) {
+                posts = new ArrayList<>(1);
+                pending.put(callback, posts);
+            }
+            posts.add(posted);
+        }
+        return posted;
+    }
+    
+    private void forget(Posted posted) {
+        synchronized (pending) {
+            List<Posted> posts = pending.get(posted.callback);
+            if (posts != null && posts.remove(posted) && posts.isEmpty()) {
+                pending.remove(posted.callback);
+            }
+        }
+    }
+    
+    /**
+     * The runnable actually posted to the handler for one post() call
+     */
+    private final class Posted implements Runnable {
+        final Runnable callback;
+        final IdlingRunnable tracked;
+        
+        Posted(Runnable callback, IdlingRunnable tracked) {
+            this.callback = callback;
+            this.tracked = tracked;
+        }
+        
+        @Override
+        public void run() {
+            forget(this);
+            tracked.run();
+        }
+        
+        /**
+         * Release the post if the handler refused it (its looper is quitting)
+         */
+        boolean accepted(boolean accepted) {
+            if (!accepted) {
+                forget(this);
+                tracked.release();
+            }
+            return accepted;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.automation.idling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Busy-time metrics of one idling resource
+ * 
+ * Records every busy interval (from the 0 to 1 increment to the 1 to 0 decrement) using
+ * monotonic System.nanoTime() timestamps. Recording allocates nothing: intervals go into a
+ * preallocated ring of the most recent intervals and a log2 latency histogram, both backed by
+ * atomic arrays, so any thread can record without locking.
+ * 
+ * Metrics are kept per resource name by IdlingResourceManager and survive clearAll(), so
+ * totals accumulate over the whole run; use snapshot() deltas for a single test.
+ */
+public class IdlingMetrics {
+    
+    /**
+     * Number of most recent busy intervals kept in the ring
+     */
+    public static final int RING_CAPACITY = 1024;
+    
+    private static final int BUCKETS = 64;
+    
+    private final String name;
+    /** Start and end timestamp of each interval, two slots per interval */
+    private final AtomicLongArray ring = new AtomicLongArray(RING_CAPACITY * 2);
+    private final AtomicLong recorded = new AtomicLong();
+    /** Bucket i counts intervals lasting [2^i, 2^(i+1)) nanoseconds */
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalBusyNanos = new AtomicLong();
+    private final AtomicLong maxBusyNanos = new AtomicLong();
+    /** Start of the current busy interval, or 0 when idle */
+    private final AtomicLong busySince = new AtomicLong();
+    
+    public IdlingMetrics(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Mark the start of a busy interval (counter went from 0 to 1)
+     */
+    void busy(long nowNanos) {
+        busySince.set(nowNanos);
+    }
+    
+    /**
+     * Withdraw a busy() call whose interval already ended: the 1 to 0 decrement ran on another
+     * thread before busy() was recorded. Does nothing if a newer interval has started since.
+     */
+    void abandon(long startNanos) {
+        busySince.compareAndSet(startNanos, 0);
+    }
+    
+    /**
+     * Mark the end of a busy interval (counter went from 1 to 0)
+     */
+    void idle(long nowNanos) {
+        long start = busySince.getAndSet(0);
+        if (start == 0 || nowNanos < start) {
+            // Increment and decrement raced on another thread; nothing reliable to record
+            return;
+        }
+        record(start, nowNanos);
+    }
+    
+    private void record(long start, long end) {
+        long duration = end - start;
+        int slot = (int) (recorded.getAndIncrement() % RING_CAPACITY) * 2;
+        ring.lazySet(slot, start);
+        ring.lazySet(slot + 1, end);
+        histogram.incrementAndGet(bucketOf(duration));
+        totalBusyNanos.addAndGet(duration);
+        long max;
+        do {
+            max = maxBusyNanos.get();
+        } while (duration > max && !maxBusyNanos.compareAndSet(max, duration));
+    }
+    
+    private static int bucketOf(long durationNanos) {
+        return durationNanos <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(durationNanos);
+    }
+    
+    /**
+     * Check whether the resource is currently inside a busy interval
+     */
+    public boolean isBusy() {
+        return busySince.get() != 0;
+    }
+    
+    /**
+     * Get the System.nanoTime() at which the current busy interval started
+     * 
+     * @return The start time, or 0 if the resource is idle
+     */
+    public long getBusySinceNanos() {
+        return busySince.get();
+    }
+    
+    /**
+     * Get the total busy time up to now, including the current interval if busy
+     */
+    public long getBusyNanos() {
+        long since = busySince.get();
+        long total = totalBusyNanos.get();
+        return since == 0 ? total : total + Math.max(0, System.nanoTime() - since);
+    }
+    
+    public long getIntervalCount() {
+        return recorded.get();
+    }
+    
+    public long getMaxBusyNanos() {
+        return maxBusyNanos.get();
+    }
+    
+    /**
+     * Copy the most recent busy intervals, oldest first.
+     * Intervals recorded concurrently with the copy may be torn or missing.
+     * 
+     * @return Pairs of {startNanos, endNanos}
+     */
+    public long[][] getRecentIntervals() {
+        long count = recorded.get();
+        int size = (int) Math.min(count, RING_CAPACITY);
+        long[][] intervals = new long[size][];
+        for (int i = 0; i < size; i++) {
+            int slot = (int) ((count - size + i) % RING_CAPACITY) * 2;
+            intervals[i] = new long[] {ring.get(slot), ring.get(slot + 1)};
+        }
+        return intervals;
+    }
+    
+    /**
+     * Take a snapshot of the counters, for computing per-test deltas
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = histogram.get(i);
+        }
+        return new Snapshot(name, getBusyNanos(), recorded.get(), buckets);
+    }
+    
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+    
+    /**
+     * Point-in-time copy of the metrics of a resource
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long busyNanos;
+        private final long intervals;
+        private final long[] histogram;
+        
+        Snapshot(String name, long busyNanos, long intervals, long[] histogram) {
+            this.name = name;
+            this.busyNanos = busyNanos;
+            this.intervals = intervals;
+            this.histogram = histogram;
+        }
+        
+        /**
+         * Get the change between an earlier snapshot of the same resource and this one
+         * 
+         * @param earlier The earlier snapshot, or null to compare against zero
+         */
+        public Snapshot since(Snapshot earlier) {
+            if (earlier == null) {
+                return this;
+            }
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = histogram[i] - earlier.histogram[i];
+            }
+            return new Snapshot(name, busyNanos - earlier.busyNanos, intervals - earlier.intervals, delta);
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Get the busy time, including the open part of an interval in progress
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+        
+        /**
+         * Get the number of completed busy intervals
+         */
+        public long getIntervalCount() {
+            return intervals;
+        }
+        
+        /**
+         * Estimate a percentile of completed interval durations from the histogram.
+         * The result is the upper bound of the matching log2 bucket, so at most 2x too high.
+         * 
+         * @param percentile Percentile between 0 and 100
+         * @return The estimate in nanoseconds, or 0 if there are no intervals
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+            for (long count : histogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram[i];
+                if (seen >= Math.max(1, rank)) {
+                    return i >= 62 ? Long.MAX_VALUE : (2L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+        
+        @Override
+        public String toString() {
+            return name + ": busy " + TimeUnit.NANOSECONDS.toMillis(busyNanos) + "ms in " + intervals
+                    + " intervals (p50 <= " + TimeUnit.NANOSECONDS.toMillis(getPercentileNanos(50))
+                    + "ms, p95 <= " + TimeUnit.NANOSECONDS.toMillis(getPercentileNanos(95)) + "ms)";
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.automation.idling;
+
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit rule that attributes each test's time spent with busy idling resources
+ * 
+ * Reports how long each resource was busy, not how long Espresso waited for it: a resource
+ * that is busy while the test does something other than an Espresso interaction costs nothing.
+ * Busy time is an upper bound on the time an interaction could have been held up by it.
+ * 
+ * The rule takes a snapshot of every resource's IdlingMetrics when the test starts and reports the
+ * difference when it finishes, e.g.:
+ * <pre>
+ * Idling busy time for LoginTest#testValidLogin (4210ms):
+ *   network: busy 2875ms in 3 intervals (p50 &lt;= 1073ms, p95 &lt;= 2147ms)
+ *   database: busy 120ms in 14 intervals (p50 &lt;= 8ms, p95 &lt;= 16ms)
+ * </pre>
+ * The busiest resources are the first candidates to stub or speed up; IdlingDiagnostics shows
+ * what actually held up an interaction that stalled.
+ */
+public class IdlingMetricsRule extends TestWatcher {
+    
+    private final IdlingResourceManager manager;
+    private final Map<String, IdlingMetrics.Snapshot> baseline = new HashMap<>();
+    private long startNanos;
+    
+    public IdlingMetricsRule() {
+        this(IdlingResourceManager.getInstance());
+    }
+    
+    public IdlingMetricsRule(IdlingResourceManager manager) {
+        this.manager = manager;
+    }
+    
+    @Override
+    protected void starting(Description description) {
+        baseline.clear();
+        for (IdlingMetrics metrics : manager.getAllMetrics()) {
+            baseline.put(metrics.getName(), metrics.snapshot());
+        }
+        startNanos = System.nanoTime();
+    }
+    
+    @Override
+    protected void finished(Description description) {
+        long testNanos = System.nanoTime() - startNanos;
+        List<IdlingMetrics.Snapshot> attribution = getAttribution();
+        if (attribution.isEmpty()) {
+            return;
+        }
+        StringBuilder report = new StringBuilder("Idling busy time for ")
+                .append(description.getClassName()).append('#').append(description.getMethodName())
+                .append(" (").append(TimeUnit.NANOSECONDS.toMillis(testNanos)).append("ms):");
+        for (IdlingMetrics.Snapshot snapshot : attribution) {
+            report.append("\n  ").append(snapshot);
+        }
+        System.out.println(report);
+    }
+    
+    /**
+     * Get the busy time of each resource since the current test started, busiest first.
+     * Resources that were never busy during the test are left out.
+     */
+    public List<IdlingMetrics.Snapshot> getAttribution() {
+        List<IdlingMetrics.Snapshot> attribution = new ArrayList<>();
+        for (IdlingMetrics metrics : manager.getAllMetrics()) {
+            IdlingMetrics.Snapshot delta = metrics.snapshot().since(baseline.get(metrics.getName()));
+            if (delta.getBusyNanos() > 0 || delta.getIntervalCount() > 0) {
+                attribution.add(delta);
+            }
+        }
+        Collections.sort(attribution, new Comparator<IdlingMetrics.Snapshot>() {
+            @Override
+            public int compare(IdlingMetrics.Snapshot a, IdlingMetrics.Snapshot b) {
+                return Long.compare(b.getBusyNanos(), a.getBusyNanos());
+            }
+        });
+        return attribution;
+    }
+}
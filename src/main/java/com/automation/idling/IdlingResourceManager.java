@@ -1,34 +1,71 @@
 package com.automation.idling;
 
+import android.os.Handler;
+import android.os.Looper;
 import androidx.test.espresso.IdlingRegistry;
 import androidx.test.espresso.IdlingResource;
-import androidx.test.espresso.idling.CountingIdlingResource;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Map;
 
 /**
  * Manager for Idling Resources
  * Provides centralized management of idling resources for Espresso tests.
  * 
- * This singleton class manages CountingIdlingResource instances to handle async operations
- * in Espresso tests. It automatically registers/unregisters resources with Espresso.
+ * This singleton class manages AtomicCountingIdlingResource instances to handle async operations
+ * in Espresso tests. The named resources are aggregated by one CompositeIdlingResource, and only
+ * the composite is registered with Espresso, so each synchronization point polls a single O(1)
+ * resource. Per-name state remains available through isIdle() and getBusyResourceNames().
+ * Registration is meant to last for a whole test class; clearAll() ends it. Busy counts should not
+ * carry over between tests: resetBusyCounts() returns resources left busy to idle.
+ * 
+ * increment() and decrement() take no locks for names that are already registered, so
+ * many concurrent operations (e.g., OkHttp calls and Room queries) do not contend on the manager.
+ * 
+ * Busy intervals of every resource are recorded in IdlingMetrics, kept per name for the whole
+ * run (they survive clearAll()); IdlingMetricsRule turns them into a per-test summary.
+ * When synchronization stalls, captureDiagnostics() records what was still busy.
  * 
  * Usage:
- * - Call increment() when starting an async operation (e.g., network call)
- * - Call decrement() when the operation completes
+ * - Call acquire() when starting an async operation and close the returned BusyToken when it
+ *   completes; BusyLeakWatchdog reports tokens that are never closed with their call site
+ * - Or call increment() when starting an async operation (e.g., network call)
+ *   and decrement() when the operation completes
+ * - Or route the app's background work through IdlingExecutor, IdlingExecutorService,
+ *   IdlingThreadPoolExecutor or IdlingHandler, which count outstanding tasks automatically
  * - Espresso will automatically wait until all registered resources are idle
  */
 public class IdlingResourceManager {
     
     private static final IdlingResourceManager instance = new IdlingResourceManager();
-    private final Map<String, CountingIdlingResource> idlingResources = new ConcurrentHashMap<>();
+    private final Map<String, AtomicCountingIdlingResource> idlingResources = new ConcurrentHashMap<>();
+    private final CompositeIdlingResource composite = new CompositeIdlingResource("IdlingResourceManager");
+    private boolean compositeRegistered;
+    private FrameIdlingResource frameIdlingResource;
+    private final Map<String, IdlingMetrics> metrics = new ConcurrentHashMap<>();
+    private final Set<Looper> loopers = Collections.newSetFromMap(new ConcurrentHashMap<Looper, Boolean>());
+    private final Set<BusyToken> openTokens = Collections.newSetFromMap(new ConcurrentHashMap<BusyToken, Boolean>());
+    
+    /**
+     * Maximum number of over-decrements kept until they are drained
+     */
+    private static final int MAX_OVER_DECREMENTS = 100;
+    private final List<Throwable> overDecrements = new CopyOnWriteArrayList<>();
+    /** Per name, increments released by releaseIncrements() whose owners have not decremented yet */
+    private final ConcurrentMap<String, AtomicInteger> releasedIncrements = new ConcurrentHashMap<>();
     
     /**
      * Private constructor for singleton pattern
      */
     private IdlingResourceManager() {}
-
+    
     /**
      * Get the singleton instance of IdlingResourceManager
      * 
@@ -37,33 +74,54 @@ public class IdlingResourceManager {
     public static IdlingResourceManager getInstance() {
         return instance;
     }
-
+    
     /**
-     * Register a new idling resource with Espresso.
+     * Register a new idling resource with Espresso (as part of the composite).
      * If a resource with the same name already exists, this method does nothing.
      * 
      * @param name The name identifier for the idling resource (e.g., "network", "database")
      */
-    public synchronized void registerIdlingResource(String name) {
+    public void registerIdlingResource(String name) {
         if (!idlingResources.containsKey(name)) {
-            CountingIdlingResource resource = new CountingIdlingResource(name);
+            createIdlingResource(name);
+        }
+    }
+    
+    /**
+     * Create and register a resource unless another thread already did.
+     * Only taken when a name is first used, so the lock stays off the hot path.
+     */
+    private synchronized AtomicCountingIdlingResource createIdlingResource(String name) {
+        AtomicCountingIdlingResource resource = idlingResources.get(name);
+        if (resource == null) {
+            IdlingMetrics resourceMetrics = metrics.get(name);
+            if (resourceMetrics == null) {
+                resourceMetrics = new IdlingMetrics(name);
+                metrics.put(name, resourceMetrics);
+            }
+            resource = new AtomicCountingIdlingResource(name, resourceMetrics, composite);
             idlingResources.put(name, resource);
-            IdlingRegistry.getInstance().register(resource);
+            if (!compositeRegistered) {
+                IdlingRegistry.getInstance().register(composite);
+                compositeRegistered = true;
+            }
         }
+        return resource;
     }
-
+    
     /**
      * Get an idling resource by name.
      * If the resource doesn't exist, it will be created and registered automatically.
      * 
      * @param name The name identifier for the idling resource
-     * @return The CountingIdlingResource instance
+     * @return The AtomicCountingIdlingResource instance
      */
-    public CountingIdlingResource getIdlingResource(String name) {
-        registerIdlingResource(name);
-        return idlingResources.get(name);
+    public AtomicCountingIdlingResource getIdlingResource(String name) {
+        // Lock-free fast path for names that are already registered
+        AtomicCountingIdlingResource resource = idlingResources.get(name);
+        return resource != null ? resource : createIdlingResource(name);
     }
-
+    
     /**
      * Increment the counter for an idling resource.
      * Call this when starting an async operation (e.g., before making a network request).
@@ -73,21 +131,133 @@ public class IdlingResourceManager {
     public void increment(String name) {
         getIdlingResource(name).increment();
     }
-
+    
+    /**
+     * Mark an idling resource busy until the returned token is closed.
+     * The token records the call site, so a token that is never closed can be traced back.
+     * 
+     * @param name The name identifier for the idling resource
+     * @return The token to close when the async operation completes
+     */
+    public BusyToken acquire(String name) {
+        return acquire(name, true);
+    }
+    
+    /**
+     * Mark an idling resource busy for a task of the idling executors and handlers.
+     * The token records no call site and is not held to BusyLeakWatchdog's budget, but
+     * resetBusyCounts() can still release it exactly once.
+     */
+    BusyToken acquireTask(String name) {
+        return acquire(name, false);
+    }
+    
+    private BusyToken acquire(String name, boolean budgeted) {
+        AtomicCountingIdlingResource resource = getIdlingResource(name);
+        BusyToken token = new BusyToken(name, resource, this, budgeted);
+        openTokens.add(token);
+        resource.increment();
+        return token;
+    }
+    
+    void release(BusyToken token) {
+        openTokens.remove(token);
+    }
+    
+    /**
+     * Get the tokens that are currently open
+     * 
+     * @return A copy of the open tokens
+     */
+    public List<BusyToken> getOpenTokens() {
+        return new ArrayList<>(openTokens);
+    }
+    
     /**
      * Decrement the counter for an idling resource.
      * Call this when an async operation completes (e.g., after network response).
-     * Only decrements if the resource is not already idle to prevent negative counts.
+     * Only decrements if the resource is not already idle to prevent negative counts;
+     * the check and the decrement are a single atomic step.
+     * A decrement of an idle resource is recorded with its stack trace (see drainOverDecrements()),
+     * unless it matches an increment released by BusyLeakWatchdog.
      * 
      * @param name The name identifier for the idling resource
      */
     public void decrement(String name) {
-        CountingIdlingResource resource = getIdlingResource(name);
-        if (!resource.isIdleNow()) {
-            resource.decrement();
+        if (!getIdlingResource(name).decrementIfBusy() && !consumeReleasedIncrement(name)) {
+            IllegalStateException overDecrement = new IllegalStateException("Idling resource '" + name
+                    + "' was decremented while idle; increment and decrement calls do not match");
+            System.err.println(overDecrement.getMessage());
+            if (overDecrements.size() < MAX_OVER_DECREMENTS) {
+                overDecrements.add(overDecrement);
+            }
         }
     }
-
+    
+    private boolean consumeReleasedIncrement(String name) {
+        AtomicInteger released = releasedIncrements.get(name);
+        while (released != null) {
+            int count = released.get();
+            if (count == 0) {
+                return false;
+            }
+            if (released.compareAndSet(count, count - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Get the busy count of a resource taken with increment() rather than acquire().
+     * A token is listed as open before it increments and after it decrements, so a concurrent
+     * acquire or close can only make this an undercount.
+     */
+    int getIncrementCount(AtomicCountingIdlingResource resource) {
+        int tokens = 0;
+        for (BusyToken token : openTokens) {
+            if (token.getName().equals(resource.getName())) {
+                tokens++;
+            }
+        }
+        return Math.max(0, resource.getCount() - tokens);
+    }
+    
+    /**
+     * Decrement a resource on behalf of increment() callers that did not decrement it.
+     * Their late decrement() calls that find the resource idle are then not over-decrements.
+     * 
+     * @param resource The resource to release
+     * @param increments The number of increments to release
+     * @return The number of increments actually released
+     */
+    int releaseIncrements(AtomicCountingIdlingResource resource, int increments) {
+        int released = 0;
+        while (released < increments && resource.decrementIfBusy()) {
+            released++;
+        }
+        if (released > 0) {
+            AtomicInteger pending = releasedIncrements.get(resource.getName());
+            if (pending == null) {
+                releasedIncrements.putIfAbsent(resource.getName(), new AtomicInteger());
+                pending = releasedIncrements.get(resource.getName());
+            }
+            pending.addAndGet(released);
+        }
+        return released;
+    }
+    
+    /**
+     * Get and forget the over-decrements recorded since the last call
+     * 
+     * @return Exceptions whose stack traces show where each extra decrement() was called
+     */
+    public List<Throwable> drainOverDecrements() {
+        List<Throwable> drained = new ArrayList<>(overDecrements);
+        overDecrements.removeAll(drained);
+        return drained;
+    }
+    
     /**
      * Check if an idling resource is currently idle.
      * 
@@ -95,43 +265,186 @@ public class IdlingResourceManager {
      * @return true if the resource is idle or doesn't exist, false otherwise
      */
     public boolean isIdle(String name) {
-        CountingIdlingResource resource = idlingResources.get(name);
+        AtomicCountingIdlingResource resource = idlingResources.get(name);
         return resource == null || resource.isIdleNow();
     }
-
+    
     /**
-     * Unregister an idling resource from Espresso and remove it from the manager.
+     * Remove an idling resource from the composite and the manager.
      * 
      * @param name The name identifier for the idling resource to unregister
      */
     public synchronized void unregisterIdlingResource(String name) {
-        CountingIdlingResource resource = idlingResources.remove(name);
+        AtomicCountingIdlingResource resource = idlingResources.remove(name);
         if (resource != null) {
-            IdlingRegistry.getInstance().unregister(resource);
+            resource.detach();
         }
     }
-
+    
+    /**
+     * Register a Looper with Espresso, which then waits until the looper has no message due.
+     * Use this for background HandlerThreads whose queues are not posted to through IdlingHandler.
+     * 
+     * @param looper The looper to synchronize on
+     */
+    public synchronized void registerLooper(Looper looper) {
+        if (loopers.add(looper)) {
+            IdlingRegistry.getInstance().registerLooperAsIdlingResource(looper);
+        }
+    }
+    
+    /**
+     * Unregister a Looper registered with registerLooper()
+     */
+    public synchronized void unregisterLooper(Looper looper) {
+        if (loopers.remove(looper)) {
+            IdlingRegistry.getInstance().unregisterLooperAsIdlingResource(looper);
+        }
+    }
+    
+    /**
+     * Register a FrameIdlingResource, so Espresso also waits until the UI has drawn no frame for
+     * the given number of frames. Replaces an earlier frame resource with a different frame count.
+     * 
+     * @param quietFrames Number of consecutive frames without a draw before the UI is idle
+     */
+    public synchronized void registerFrameIdlingResource(int quietFrames) {
+        if (frameIdlingResource != null) {
+            if (frameIdlingResource.getRequiredQuietFrames() == quietFrames) {
+                return;
+            }
+            unregisterFrameIdlingResource();
+        }
+        frameIdlingResource = new FrameIdlingResource(quietFrames);
+        IdlingRegistry.getInstance().register(frameIdlingResource);
+    }
+    
+    /**
+     * Unregister the FrameIdlingResource, if any
+     */
+    public synchronized void unregisterFrameIdlingResource() {
+        if (frameIdlingResource != null) {
+            IdlingRegistry.getInstance().unregister(frameIdlingResource);
+            final FrameIdlingResource stopped = frameIdlingResource;
+            new Handler(Looper.getMainLooper()).post(() -> stopped.stop());
+            frameIdlingResource = null;
+        }
+    }
+    
+    /**
+     * Return resources that have been busy since before a point in time to idle, while keeping
+     * them registered, so busy counts leaked by one test cannot keep later tests waiting.
+     * Open tokens acquired before that time, including those of idling executor and handler tasks,
+     * are force-released, so their late close() does nothing. The increment() counts of busy
+     * intervals that started before it are released; late decrement() calls for released counts
+     * are not recorded as over-decrements until the test class ends (see clearAll()).
+     * 
+     * @param startedBeforeNanos System.nanoTime() before which busy work counts as left over
+     * @return The names of the resources that were reset
+     */
+    public List<String> resetBusyCounts(long startedBeforeNanos) {
+        long now = System.nanoTime();
+        List<String> reset = new ArrayList<>();
+        for (BusyToken token : getOpenTokens()) {
+            if (token.getHeldNanos() > now - startedBeforeNanos && token.forceRelease()
+                    && !reset.contains(token.getName())) {
+                reset.add(token.getName());
+            }
+        }
+        for (AtomicCountingIdlingResource resource : idlingResources.values()) {
+            IdlingMetrics resourceMetrics = resource.getMetrics();
+            long busySince = resourceMetrics != null ? resourceMetrics.getBusySinceNanos() : 0;
+            if (busySince != 0 && busySince - startedBeforeNanos < 0
+                    && releaseIncrements(resource, getIncrementCount(resource)) > 0
+                    && !reset.contains(resource.getName())) {
+                reset.add(resource.getName());
+            }
+        }
+        return reset;
+    }
+    
     /**
      * Clear all registered idling resources.
-     * Unregisters all resources from Espresso and removes them from the manager.
-     * Typically called in test teardown methods.
+     * Unregisters the composite, all loopers and the frame resource from Espresso and removes
+     * all resources from the manager. Typically called once a test class has finished.
      */
     public synchronized void clearAll() {
-        for (CountingIdlingResource resource : idlingResources.values()) {
-            IdlingRegistry.getInstance().unregister(resource);
+        for (AtomicCountingIdlingResource resource : idlingResources.values()) {
+            resource.detach();
         }
         idlingResources.clear();
+        releasedIncrements.clear();
+        composite.reset();
+        if (compositeRegistered) {
+            IdlingRegistry.getInstance().unregister(composite);
+            compositeRegistered = false;
+        }
+        for (Looper looper : loopers) {
+            IdlingRegistry.getInstance().unregisterLooperAsIdlingResource(looper);
+        }
+        loopers.clear();
+        unregisterFrameIdlingResource();
     }
-
+    
     /**
-     * Get all registered idling resources as an array.
-     * Useful for bulk operations or cleanup.
+     * Get all named idling resources as an array.
+     * Espresso only sees the composite; these are for diagnostics and bulk operations.
      * 
-     * @return Array of all registered IdlingResource instances
+     * @return Array of all named IdlingResource instances
      */
     public IdlingResource[] getAllIdlingResources() {
         return idlingResources.values().toArray(new IdlingResource[0]);
     }
+    
+    /**
+     * Get the composite resource registered with Espresso on behalf of all named resources
+     */
+    public CompositeIdlingResource getCompositeIdlingResource() {
+        return composite;
+    }
+    
+    /**
+     * Get the names of the resources that are currently busy
+     */
+    public List<String> getBusyResourceNames() {
+        List<String> busy = new ArrayList<>();
+        for (AtomicCountingIdlingResource resource : idlingResources.values()) {
+            if (!resource.isIdleNow()) {
+                busy.add(resource.getName());
+            }
+        }
+        return busy;
+    }
+    
+    /**
+     * Take a bounded snapshot of busy resources, open tokens, looper queues and thread stacks,
+     * for explaining why Espresso could not synchronize
+     * 
+     * @return The snapshot; serialize it with toJson() or writeNextTo()
+     */
+    public IdlingDiagnostics captureDiagnostics() {
+        return IdlingDiagnostics.capture(this, new ArrayList<>(idlingResources.values()),
+                new ArrayList<>(loopers));
+    }
+    
+    /**
+     * Get the busy-time metrics of a resource.
+     * 
+     * @param name The name identifier for the idling resource
+     * @return The metrics, or null if no resource with that name was ever created
+     */
+    public IdlingMetrics getMetrics(String name) {
+        return metrics.get(name);
+    }
+    
+    /**
+     * Get the busy-time metrics of every resource created so far
+     * 
+     * @return The metrics, including those of resources removed by clearAll()
+     */
+    public List<IdlingMetrics> getAllMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
 }
 
 
@@ -0,0 +1,93 @@
+package com.automation.idling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Task wrapper that keeps an idling resource busy from submission until the task finishes
+ * 
+ * Shared by the idling executor and Handler wrappers. Each task holds a BusyToken from when it
+ * is wrapped, closed after the task runs, or through release() when the task is rejected,
+ * removed or discarded before it starts. Once a task has started, release() no longer has any
+ * effect and the resource stays busy until the task returns. Closing a token decrements at most
+ * once, so a task whose token IdlingResourceManager.resetBusyCounts() already released between
+ * tests cannot take a count that belongs to later work.
+ */
+final class IdlingRunnable implements Runnable {
+    
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+    
+    private final Runnable task;
+    private final BusyToken token;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    
+    private IdlingRunnable(Runnable task, BusyToken token) {
+        this.task = task;
+        this.token = token;
+    }
+    
+    /**
+     * Wrap a task and mark the named resource busy
+     */
+    static IdlingRunnable track(IdlingResourceManager manager, String resourceName, Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        // Acquired per task: clearAll() between test classes replaces the resource
+        return new IdlingRunnable(task, manager.acquireTask(resourceName));
+    }
+    
+    @Override
+    public void run() {
+        if (!state.compareAndSet(PENDING, RUNNING)) {
+            // Released as dropped, but a worker picked it up after all: run it uncounted
+            task.run();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            state.set(DONE);
+            token.close();
+        }
+    }
+    
+    /**
+     * Release a task that has not started and will not run through this wrapper
+     * 
+     * @return true if this call released the task, false if it had already started or been released
+     */
+    boolean release() {
+        if (state.compareAndSet(PENDING, DONE)) {
+            token.close();
+            return true;
+        }
+        return false;
+    }
+    
+    Runnable getTask() {
+        return task;
+    }
+    
+    /**
+     * Release the tracked tasks among drained ones (e.g. from shutdownNow())
+     * 
+     * @return The tasks with tracking wrappers removed
+     */
+    static List<Runnable> releaseAll(List<Runnable> drained) {
+        List<Runnable> tasks = new ArrayList<>(drained.size());
+        for (Runnable runnable : drained) {
+            if (runnable instanceof IdlingRunnable) {
+                IdlingRunnable tracked = (IdlingRunnable) runnable;
+                tracked.release();
+                tasks.add(tracked.task);
+            } else {
+                tasks.add(runnable);
+            }
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,116 @@
+package com.automation.idling;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThreadPoolExecutor that keeps an idling resource busy while tasks are queued or running
+ * 
+ * A drop-in replacement where the app constructs its own ThreadPoolExecutor. Tasks are counted
+ * from execute() until they finish. Tasks that never run are released: rejected ones, ones
+ * discarded by the rejection handler, ones removed with remove() and ones returned by
+ * shutdownNow().
+ */
+public class IdlingThreadPoolExecutor extends ThreadPoolExecutor {
+    
+    private final String resourceName;
+    private final IdlingResourceManager manager;
+    
+    public IdlingThreadPoolExecutor(String resourceName, int corePoolSize, int maximumPoolSize,
+                                    long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue) {
+        this(resourceName, corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+    
+    public IdlingThreadPoolExecutor(String resourceName, int corePoolSize, int maximumPoolSize,
+                                    long keepAliveTime, TimeUnit unit, BlockingQueue<Runnable> workQueue,
+                                    ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory,
+                new ReleasingRejectionHandler(handler));
+        this.resourceName = resourceName;
+        this.manager = IdlingResourceManager.getInstance();
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        if (command instanceof IdlingRunnable) {
+            // Re-submitted by a rejection handler (e.g. DiscardOldestPolicy); already counted
+            super.execute(command);
+            return;
+        }
+        IdlingRunnable tracked = IdlingRunnable.track(manager, resourceName, command);
+        try {
+            super.execute(tracked);
+        } catch (RejectedExecutionException e) {
+            tracked.release();
+            throw e;
+        }
+    }
+    
+    @Override
+    public boolean remove(Runnable task) {
+        for (Runnable queued : getQueue()) {
+            if (queued instanceof IdlingRunnable && ((IdlingRunnable) queued).getTask() == task) {
+                if (super.remove(queued)) {
+                    ((IdlingRunnable) queued).release();
+                    return true;
+                }
+            }
+        }
+        return super.remove(task);
+    }
+    
+    @Override
+    public List<Runnable> shutdownNow() {
+        return IdlingRunnable.releaseAll(super.shutdownNow());
+    }
+    
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(new ReleasingRejectionHandler(handler));
+    }
+    
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return ((ReleasingRejectionHandler) super.getRejectedExecutionHandler()).delegate;
+    }
+    
+    public String getResourceName() {
+        return resourceName;
+    }
+    
+    /**
+     * Releases tasks that the wrapped handler discards instead of running or queueing them
+     */
+    private static final class ReleasingRejectionHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler delegate;
+        
+        ReleasingRejectionHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            // DiscardOldestPolicy drops the head of the queue
+            Runnable head = executor.getQueue().peek();
+            delegate.rejectedExecution(runnable, executor);
+            releaseIfDropped(runnable, executor);
+            releaseIfDropped(head, executor);
+        }
+        
+        private static void releaseIfDropped(Runnable runnable, ThreadPoolExecutor executor) {
+            if (runnable instanceof IdlingRunnable) {
+                // release() does nothing if the task already ran (e.g. CallerRunsPolicy)
+                if (!executor.getQueue().contains(runnable)) {
+                    ((IdlingRunnable) runnable).release();
+                }
+            }
+        }
+    }
+}
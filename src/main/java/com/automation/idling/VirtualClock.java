@@ -0,0 +1,270 @@
+package com.automation.idling;
+
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual time source for delay-driven app code (debounce, countdowns, auto-dismiss timers)
+ * 
+ * Delayed work submitted through a VirtualTimeScheduler or VirtualTimeHandler is queued here
+ * instead of waiting in real time. Time only moves when the test calls advanceBy(),
+ * advanceToNextTask() or, with auto-advance, when VirtualTimeIdlingResource finds nothing else
+ * to wait for. Due tasks are handed to their executor (e.g. the main thread) in time order.
+ * 
+ * When time is advanced off the main thread, each step waits for the tasks it dispatched to
+ * finish before moving on, so work they schedule is queued relative to the right virtual time.
+ * On the main thread there is no wait (it would deadlock on main-thread tasks).
+ * 
+ * The app has to obtain its delayed executors from this clock in test builds, typically by
+ * injecting new VirtualTimeScheduler(VirtualClock.getInstance(), ...) through its DI setup;
+ * delays on plain Handlers and SystemClock cannot be intercepted on a device.
+ */
+public class VirtualClock {
+    
+    private static final VirtualClock instance = new VirtualClock();
+    
+    /**
+     * Maximum real time advanceBy() waits for the tasks of one step
+     */
+    private static final long STEP_TIMEOUT_MILLIS = 5000;
+    
+    private final PriorityQueue<VirtualScheduledTask<?>> queue = new PriorityQueue<>();
+    private final List<Runnable> idleListeners = new CopyOnWriteArrayList<>();
+    private long nowMillis;
+    private long sequence;
+    private int inFlight;
+    
+    public VirtualClock() {
+        this.nowMillis = System.currentTimeMillis();
+    }
+    
+    /**
+     * Get the shared clock used by BaseTest's virtual time mode
+     */
+    public static VirtualClock getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Get the current virtual time, starting from the wall clock time of the last reset
+     */
+    public synchronized long currentTimeMillis() {
+        return nowMillis;
+    }
+    
+    /**
+     * Cancel all pending tasks and restart virtual time from the current wall clock time
+     */
+    public void reset() {
+        List<VirtualScheduledTask<?>> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(queue);
+            queue.clear();
+            nowMillis = System.currentTimeMillis();
+        }
+        for (VirtualScheduledTask<?> task : pending) {
+            task.cancel(false);
+        }
+    }
+    
+    /**
+     * Move virtual time forward, running every task that becomes due on the way
+     */
+    public void advanceBy(long amount, TimeUnit unit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Cannot move virtual time backwards: " + amount);
+        }
+        long target;
+        synchronized (this) {
+            target = nowMillis + unit.toMillis(amount);
+        }
+        advanceTo(target);
+    }
+    
+    /**
+     * Move virtual time to the next pending task and run all tasks due at that time
+     * 
+     * @return false if there is no pending task
+     */
+    public boolean advanceToNextTask() {
+        long target;
+        synchronized (this) {
+            VirtualScheduledTask<?> next = queue.peek();
+            if (next == null) {
+                return false;
+            }
+            target = Math.max(nowMillis, next.getTimeMillis());
+        }
+        advanceTo(target);
+        return true;
+    }
+    
+    /**
+     * Run the tasks that are due at the current virtual time
+     */
+    public void runDueTasks() {
+        advanceTo(currentTimeMillis());
+    }
+    
+    private void advanceTo(long targetMillis) {
+        while (true) {
+            List<VirtualScheduledTask<?>> due = new ArrayList<>();
+            synchronized (this) {
+                VirtualScheduledTask<?> next = queue.peek();
+                if (next == null || next.getTimeMillis() > targetMillis) {
+                    nowMillis = Math.max(nowMillis, targetMillis);
+                    break;
+                }
+                nowMillis = Math.max(nowMillis, next.getTimeMillis());
+                while (!queue.isEmpty() && queue.peek().getTimeMillis() <= nowMillis) {
+                    due.add(queue.poll());
+                }
+            }
+            for (VirtualScheduledTask<?> task : due) {
+                dispatch(task);
+            }
+            awaitDispatched();
+        }
+        notifyIfIdle();
+    }
+    
+    /**
+     * Check whether no task is due at the current virtual time and none is running
+     */
+    public synchronized boolean isIdleNow() {
+        VirtualScheduledTask<?> next = queue.peek();
+        return inFlight == 0 && (next == null || next.getTimeMillis() > nowMillis);
+    }
+    
+    /**
+     * Get the number of tasks waiting for virtual time to reach them
+     */
+    public synchronized int getPendingTaskCount() {
+        return queue.size();
+    }
+    
+    /**
+     * Get the virtual time of the next pending task
+     * 
+     * @return The time in milliseconds, or -1 if no task is pending
+     */
+    public synchronized long getNextTaskTimeMillis() {
+        VirtualScheduledTask<?> next = queue.peek();
+        return next == null ? -1 : next.getTimeMillis();
+    }
+    
+    /**
+     * Add a listener called whenever the clock becomes idle (see isIdleNow())
+     */
+    public void addIdleListener(Runnable listener) {
+        idleListeners.add(listener);
+    }
+    
+    public void removeIdleListener(Runnable listener) {
+        idleListeners.remove(listener);
+    }
+    
+    synchronized long nextSequence() {
+        return sequence++;
+    }
+    
+    /**
+     * Queue a task, or dispatch it right away if it is already due
+     */
+    void schedule(VirtualScheduledTask<?> task) {
+        synchronized (this) {
+            if (task.getTimeMillis() > nowMillis) {
+                queue.add(task);
+                return;
+            }
+        }
+        dispatch(task);
+    }
+    
+    synchronized void remove(VirtualScheduledTask<?> task) {
+        queue.remove(task);
+    }
+    
+    synchronized void removeAll(VirtualTimeScheduler scheduler, List<Runnable> removed) {
+        for (VirtualScheduledTask<?> task : new ArrayList<>(queue)) {
+            if (task.getScheduler() == scheduler) {
+                queue.remove(task);
+                removed.add(task);
+            }
+        }
+    }
+    
+    synchronized boolean hasPendingTasks(VirtualTimeScheduler scheduler) {
+        for (VirtualScheduledTask<?> task : queue) {
+            if (task.getScheduler() == scheduler) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void dispatch(final VirtualScheduledTask<?> task) {
+        synchronized (this) {
+            inFlight++;
+        }
+        Executor executor = task.getScheduler().getExecutor();
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.cancel(false);
+            finished();
+        }
+    }
+    
+    private void finished() {
+        synchronized (this) {
+            inFlight--;
+            notifyAll();
+        }
+        notifyIfIdle();
+    }
+    
+    private void awaitDispatched() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            return;
+        }
+        synchronized (this) {
+            long deadline = System.currentTimeMillis() + STEP_TIMEOUT_MILLIS;
+            while (inFlight > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    System.err.println("VirtualClock: " + inFlight + " tasks still running after "
+                            + STEP_TIMEOUT_MILLIS + "ms; advancing anyway");
+                    return;
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void notifyIfIdle() {
+        if (!idleListeners.isEmpty() && isIdleNow()) {
+            for (Runnable listener : idleListeners) {
+                listener.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.automation.idling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task scheduled on a VirtualClock, due at a virtual time
+ * 
+ * Periodic tasks re-queue themselves after each run: at a fixed rate from the previous due time,
+ * or with a fixed delay from the virtual time the run finished.
+ */
+final class VirtualScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+    
+    private final VirtualClock clock;
+    private final VirtualTimeScheduler scheduler;
+    private final long sequence;
+    /** 0 for one-shot tasks, positive for a fixed rate, negative for a fixed delay */
+    private final long periodMillis;
+    private volatile long timeMillis;
+    
+    VirtualScheduledTask(VirtualTimeScheduler scheduler, Callable<V> callable, long timeMillis) {
+        super(callable);
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+        this.sequence = clock.nextSequence();
+        this.periodMillis = 0;
+        this.timeMillis = timeMillis;
+    }
+    
+    VirtualScheduledTask(VirtualTimeScheduler scheduler, Runnable runnable, V result, long timeMillis,
+                         long periodMillis) {
+        super(runnable, result);
+        this.scheduler = scheduler;
+        this.clock = scheduler.getClock();
+        this.sequence = clock.nextSequence();
+        this.periodMillis = periodMillis;
+        this.timeMillis = timeMillis;
+    }
+    
+    long getTimeMillis() {
+        return timeMillis;
+    }
+    
+    VirtualTimeScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    @Override
+    public boolean isPeriodic() {
+        return periodMillis != 0;
+    }
+    
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(timeMillis - clock.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        if (other instanceof VirtualScheduledTask) {
+            VirtualScheduledTask<?> task = (VirtualScheduledTask<?>) other;
+            int byTime = Long.compare(timeMillis, task.timeMillis);
+            return byTime != 0 ? byTime : Long.compare(sequence, task.sequence);
+        }
+        return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+    }
+    
+    @Override
+    public void run() {
+        if (!isPeriodic()) {
+            super.run();
+        } else if (runAndReset() && !scheduler.isShutdown()) {
+            timeMillis = periodMillis > 0 ? timeMillis + periodMillis : clock.currentTimeMillis() - periodMillis;
+            clock.schedule(this);
+        }
+    }
+    
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            clock.remove(this);
+        }
+        return cancelled;
+    }
+}
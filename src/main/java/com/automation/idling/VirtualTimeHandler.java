@@ -0,0 +1,89 @@
+package com.automation.idling;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handler-style API for main-looper delayed work that runs on a VirtualClock
+ * 
+ * Mirrors the post/postDelayed/removeCallbacks calls used for debounce and auto-dismiss timers.
+ * Callbacks run on the looper's thread once virtual time reaches them. Inject it in test builds
+ * where the app would otherwise post delayed work to a main-thread Handler.
+ */
+public class VirtualTimeHandler {
+    
+    private final VirtualTimeScheduler scheduler;
+    /** Pending posts per callback, so removeCallbacks() can cancel them */
+    private final Map<Runnable, List<ScheduledFuture<?>>> pending = new HashMap<>();
+    
+    /**
+     * Create a handler posting to the main looper, timed by the shared clock
+     */
+    public VirtualTimeHandler() {
+        this(VirtualClock.getInstance(), Looper.getMainLooper());
+    }
+    
+    public VirtualTimeHandler(VirtualClock clock, Looper looper) {
+        final Handler handler = new Handler(looper);
+        this.scheduler = new VirtualTimeScheduler(clock, command -> {
+            // A quitting looper drops the message; VirtualClock then cancels the task instead of
+            // waiting for it to finish
+            if (!handler.post(command)) {
+                throw new RejectedExecutionException(handler.getLooper() + " is quitting");
+            }
+        });
+    }
+    
+    public boolean post(Runnable callback) {
+        return postDelayed(callback, 0);
+    }
+    
+    public boolean postDelayed(final Runnable callback, long delayMillis) {
+        final ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+        synchronized (pending) {
+            future[0] = scheduler.schedule(() -> {
+                forget(callback, future[0]);
+                callback.run();
+            }, delayMillis, TimeUnit.MILLISECONDS);
+            List<ScheduledFuture<?>> posts = pending.get(callback);
+            if (posts == null) {
+                posts = new ArrayList<>(1);
+                pending.put(callback, posts);
+            }
+            posts.add(future[0]);
+        }
+        return true;
+    }
+    
+    /**
+     * Cancel all pending posts of a callback
+     */
+    public void removeCallbacks(Runnable callback) {
+        List<ScheduledFuture<?>> posts;
+        synchronized (pending) {
+            posts = pending.remove(callback);
+        }
+        if (posts != null) {
+            for (ScheduledFuture<?> post : posts) {
+                post.cancel(false);
+            }
+        }
+    }
+    
+    private void forget(Runnable callback, ScheduledFuture<?> future) {
+        synchronized (pending) {
+            List<ScheduledFuture<?>> posts = pending.get(callback);
+            if (posts != null && posts.remove(future) && posts.isEmpty()) {
+                pending.remove(callback);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.automation.idling;
+
+import androidx.annotation.Nullable;
+import androidx.test.espresso.IdlingResource;
+
+/**
+ * Idling Resource that is idle when a VirtualClock has no work due at the current virtual time
+ * 
+ * Tasks waiting for a later virtual time do not keep Espresso waiting; they run when the test
+ * advances the clock. With auto-advance, each idle check that finds nothing due jumps the clock
+ * to the next pending task instead, so delay-driven flows complete in milliseconds without
+ * explicit advanceBy() calls. A task that reschedules itself forever (e.g. a clock ticking every
+ * second) then never lets the app go idle; use explicit advancing for such screens.
+ */
+public class VirtualTimeIdlingResource implements IdlingResource {
+    
+    private final VirtualClock clock;
+    private final boolean autoAdvance;
+    private final Runnable idleListener = () -> notifyIdle();
+    
+    @Nullable
+    private volatile ResourceCallback callback;
+    
+    /**
+     * @param clock The clock to synchronize on
+     * @param autoAdvance Whether idle checks advance virtual time to the next pending task
+     */
+    public VirtualTimeIdlingResource(VirtualClock clock, boolean autoAdvance) {
+        this.clock = clock;
+        this.autoAdvance = autoAdvance;
+    }
+    
+    @Override
+    public String getName() {
+        return "VirtualTimeIdlingResource";
+    }
+    
+    @Override
+    public boolean isIdleNow() {
+        if (!clock.isIdleNow()) {
+            return false;
+        }
+        if (autoAdvance && clock.getPendingTaskCount() > 0) {
+            clock.advanceToNextTask();
+            return clock.isIdleNow() && clock.getPendingTaskCount() == 0;
+        }
+        return true;
+    }
+    
+    @Override
+    public void registerIdleTransitionCallback(ResourceCallback callback) {
+        if (this.callback == null) {
+            clock.addIdleListener(idleListener);
+        }
+        this.callback = callback;
+    }
+    
+    /**
+     * Stop listening to the clock; call after unregistering the resource
+     */
+    public void release() {
+        clock.removeIdleListener(idleListener);
+    }
+    
+    private void notifyIdle() {
+        ResourceCallback current = callback;
+        if (current != null) {
+            current.onTransitionToIdle();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.automation.idling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScheduledExecutorService whose delays run on a VirtualClock instead of real time
+ * 
+ * Tasks without a delay go straight to the target executor; delayed and periodic tasks wait in
+ * the clock's queue until the test advances virtual time past them. Inject it wherever the app
+ * takes a ScheduledExecutorService (RxJava's Schedulers.from(), a coroutine dispatcher via
+ * asCoroutineDispatcher(), which also uses it for delay()), e.g.
+ * <pre>
+ * ScheduledExecutorService main = new VirtualTimeScheduler(VirtualClock.getInstance(), mainThreadExecutor);
+ * </pre>
+ */
+public class VirtualTimeScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    
+    private final VirtualClock clock;
+    private final Executor executor;
+    private volatile boolean shutdown;
+    
+    /**
+     * @param clock The clock that decides when delayed tasks are due
+     * @param executor Runs the tasks once they are due (e.g. a main-thread executor)
+     */
+    public VirtualTimeScheduler(VirtualClock clock, Executor executor) {
+        this.clock = clock;
+        this.executor = executor;
+    }
+    
+    VirtualClock getClock() {
+        return clock;
+    }
+    
+    Executor getExecutor() {
+        return executor;
+    }
+    
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return submitTask(new VirtualScheduledTask<Void>(this, command, null, dueTime(delay, unit), 0));
+    }
+    
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return submitTask(new VirtualScheduledTask<V>(this, callable, dueTime(delay, unit)));
+    }
+    
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        return submitTask(new VirtualScheduledTask<Void>(this, command, null, dueTime(initialDelay, unit),
+                Math.max(1, unit.toMillis(period))));
+    }
+    
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        if (delay <= 0) {
+            throw new IllegalArgumentException("Delay must be positive: " + delay);
+        }
+        return submitTask(new VirtualScheduledTask<Void>(this, command, null, dueTime(initialDelay, unit),
+                -Math.max(1, unit.toMillis(delay))));
+    }
+    
+    private long dueTime(long delay, TimeUnit unit) {
+        return clock.currentTimeMillis() + Math.max(0, unit.toMillis(delay));
+    }
+    
+    private <V> VirtualScheduledTask<V> submitTask(VirtualScheduledTask<V> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("VirtualTimeScheduler has been shut down");
+        }
+        clock.schedule(task);
+        return task;
+    }
+    
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+    
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> removed = new ArrayList<>();
+        clock.removeAll(this, removed);
+        return removed;
+    }
+    
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+    
+    @Override
+    public boolean isTerminated() {
+        return shutdown && !clock.hasPendingTasks(this);
+    }
+    
+    /**
+     * Tasks only run when virtual time advances, so this does not wait
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+}
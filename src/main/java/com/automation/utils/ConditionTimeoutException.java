@@ -0,0 +1,21 @@
+package com.automation.utils;
+
+/**
+ * Thrown when a WaitHelper.until() condition does not hold before its deadline
+ */
+public class ConditionTimeoutException extends RuntimeException {
+    
+    private final ConditionWait.Result result;
+    
+    public ConditionTimeoutException(String message, ConditionWait.Result result, Throwable lastError) {
+        super(message, lastError);
+        this.result = result;
+    }
+    
+    /**
+     * Get the elapsed time and number of checks of the failed wait
+     */
+    public ConditionWait.Result getResult() {
+        return result;
+    }
+}
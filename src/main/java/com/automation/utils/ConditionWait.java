@@ -0,0 +1,252 @@
+package com.automation.utils;
+
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for a condition Espresso cannot observe, created by WaitHelper.until()
+ * 
+ * The condition is checked right away, then again whenever one of the registered event sources
+ * fires (content observer, file observer, frame tick, or any callback), and in between by polling
+ * with exponential backoff and jitter as a fallback. The wait ends as soon as the condition
+ * holds, so it takes as long as the condition needs and no longer.
+ * 
+ * Usage:
+ * <pre>
+ * WaitHelper.until(() -&gt; exportFile.exists())
+ *         .describedAs("export file written")
+ *         .wakeOn(WaitHelper.fileChanges(exportFile))
+ *         .timeout(20, TimeUnit.SECONDS)
+ *         .await();
+ * </pre>
+ * Must not be called on the main thread, which the condition usually depends on.
+ */
+public class ConditionWait {
+    
+    /**
+     * Condition to wait for. Exceptions count as "not yet" and are reported on timeout.
+     */
+    public interface Condition {
+        boolean isSatisfied() throws Exception;
+    }
+    
+    /**
+     * Source of events after which the condition is worth checking again
+     */
+    public interface EventSource {
+        /**
+         * Start calling onEvent whenever the source fires
+         * 
+         * @return Handle that stops the calls
+         */
+        Subscription subscribe(Runnable onEvent);
+    }
+    
+    public interface Subscription {
+        void cancel();
+    }
+    
+    private static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    private static final long DEFAULT_INITIAL_POLL_MILLIS = 10;
+    private static final long DEFAULT_MAX_POLL_MILLIS = 1000;
+    
+    private final Condition condition;
+    private final List<EventSource> eventSources = new ArrayList<>();
+    private String description = "condition";
+    private long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIMEOUT_MILLIS);
+    private long initialPollNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_INITIAL_POLL_MILLIS);
+    private long maxPollNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_POLL_MILLIS);
+    private boolean logResult;
+    
+    // Wait state, guarded by lock
+    private final Object lock = new Object();
+    private boolean signalled;
+    private int events;
+    
+    ConditionWait(Condition condition) {
+        if (condition == null) {
+            throw new IllegalArgumentException("Condition must not be null");
+        }
+        this.condition = condition;
+    }
+    
+    /**
+     * Name the condition in the report and in timeout messages
+     */
+    public ConditionWait describedAs(String description) {
+        this.description = description;
+        return this;
+    }
+    
+    /**
+     * Set the deadline for the wait (10 seconds by default)
+     */
+    public ConditionWait timeout(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeoutNanos = unit.toNanos(timeout);
+        return this;
+    }
+    
+    /**
+     * Set the fallback polling interval: it starts at initial and doubles up to max
+     * (10ms and 1s by default). Each sleep is randomized between half and all of the interval.
+     */
+    public ConditionWait pollInterval(long initial, long max, TimeUnit unit) {
+        if (initial <= 0 || max < initial) {
+            throw new IllegalArgumentException("Invalid poll interval: " + initial + " to " + max);
+        }
+        this.initialPollNanos = unit.toNanos(initial);
+        this.maxPollNanos = unit.toNanos(max);
+        return this;
+    }
+    
+    /**
+     * Check the condition again whenever the source fires
+     */
+    public ConditionWait wakeOn(EventSource source) {
+        eventSources.add(source);
+        return this;
+    }
+    
+    /**
+     * Print the result of the wait when it succeeds. Waits are quiet by default; use the
+     * returned Result to report them otherwise.
+     */
+    public ConditionWait logged() {
+        this.logResult = true;
+        return this;
+    }
+    
+    /**
+     * Block until the condition holds
+     * 
+     * @return How long the wait took
+     * @throws ConditionTimeoutException if the condition does not hold before the deadline
+     */
+    public Result await() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("WaitHelper.until() must not block the main thread");
+        }
+        synchronized (lock) {
+            signalled = false;
+            events = 0;
+        }
+        long start = System.nanoTime();
+        long deadline = start + timeoutNanos;
+        List<Subscription> subscriptions = new ArrayList<>(eventSources.size());
+        int checks = 0;
+        Exception lastError = null;
+        try {
+            for (EventSource source : eventSources) {
+                subscriptions.add(source.subscribe(() -> signal()));
+            }
+            long pollNanos = initialPollNanos;
+            while (true) {
+                checks++;
+                try {
+                    if (condition.isSatisfied()) {
+                        return finish(start, checks);
+                    }
+                } catch (Exception e) {
+                    lastError = e;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    Result result = new Result(description, System.nanoTime() - start, checks, eventCount());
+                    throw new ConditionTimeoutException("Timed out waiting for " + description + ": " + result,
+                            result, lastError);
+                }
+                long jittered = pollNanos / 2 + ThreadLocalRandom.current().nextLong(pollNanos / 2 + 1);
+                long sleep = Math.min(remaining, jittered);
+                synchronized (lock) {
+                    if (!signalled) {
+                        TimeUnit.NANOSECONDS.timedWait(lock, sleep);
+                    }
+                    signalled = false;
+                }
+                pollNanos = Math.min(maxPollNanos, pollNanos * 2);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + description, e);
+        } finally {
+            for (Subscription subscription : subscriptions) {
+                subscription.cancel();
+            }
+        }
+    }
+    
+    private void signal() {
+        synchronized (lock) {
+            signalled = true;
+            events++;
+            lock.notifyAll();
+        }
+    }
+    
+    private int eventCount() {
+        synchronized (lock) {
+            return events;
+        }
+    }
+    
+    private Result finish(long start, int checks) {
+        Result result = new Result(description, System.nanoTime() - start, checks, eventCount());
+        if (logResult) {
+            System.out.println("Waited for " + result);
+        }
+        return result;
+    }
+    
+    /**
+     * Outcome of a wait
+     */
+    public static final class Result {
+        private final String description;
+        private final long elapsedNanos;
+        private final int checks;
+        private final int events;
+        
+        Result(String description, long elapsedNanos, int checks, int events) {
+            this.description = description;
+            this.elapsedNanos = elapsedNanos;
+            this.checks = checks;
+            this.events = events;
+        }
+        
+        public String getDescription() {
+            return description;
+        }
+        
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+        
+        /**
+         * Get how many times the condition was evaluated
+         */
+        public int getChecks() {
+            return checks;
+        }
+        
+        /**
+         * Get how many events woke the wait up
+         */
+        public int getEvents() {
+            return events;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s: %.1fms, %d checks, %d events",
+                    description, elapsedNanos / 1e6, checks, events);
+        }
+    }
+}
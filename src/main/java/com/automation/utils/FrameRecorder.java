@@ -0,0 +1,583 @@
+package com.automation.utils;
+
+import android.app.Activity;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.media.Image;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.view.PixelCopy;
+import android.view.View;
+import android.view.Window;
+
+import androidx.annotation.Nullable;
+import androidx.test.runner.lifecycle.ActivityLifecycleCallback;
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry;
+import androidx.test.runner.lifecycle.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the last N frames of the screen in memory and turns them into a video only on failure
+ * 
+ * A screenshot taken after a failure often misses the transient state that caused it, and full
+ * screen recording costs too much to leave on. The recorder copies the resumed activity's window
+ * a few times per second (PixelCopy, scaled by the GPU into one small reused bitmap) into a ring
+ * of downscaled frames in a single preallocated direct buffer, so steady-state capture allocates
+ * nothing per frame and passing tests only pay for the copies. When a test fails,
+ * writeVideoAsync() encodes the ring, oldest frame first, to an H.264 MP4 next to the screenshots
+ * on a background thread; capturing stays paused until the video is written. Call flush() before
+ * instrumentation finishes (BaseTest does so after each test class).
+ * 
+ * Frames are copied from the activity window only (no dialogs or system UI). PixelCopy of a
+ * window needs API 26; on older devices the recorder stays off.
+ * 
+ * Usage:
+ * <pre>
+ * FrameRecorder recorder = FrameRecorder.getInstance();
+ * recorder.reset();
+ * recorder.start();
+ * ...
+ * Future&lt;String&gt; video = recorder.writeVideoAsync("checkout_failure");
+ * </pre>
+ * BaseTest does this for every test (see recordFramesOnFailure()).
+ */
+public class FrameRecorder {
+    
+    public static final int DEFAULT_CAPACITY = 30;
+    public static final int DEFAULT_FRAMES_PER_SECOND = 4;
+    public static final float DEFAULT_SCALE = 0.25f;
+    
+    private static final String MIME_TYPE = MediaFormat.MIMETYPE_VIDEO_AVC;
+    private static final long CODEC_TIMEOUT_US = 10000;
+    /**
+     * Upper bound for encoding one video
+     */
+    private static final long ENCODE_TIMEOUT_MILLIS = 10000;
+    private static final String VIDEO_FORMAT = "yyyy-MM-dd_HH-mm-ss";
+    
+    private static FrameRecorder instance;
+    private static ThreadPoolExecutor encoder;
+    
+    private final int capacity;
+    private final int framesPerSecond;
+    private final float scale;
+    
+    // Ring of RGBA frames, allocated on first start; slots guarded by lock
+    private final Object lock = new Object();
+    private ByteBuffer ring;
+    private long[] timestampsNanos;
+    private int width;
+    private int height;
+    private int frameBytes;
+    private int next;
+    private int count;
+    // Videos being encoded; frames are not stored while any is, since encoding reads the ring
+    private int pendingVideos;
+    
+    // Capture thread state
+    private HandlerThread thread;
+    private Bitmap scratch;
+    private volatile boolean running;
+    private boolean copyInFlight;
+    private volatile WeakReference<Window> window = new WeakReference<>(null);
+    
+    private final PixelCopy.OnPixelCopyFinishedListener copyListener = new PixelCopy.OnPixelCopyFinishedListener() {
+        @Override
+        public void onPixelCopyFinished(int result) {
+            copyInFlight = false;
+            if (result == PixelCopy.SUCCESS) {
+                storeFrame();
+            }
+        }
+    };
+    
+    private final ActivityLifecycleCallback lifecycleCallback = new ActivityLifecycleCallback() {
+        @Override
+        public void onActivityLifecycleChanged(Activity activity, Stage stage) {
+            if (stage == Stage.RESUMED) {
+                window = new WeakReference<>(activity.getWindow());
+            } else if (stage == Stage.PAUSED && window.get() == activity.getWindow()) {
+                window = new WeakReference<>(null);
+            }
+        }
+    };
+    
+    /**
+     * @param capacity Number of most recent frames kept
+     * @param framesPerSecond Capture rate
+     * @param scale Frame size relative to the display, e.g. 0.25 for a quarter of width and height
+     */
+    public FrameRecorder(int capacity, int framesPerSecond, float scale) {
+        if (capacity < 1 || framesPerSecond < 1 || framesPerSecond > 60) {
+            throw new IllegalArgumentException("Invalid recorder settings: " + capacity + " frames at "
+                    + framesPerSecond + " fps");
+        }
+        if (!(scale > 0f && scale <= 1f)) {
+            throw new IllegalArgumentException("Scale must be in (0, 1]: " + scale);
+        }
+        this.capacity = capacity;
+        this.framesPerSecond = framesPerSecond;
+        this.scale = scale;
+    }
+    
+    /**
+     * Get the shared recorder: the last 30 frames at 4 fps (7.5 seconds), at a quarter of the
+     * display size
+     */
+    public static synchronized FrameRecorder getInstance() {
+        if (instance == null) {
+            instance = new FrameRecorder(DEFAULT_CAPACITY, DEFAULT_FRAMES_PER_SECOND, DEFAULT_SCALE);
+        }
+        return instance;
+    }
+    
+    /**
+     * Start capturing frames; does nothing if already running or below API 26
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            System.err.println("Frame recording needs API 26 (PixelCopy); recording is disabled");
+            return;
+        }
+        allocate();
+        ActivityLifecycleMonitorRegistry.getInstance().addLifecycleCallback(lifecycleCallback);
+        // Activities resumed before start() only show up when queried on the main thread
+        new Handler(Looper.getMainLooper()).post(() -> {
+            Collection<Activity> resumed = ActivityLifecycleMonitorRegistry.getInstance()
+                    .getActivitiesInStage(Stage.RESUMED);
+            if (!resumed.isEmpty()) {
+                window = new WeakReference<>(resumed.iterator().next().getWindow());
+            }
+        });
+        thread = new HandlerThread("frame-recorder");
+        thread.start();
+        // The tick keeps its own handler, so stop() cannot pull it away from a capture in progress
+        final Handler handler = new Handler(thread.getLooper());
+        running = true;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!running) {
+                    return;
+                }
+                handler.postDelayed(this, 1000L / framesPerSecond);
+                captureFrame(handler);
+            }
+        });
+    }
+    
+    /**
+     * Stop capturing; recorded frames are kept until reset() or the next frames replace them
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        ActivityLifecycleMonitorRegistry.getInstance().removeLifecycleCallback(lifecycleCallback);
+        thread.quitSafely();
+        thread = null;
+        copyInFlight = false;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Drop all recorded frames, e.g. at the start of a test
+     */
+    public void reset() {
+        synchronized (lock) {
+            next = 0;
+            count = 0;
+        }
+    }
+    
+    public int getFrameCount() {
+        synchronized (lock) {
+            return count;
+        }
+    }
+    
+    private void allocate() {
+        if (ring != null) {
+            return;
+        }
+        DisplayMetrics display = Resources.getSystem().getDisplayMetrics();
+        // Encoders handle sizes aligned to 16 pixels most reliably
+        width = Math.max(16, Math.round(display.widthPixels * scale) / 16 * 16);
+        height = Math.max(16, Math.round(display.heightPixels * scale) / 16 * 16);
+        frameBytes = width * height * 4;
+        ring = ByteBuffer.allocateDirect(frameBytes * capacity).order(ByteOrder.nativeOrder());
+        timestampsNanos = new long[capacity];
+        scratch = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+    
+    /**
+     * Runs on the recorder thread
+     * 
+     * @param handler The recorder thread's handler, which receives the copy result
+     */
+    private void captureFrame(Handler handler) {
+        if (copyInFlight) {
+            // The previous copy has not finished; skip this frame rather than queue up
+            return;
+        }
+        Window current = window.get();
+        View decor = current != null ? current.peekDecorView() : null;
+        if (decor == null || decor.getWidth() == 0 || !decor.isAttachedToWindow()) {
+            return;
+        }
+        copyInFlight = true;
+        try {
+            PixelCopy.request(current, scratch, copyListener, handler);
+        } catch (IllegalArgumentException e) {
+            // The window has no surface (yet or anymore)
+            copyInFlight = false;
+        }
+    }
+    
+    /**
+     * Runs on the recorder thread after a successful copy
+     */
+    private void storeFrame() {
+        synchronized (lock) {
+            if (pendingVideos > 0) {
+                return;
+            }
+            ring.clear();
+            ring.position(next * frameBytes);
+            scratch.copyPixelsToBuffer(ring);
+            timestampsNanos[next] = System.nanoTime();
+            next = (next + 1) % capacity;
+            count = Math.min(count + 1, capacity);
+        }
+    }
+    
+    /**
+     * Encode the recorded frames of a test to an MP4 next to the screenshots, in the background
+     * 
+     * @return Future of the full path to the saved video, or of null if there were no frames or
+     *         encoding failed
+     */
+    public Future<String> writeVideoAsync(String testClassName, String testMethodName) {
+        return writeVideoAsync(ScreenshotHelper.testScreenshotName(testClassName, testMethodName));
+    }
+    
+    /**
+     * Encode the recorded frames, oldest first, to an MP4 next to the screenshots, on the
+     * recorder's encoding thread. Capturing pauses from this call until the video is written,
+     * so the video shows the frames before the call. An encoder that does not finish within
+     * 10 seconds counts as a failed encoding.
+     * 
+     * @param name The name for the video (without extension)
+     * @return Future of the full path to the saved video, or of null if there were no frames or
+     *         encoding failed
+     */
+    public Future<String> writeVideoAsync(final String name) {
+        final int oldest;
+        final int frames;
+        synchronized (lock) {
+            frames = count;
+            if (frames == 0) {
+                FutureTask<String> none = new FutureTask<>(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        return null;
+                    }
+                });
+                none.run();
+                return none;
+            }
+            oldest = count < capacity ? 0 : next;
+            pendingVideos++;
+        }
+        FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() {
+                return encodeFrames(name, oldest, frames);
+            }
+        });
+        try {
+            getEncoder().execute(task);
+        } catch (RejectedExecutionException e) {
+            finishVideo();
+            throw e;
+        }
+        return task;
+    }
+    
+    /**
+     * Encode the recorded frames, oldest first, to an MP4 next to the screenshots, waiting for
+     * the video to be written
+     * 
+     * @param name The name for the video (without extension)
+     * @return The full path to the saved video, or null if there were no frames, encoding failed
+     *         or the calling thread was interrupted
+     */
+    @Nullable
+    public String writeVideo(String name) {
+        try {
+            return writeVideoAsync(name).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            System.err.println("Failed to encode recorded frames: " + e.getCause());
+            return null;
+        }
+    }
+    
+    /**
+     * Wait until all videos requested with writeVideoAsync() have been written
+     * 
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if all videos were written, false on timeout or interrupt
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (lock) {
+            while (pendingVideos > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    System.err.println(pendingVideos + " videos were still being encoded after " + timeout
+                            + " " + unit.toString().toLowerCase(Locale.US));
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static synchronized ThreadPoolExecutor getEncoder() {
+        if (encoder == null) {
+            encoder = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "frame-encoder");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            encoder.allowCoreThreadTimeOut(true);
+        }
+        return encoder;
+    }
+    
+    private void finishVideo() {
+        synchronized (lock) {
+            pendingVideos--;
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Runs on the encoding thread while capturing is paused, so the ring can be read without the lock
+     */
+    @Nullable
+    private String encodeFrames(String name, int oldest, int frames) {
+        try {
+            File directory = ScreenshotHelper.getScreenshotDirectory();
+            if (directory == null) {
+                System.err.println("Failed to create screenshot directory");
+                return null;
+            }
+            String timestamp = new SimpleDateFormat(VIDEO_FORMAT, Locale.US).format(new Date());
+            File file = new File(directory, String.format("%s_%s.mp4", name, timestamp));
+            encode(file, oldest, frames);
+            String path = file.getAbsolutePath();
+            System.out.println("Frames before failure saved: " + path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to encode recorded frames: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        } finally {
+            finishVideo();
+        }
+    }
+    
+    /**
+     * Encode frames of the ring with H.264 into an MP4 file
+     * 
+     * @param oldest Slot of the first frame
+     * @param frames Number of frames, in ring order from the oldest
+     */
+    private void encode(File file, int oldest, int frames) throws IOException {
+        MediaFormat format = MediaFormat.createVideoFormat(MIME_TYPE, width, height);
+        format.setInteger(MediaFormat.KEY_COLOR_FORMAT,
+                MediaCodecInfo.CodecCapabilities.COLOR_FormatYUV420Flexible);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, width * height * 4);
+        format.setInteger(MediaFormat.KEY_FRAME_RATE, framesPerSecond);
+        format.setInteger(MediaFormat.KEY_I_FRAME_INTERVAL, 1);
+        
+        MediaCodec codec = MediaCodec.createEncoderByType(MIME_TYPE);
+        MediaMuxer muxer = null;
+        boolean complete = false;
+        try {
+            codec.configure(format, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+            codec.start();
+            muxer = new MediaMuxer(file.getAbsolutePath(), MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            int[] track = {-1};
+            long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ENCODE_TIMEOUT_MILLIS);
+            
+            long firstNanos = timestampsNanos[oldest];
+            long lastPresentationUs = -1;
+            for (int i = 0; i <= frames; i++) {
+                int input = dequeueInput(codec, muxer, info, track, deadlineNanos);
+                if (i == frames) {
+                    codec.queueInputBuffer(input, 0, 0, lastPresentationUs + 1,
+                            MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                    break;
+                }
+                int slot = (oldest + i) % capacity;
+                Image image = codec.getInputImage(input);
+                writeYuv(slot, image);
+                // Presentation times must increase, even for frames captured within a microsecond
+                long presentationUs = Math.max(lastPresentationUs + 1, (timestampsNanos[slot] - firstNanos) / 1000);
+                codec.queueInputBuffer(input, 0, width * height * 3 / 2, presentationUs, 0);
+                lastPresentationUs = presentationUs;
+            }
+            drain(codec, muxer, info, track, true, deadlineNanos);
+            complete = track[0] >= 0;
+        } finally {
+            codec.stop();
+            codec.release();
+            if (muxer != null) {
+                if (complete) {
+                    muxer.stop();
+                }
+                muxer.release();
+            }
+            if (!complete) {
+                file.delete();
+            }
+        }
+        if (!complete) {
+            throw new IOException("Encoder produced no output");
+        }
+    }
+    
+    private static int dequeueInput(MediaCodec codec, MediaMuxer muxer, MediaCodec.BufferInfo info, int[] track,
+            long deadlineNanos) throws IOException {
+        while (true) {
+            int input = codec.dequeueInputBuffer(CODEC_TIMEOUT_US);
+            if (input >= 0) {
+                return input;
+            }
+            // No input buffer free: the encoder needs its output drained first
+            drain(codec, muxer, info, track, false, deadlineNanos);
+            checkDeadline(deadlineNanos);
+        }
+    }
+    
+    /**
+     * Move encoded output to the muxer, until no output is ready or, at the end, the last buffer
+     * 
+     * @throws IOException if the encoder stops producing output before the deadline
+     */
+    private static void drain(MediaCodec codec, MediaMuxer muxer, MediaCodec.BufferInfo info, int[] track,
+            boolean endOfStream, long deadlineNanos) throws IOException {
+        while (true) {
+            int output = codec.dequeueOutputBuffer(info, CODEC_TIMEOUT_US);
+            if (output == MediaCodec.INFO_TRY_AGAIN_LATER) {
+                if (!endOfStream) {
+                    return;
+                }
+                checkDeadline(deadlineNanos);
+            } else if (output == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                track[0] = muxer.addTrack(codec.getOutputFormat());
+                muxer.start();
+            } else if (output >= 0) {
+                if ((info.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) != 0) {
+                    // Already part of the output format given to the muxer
+                    info.size = 0;
+                }
+                if (info.size > 0 && track[0] >= 0) {
+                    muxer.writeSampleData(track[0], codec.getOutputBuffer(output), info);
+                }
+                codec.releaseOutputBuffer(output, false);
+                if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private static void checkDeadline(long deadlineNanos) throws IOException {
+        if (System.nanoTime() - deadlineNanos > 0) {
+            throw new IOException("Encoder did not finish within " + ENCODE_TIMEOUT_MILLIS + "ms");
+        }
+    }
+    
+    /**
+     * Convert one RGBA frame of the ring to the encoder's YUV 4:2:0 input image (BT.601)
+     */
+    private void writeYuv(int slot, Image image) {
+        Image.Plane[] planes = image.getPlanes();
+        ByteBuffer yPlane = planes[0].getBuffer();
+        ByteBuffer uPlane = planes[1].getBuffer();
+        ByteBuffer vPlane = planes[2].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        int yPixelStride = planes[0].getPixelStride();
+        int uRowStride = planes[1].getRowStride();
+        int uPixelStride = planes[1].getPixelStride();
+        int vRowStride = planes[2].getRowStride();
+        int vPixelStride = planes[2].getPixelStride();
+        int base = slot * frameBytes;
+        for (int y = 0; y < height; y++) {
+            int row = base + y * width * 4;
+            for (int x = 0; x < width; x++) {
+                int offset = row + x * 4;
+                int r = ring.get(offset) & 0xff;
+                int g = ring.get(offset + 1) & 0xff;
+                int b = ring.get(offset + 2) & 0xff;
+                yPlane.put(y * yRowStride + x * yPixelStride, (byte) (((66 * r + 129 * g + 25 * b + 128) >> 8) + 16));
+                if ((y & 1) == 0 && (x & 1) == 0) {
+                    int u = ((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128;
+                    int v = ((112 * r - 94 * g - 18 * b + 128) >> 8) + 128;
+                    uPlane.put((y / 2) * uRowStride + (x / 2) * uPixelStride, (byte) u);
+                    vPlane.put((y / 2) * vRowStride + (x / 2) * vPixelStride, (byte) v);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,566 @@
+package com.automation.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tiled pixel comparison of two ARGB images of the same size
+ * 
+ * The images are split into square tiles and each tile is hashed; tiles whose hashes match are
+ * skipped, and only the remaining tiles are compared pixel by pixel with a per-channel
+ * tolerance. Hashing and per-pixel work are spread across cores. A golden's tile hashes are
+ * computed once (see TileHashes) and reused for every comparison against it, so a comparison
+ * of an unchanged screen costs one pass over the actual pixels.
+ * 
+ * Ignore regions exclude dynamic areas (clock, animations, ads): tiles inside them are skipped
+ * and tiles partly covered by them are always compared pixel by pixel, skipping the ignored
+ * pixels.
+ * 
+ * Works on plain int[] buffers so it has no Android dependency; VisualAssert feeds it
+ * screenshots and goldens.
+ */
+public class PixelDiff {
+    
+    public static final int DEFAULT_TILE_SIZE = 32;
+    
+    /**
+     * Below this many tiles of work a comparison stays on the calling thread
+     */
+    private static final int PARALLEL_THRESHOLD = 16;
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+    
+    private static ExecutorService pool;
+    
+    /**
+     * How strict a comparison is
+     */
+    public static class Options {
+        private int tileSize = DEFAULT_TILE_SIZE;
+        private int channelTolerance;
+        private long maxDifferentPixels;
+        private double maxDifferentRatio;
+        private final List<int[]> ignoreRegions = new ArrayList<>();
+        
+        /**
+         * Set the tile edge in pixels (32 by default). Goldens hashed with another size are rehashed.
+         */
+        public Options tileSize(int tileSize) {
+            if (tileSize < 4) {
+                throw new IllegalArgumentException("Tile size must be at least 4: " + tileSize);
+            }
+            this.tileSize = tileSize;
+            return this;
+        }
+        
+        /**
+         * Let each color channel differ by up to this much (0-255) before a pixel counts as
+         * different; absorbs anti-aliasing and GPU rounding noise
+         */
+        public Options channelTolerance(int tolerance) {
+            if (tolerance < 0 || tolerance > 255) {
+                throw new IllegalArgumentException("Channel tolerance must be between 0 and 255: " + tolerance);
+            }
+            this.channelTolerance = tolerance;
+            return this;
+        }
+        
+        /**
+         * Pass while at most this many pixels differ
+         */
+        public Options maxDifferentPixels(long pixels) {
+            this.maxDifferentPixels = Math.max(0, pixels);
+            return this;
+        }
+        
+        /**
+         * Pass while at most this fraction (0-1) of the compared pixels differ
+         */
+        public Options maxDifferentRatio(double ratio) {
+            if (ratio < 0 || ratio > 1) {
+                throw new IllegalArgumentException("Ratio must be between 0 and 1: " + ratio);
+            }
+            this.maxDifferentRatio = ratio;
+            return this;
+        }
+        
+        /**
+         * Exclude a region from the comparison
+         * 
+         * @param left Left edge, inclusive
+         * @param top Top edge, inclusive
+         * @param right Right edge, exclusive
+         * @param bottom Bottom edge, exclusive
+         */
+        public Options ignore(int left, int top, int right, int bottom) {
+            if (right > left && bottom > top) {
+                ignoreRegions.add(new int[] {left, top, right, bottom});
+            }
+            return this;
+        }
+        
+        public int getTileSize() {
+            return tileSize;
+        }
+    }
+    
+    /**
+     * Per-tile hashes of an image, reusable across comparisons
+     */
+    public static final class TileHashes {
+        private final int width;
+        private final int height;
+        private final int tileSize;
+        private final long[] hashes;
+        
+        private TileHashes(int width, int height, int tileSize, long[] hashes) {
+            this.width = width;
+            this.height = height;
+            this.tileSize = tileSize;
+            this.hashes = hashes;
+        }
+        
+        /**
+         * Hash every tile of an image
+         */
+        public static TileHashes of(final int[] pixels, final int width, final int height, final int tileSize) {
+            checkSize(pixels, width, height);
+            final int columns = (width + tileSize - 1) / tileSize;
+            final int rows = (height + tileSize - 1) / tileSize;
+            final long[] hashes = new long[columns * rows];
+            runBands(rows, columns, new Band() {
+                @Override
+                public void run(int fromRow, int toRow) {
+                    for (int row = fromRow; row < toRow; row++) {
+                        for (int column = 0; column < columns; column++) {
+                            hashes[row * columns + column] = hashTile(pixels, width, height, tileSize, column, row);
+                        }
+                    }
+                }
+            });
+            return new TileHashes(width, height, tileSize, hashes);
+        }
+        
+        public int getWidth() {
+            return width;
+        }
+        
+        public int getHeight() {
+            return height;
+        }
+        
+        public int getTileSize() {
+            return tileSize;
+        }
+    }
+    
+    /**
+     * Outcome of a comparison
+     */
+    public static final class Result {
+        private final int width;
+        private final int height;
+        private final long differentPixels;
+        private final long comparedPixels;
+        private final int totalTiles;
+        private final int diffedTiles;
+        private final int changedTiles;
+        private final int[] bounds;
+        private final boolean matches;
+        private final long elapsedNanos;
+        
+        Result(int width, int height, long differentPixels, long comparedPixels, int totalTiles, int diffedTiles,
+                int changedTiles, int[] bounds, boolean matches, long elapsedNanos) {
+            this.width = width;
+            this.height = height;
+            this.differentPixels = differentPixels;
+            this.comparedPixels = comparedPixels;
+            this.totalTiles = totalTiles;
+            this.diffedTiles = diffedTiles;
+            this.changedTiles = changedTiles;
+            this.bounds = bounds;
+            this.matches = matches;
+            this.elapsedNanos = elapsedNanos;
+        }
+        
+        /**
+         * Whether the images are equal within the options' tolerances
+         */
+        public boolean matches() {
+            return matches;
+        }
+        
+        public long getDifferentPixels() {
+            return differentPixels;
+        }
+        
+        /**
+         * Get the number of pixels outside ignore regions
+         */
+        public long getComparedPixels() {
+            return comparedPixels;
+        }
+        
+        public int getTotalTiles() {
+            return totalTiles;
+        }
+        
+        /**
+         * Get the number of tiles compared pixel by pixel
+         */
+        public int getDiffedTiles() {
+            return diffedTiles;
+        }
+        
+        /**
+         * Get the number of tiles containing at least one different pixel
+         */
+        public int getChangedTiles() {
+            return changedTiles;
+        }
+        
+        /**
+         * Get the bounding box of the different pixels as {left, top, right, bottom}
+         * (right and bottom exclusive), or null if no pixel differs
+         */
+        public int[] getDifferenceBounds() {
+            return bounds == null ? null : bounds.clone();
+        }
+        
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(differentPixels).append(" of ").append(comparedPixels).append(" pixels differ in ")
+                    .append(changedTiles).append(" of ").append(totalTiles).append(" tiles");
+            if (bounds != null) {
+                text.append(", within [").append(bounds[0]).append(',').append(bounds[1]).append(" - ")
+                        .append(bounds[2]).append(',').append(bounds[3]).append(']');
+            }
+            text.append(" (").append(width).append('x').append(height).append(", ")
+                    .append(TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0).append("ms)");
+            return text.toString();
+        }
+    }
+    
+    private PixelDiff() {}
+    
+    /**
+     * Compare two images
+     * 
+     * @param expected Expected ARGB pixels, row by row
+     * @param actual Actual ARGB pixels, row by row
+     */
+    public static Result compare(int[] expected, int[] actual, int width, int height, Options options) {
+        return compare(expected, TileHashes.of(expected, width, height, options.tileSize), actual, width, height,
+                options);
+    }
+    
+    /**
+     * Compare an image against a golden whose tile hashes were computed before
+     * 
+     * @param expected Golden ARGB pixels, row by row
+     * @param expectedHashes Tile hashes of the golden; recomputed if the tile size differs
+     * @param actual Actual ARGB pixels, row by row
+     */
+    public static Result compare(final int[] expected, TileHashes expectedHashes, final int[] actual,
+            final int width, final int height, Options options) {
+        long start = System.nanoTime();
+        checkSize(expected, width, height);
+        checkSize(actual, width, height);
+        if (expectedHashes.width != width || expectedHashes.height != height) {
+            throw new IllegalArgumentException("Tile hashes are for " + expectedHashes.width + "x"
+                    + expectedHashes.height + ", not " + width + "x" + height);
+        }
+        final int tileSize = options.tileSize;
+        if (expectedHashes.tileSize != tileSize) {
+            expectedHashes = TileHashes.of(expected, width, height, tileSize);
+        }
+        final long[] goldenHashes = expectedHashes.hashes;
+        final int columns = (width + tileSize - 1) / tileSize;
+        final int rows = (height + tileSize - 1) / tileSize;
+        final int[][] ignore = options.ignoreRegions.toArray(new int[0][]);
+        
+        // Pass 1: classify tiles by hash, skipping ignored and unchanged ones
+        final byte[] coverage = new byte[columns * rows];
+        final boolean[] needsDiff = new boolean[columns * rows];
+        runBands(rows, columns, new Band() {
+            @Override
+            public void run(int fromRow, int toRow) {
+                for (int row = fromRow; row < toRow; row++) {
+                    for (int column = 0; column < columns; column++) {
+                        int tile = row * columns + column;
+                        coverage[tile] = coverage(ignore, tileSize, column, row, width, height);
+                        if (coverage[tile] == COVERED) {
+                            continue;
+                        }
+                        needsDiff[tile] = coverage[tile] == PARTIAL
+                                || hashTile(actual, width, height, tileSize, column, row) != goldenHashes[tile];
+                    }
+                }
+            }
+        });
+        
+        long comparedPixels = 0;
+        final List<Integer> diffTiles = new ArrayList<>();
+        for (int tile = 0; tile < needsDiff.length; tile++) {
+            int column = tile % columns;
+            int row = tile / columns;
+            int tileWidth = Math.min(tileSize, width - column * tileSize);
+            int tileHeight = Math.min(tileSize, height - row * tileSize);
+            if (coverage[tile] == NOT_COVERED) {
+                comparedPixels += tileWidth * tileHeight;
+            }
+            if (needsDiff[tile]) {
+                diffTiles.add(tile);
+            }
+        }
+        
+        // Pass 2: per-pixel diff of the remaining tiles, in parallel
+        final int tolerance = options.channelTolerance;
+        final long[] differentPerTile = new long[diffTiles.size()];
+        final long[] comparedPerTile = new long[diffTiles.size()];
+        final int[][] boundsPerTile = new int[diffTiles.size()][];
+        runBands(diffTiles.size(), 1, new Band() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int tile = diffTiles.get(i);
+                    int[] stats = diffTile(expected, actual, width, height, tileSize, tile % columns,
+                            tile / columns, tolerance, coverage[tile] == PARTIAL ? ignore : null);
+                    differentPerTile[i] = stats[0];
+                    comparedPerTile[i] = stats[1];
+                    if (stats[0] > 0) {
+                        boundsPerTile[i] = new int[] {stats[2], stats[3], stats[4], stats[5]};
+                    }
+                }
+            }
+        });
+        
+        long differentPixels = 0;
+        int changedTiles = 0;
+        int[] bounds = null;
+        for (int i = 0; i < differentPerTile.length; i++) {
+            if (coverage[diffTiles.get(i)] == PARTIAL) {
+                comparedPixels += comparedPerTile[i];
+            }
+            if (differentPerTile[i] > 0) {
+                differentPixels += differentPerTile[i];
+                changedTiles++;
+                int[] tileBounds = boundsPerTile[i];
+                if (bounds == null) {
+                    bounds = tileBounds;
+                } else {
+                    bounds[0] = Math.min(bounds[0], tileBounds[0]);
+                    bounds[1] = Math.min(bounds[1], tileBounds[1]);
+                    bounds[2] = Math.max(bounds[2], tileBounds[2]);
+                    bounds[3] = Math.max(bounds[3], tileBounds[3]);
+                }
+            }
+        }
+        long allowed = Math.max(options.maxDifferentPixels, (long) (options.maxDifferentRatio * comparedPixels));
+        return new Result(width, height, differentPixels, comparedPixels, columns * rows, diffTiles.size(),
+                changedTiles, bounds, differentPixels <= allowed, System.nanoTime() - start);
+    }
+    
+    /**
+     * Render the actual image dimmed, with pixels that differ from the expected image in red
+     * 
+     * @return ARGB pixels of the diff image
+     */
+    public static int[] renderDiff(int[] expected, int[] actual, int width, int height, Options options) {
+        checkSize(expected, width, height);
+        checkSize(actual, width, height);
+        int[][] ignore = options.ignoreRegions.toArray(new int[0][]);
+        int[] diff = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (isIgnored(ignore, x, y)) {
+                    diff[i] = 0xff404040;
+                } else if (differs(expected[i], actual[i], options.channelTolerance)) {
+                    diff[i] = 0xffff0000;
+                } else {
+                    // Keep a faint grayscale copy for orientation
+                    int pixel = actual[i];
+                    int luma = (77 * ((pixel >> 16) & 0xff) + 150 * ((pixel >> 8) & 0xff) + 29 * (pixel & 0xff)) >> 8;
+                    int faint = 192 + (luma >> 2);
+                    diff[i] = 0xff000000 | (faint << 16) | (faint << 8) | faint;
+                }
+            }
+        }
+        return diff;
+    }
+    
+    private static final byte NOT_COVERED = 0;
+    private static final byte PARTIAL = 1;
+    private static final byte COVERED = 2;
+    
+    private static byte coverage(int[][] ignore, int tileSize, int column, int row, int width, int height) {
+        if (ignore.length == 0) {
+            return NOT_COVERED;
+        }
+        int left = column * tileSize;
+        int top = row * tileSize;
+        int right = Math.min(left + tileSize, width);
+        int bottom = Math.min(top + tileSize, height);
+        byte result = NOT_COVERED;
+        for (int[] region : ignore) {
+            if (region[0] <= left && region[1] <= top && region[2] >= right && region[3] >= bottom) {
+                return COVERED;
+            }
+            if (region[0] < right && region[2] > left && region[1] < bottom && region[3] > top) {
+                result = PARTIAL;
+            }
+        }
+        return result;
+    }
+    
+    private static boolean isIgnored(int[][] ignore, int x, int y) {
+        for (int[] region : ignore) {
+            if (x >= region[0] && x < region[2] && y >= region[1] && y < region[3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    static long hashTile(int[] pixels, int width, int height, int tileSize, int column, int row) {
+        int left = column * tileSize;
+        int top = row * tileSize;
+        int right = Math.min(left + tileSize, width);
+        int bottom = Math.min(top + tileSize, height);
+        long hash = 0xcbf29ce484222325L;
+        for (int y = top; y < bottom; y++) {
+            int offset = y * width;
+            for (int x = left; x < right; x++) {
+                hash = (hash ^ pixels[offset + x]) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+    
+    /**
+     * @return {different, compared, left, top, right, bottom}
+     */
+    private static int[] diffTile(int[] expected, int[] actual, int width, int height, int tileSize, int column,
+            int row, int tolerance, int[][] ignore) {
+        int left = column * tileSize;
+        int top = row * tileSize;
+        int right = Math.min(left + tileSize, width);
+        int bottom = Math.min(top + tileSize, height);
+        int different = 0;
+        int compared = 0;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = -1;
+        int maxY = -1;
+        for (int y = top; y < bottom; y++) {
+            int offset = y * width;
+            for (int x = left; x < right; x++) {
+                if (ignore != null && isIgnored(ignore, x, y)) {
+                    continue;
+                }
+                compared++;
+                if (differs(expected[offset + x], actual[offset + x], tolerance)) {
+                    different++;
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        return new int[] {different, compared, minX, minY, maxX + 1, maxY + 1};
+    }
+    
+    private static boolean differs(int expected, int actual, int tolerance) {
+        if (expected == actual) {
+            return false;
+        }
+        if (tolerance == 0) {
+            return true;
+        }
+        return Math.abs(((expected >> 24) & 0xff) - ((actual >> 24) & 0xff)) > tolerance
+                || Math.abs(((expected >> 16) & 0xff) - ((actual >> 16) & 0xff)) > tolerance
+                || Math.abs(((expected >> 8) & 0xff) - ((actual >> 8) & 0xff)) > tolerance
+                || Math.abs((expected & 0xff) - (actual & 0xff)) > tolerance;
+    }
+    
+    private static void checkSize(int[] pixels, int width, int height) {
+        if (width <= 0 || height <= 0 || pixels.length < width * height) {
+            throw new IllegalArgumentException("Pixel buffer of " + pixels.length + " does not hold "
+                    + width + "x" + height);
+        }
+    }
+    
+    /**
+     * Work over a range of items, run as one band on the calling thread or split across the pool
+     */
+    private interface Band {
+        void run(int from, int to);
+    }
+    
+    /**
+     * @param items Number of work items
+     * @param tilesPerItem Tiles per item, to decide whether splitting pays off
+     */
+    private static void runBands(int items, int tilesPerItem, final Band band) {
+        int bands = Math.min(THREADS, items);
+        if (bands <= 1 || (long) items * tilesPerItem < PARALLEL_THRESHOLD) {
+            band.run(0, items);
+            return;
+        }
+        ExecutorService executor = getPool();
+        List<Future<?>> futures = new ArrayList<>(bands - 1);
+        int perBand = (items + bands - 1) / bands;
+        for (int from = perBand; from < items; from += perBand) {
+            final int start = from;
+            final int end = Math.min(items, from + perBand);
+            futures.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    band.run(start, end);
+                    return null;
+                }
+            }));
+        }
+        // The calling thread takes the first band itself
+        band.run(0, Math.min(items, perBand));
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while comparing images", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Image comparison failed", e.getCause());
+        }
+    }
+    
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "pixel-diff-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+}
@@ -0,0 +1,101 @@
+package com.automation.utils;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Minimal PNG encoder with a configurable zlib level and 8-bit grayscale output
+ * 
+ * Writes opaque RGB or gray images (screenshots carry no useful alpha), one row at a time with
+ * the Sub filter, which suits the flat horizontal runs of UI screenshots.
+ */
+final class PngEncoder {
+    
+    static final int DEFAULT_LEVEL = 6;
+    
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int COLOR_TYPE_GRAY = 0;
+    private static final int COLOR_TYPE_RGB = 2;
+    private static final int FILTER_SUB = 1;
+    
+    private PngEncoder() {}
+    
+    static void encode(Bitmap bitmap, boolean grayscale, int level, OutputStream out) throws IOException {
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int channels = grayscale ? 1 : 3;
+        
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(level);
+        try {
+            DeflaterOutputStream zlib = new DeflaterOutputStream(compressed, deflater, 64 * 1024);
+            int[] pixels = new int[width];
+            byte[] row = new byte[1 + width * channels];
+            row[0] = FILTER_SUB;
+            for (int y = 0; y < height; y++) {
+                bitmap.getPixels(pixels, 0, width, 0, y, width, 1);
+                // Sub filter: each byte minus the same channel of the pixel to its left (0 at the edge)
+                int previous = 0;
+                int offset = 1;
+                for (int x = 0; x < width; x++) {
+                    if (grayscale) {
+                        int gray = luma(pixels[x]);
+                        row[offset++] = (byte) (gray - previous);
+                        previous = gray;
+                    } else {
+                        int pixel = pixels[x];
+                        row[offset++] = (byte) ((pixel >> 16) - (previous >> 16));
+                        row[offset++] = (byte) ((pixel >> 8) - (previous >> 8));
+                        row[offset++] = (byte) (pixel - previous);
+                        previous = pixel;
+                    }
+                }
+                zlib.write(row);
+            }
+            zlib.finish();
+        } finally {
+            deflater.end();
+        }
+        
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8);
+        headerData.writeByte(grayscale ? COLOR_TYPE_GRAY : COLOR_TYPE_RGB);
+        headerData.writeByte(0);
+        headerData.writeByte(0);
+        headerData.writeByte(0);
+        writeChunk(data, "IHDR", header.toByteArray());
+        writeChunk(data, "IDAT", compressed.toByteArray());
+        writeChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+    
+    /**
+     * Rec. 601 luma of a color, in 0-255
+     */
+    private static int luma(int pixel) {
+        return (77 * ((pixel >> 16) & 0xff) + 150 * ((pixel >> 8) & 0xff) + 29 * (pixel & 0xff)) >> 8;
+    }
+    
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -1,17 +1,29 @@
 package com.automation.utils;
 
 import android.graphics.Bitmap;
+import android.os.Build;
 import android.os.Environment;
 
+import androidx.annotation.Nullable;
 import androidx.test.platform.app.InstrumentationRegistry;
 import androidx.test.uiautomator.UiDevice;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class for taking screenshots during Espresso tests.
@@ -19,6 +31,19 @@ import java.util.Locale;
  * Screenshots are automatically saved when tests fail (via TestWatcher in BaseTest).
  * Screenshots can also be taken manually during tests for debugging purposes.
  * 
+ * Failure screenshots go through takeScreenshotAsync(): the calling thread only captures the
+ * pixels, and a small background pool compresses and writes them. The pool's queue is bounded;
+ * when it is full the caller encodes the screenshot itself, which caps memory held by pending
+ * bitmaps and slows down a run that fails faster than screenshots can be written.
+ * Call flush() before instrumentation finishes (BaseTest does so after each test class).
+ * 
+ * With setContentAddressedStorage(true), screenshots are stored by content instead of by name:
+ * identical images (and optionally near-identical ones) are written once under objects/ and
+ * every capture is recorded in index.jsonl (see ScreenshotStore).
+ * 
+ * Encoding follows a ScreenshotProfile (format, compression, downscaling, grayscale, crop),
+ * set globally with setDefaultProfile() or passed per call. The default is a full-size PNG.
+ * 
  * Usage:
  * - Automatic: Screenshots are taken automatically on test failure
  * - Manual: Call ScreenshotHelper.takeScreenshot("custom_name") during tests
@@ -28,6 +53,32 @@ public class ScreenshotHelper {
     private static final String SCREENSHOT_DIR = "screenshots";
     private static final String SCREENSHOT_FORMAT = "yyyy-MM-dd_HH-mm-ss";
     
+    /**
+     * Threads encoding screenshots, and the number of captures that may wait for them
+     */
+    private static final int WRITER_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 4;
+    
+    private static volatile ScreenshotProfile defaultProfile = ScreenshotProfile.png();
+    
+    private static volatile boolean contentAddressed;
+    private static volatile int nearDuplicateDistance;
+    private static ScreenshotStore store;
+    
+    private static ThreadPoolExecutor writer;
+    private static final Object pendingLock = new Object();
+    private static int pendingWrites;
+    
+    /**
+     * Called on the writing thread once an asynchronous screenshot has been saved
+     */
+    public interface Callback {
+        /**
+         * @param screenshotPath The full path to the saved screenshot file, or null if failed
+         */
+        void onSaved(@Nullable String screenshotPath);
+    }
+    
     /**
      * Take a screenshot and save it with a custom name.
      * 
@@ -35,36 +86,277 @@ public class ScreenshotHelper {
      * @return The full path to the saved screenshot file, or null if failed
      */
     public static String takeScreenshot(String screenshotName) {
+        return takeScreenshot(screenshotName, defaultProfile);
+    }
+    
+    /**
+     * Take a screenshot, encoded with the given profile, and save it with a custom name.
+     * 
+     * @param screenshotName The name for the screenshot (without extension)
+     * @param profile How to encode the screenshot
+     * @return The full path to the saved screenshot file, or null if failed
+     */
+    public static String takeScreenshot(String screenshotName, ScreenshotProfile profile) {
+        ScreenshotProfile snapshot = profile.snapshot();
+        Bitmap screenshot = capture();
+        return screenshot != null ? save(screenshot, screenshotName, new Date(), snapshot) : null;
+    }
+    
+    /**
+     * Set the profile used when no profile is passed, including for failure screenshots
+     */
+    public static void setDefaultProfile(ScreenshotProfile profile) {
+        if (profile == null) {
+            throw new IllegalArgumentException("Screenshot profile must not be null");
+        }
+        defaultProfile = profile;
+    }
+    
+    public static ScreenshotProfile getDefaultProfile() {
+        return defaultProfile;
+    }
+    
+    /**
+     * Store screenshots by content: each distinct image is written once to objects/ in the
+     * screenshot directory, and every capture appends a reference to index.jsonl.
+     * Saving then returns the path of the object file, which captures of the same image share.
+     */
+    public static void setContentAddressedStorage(boolean enabled) {
+        contentAddressed = enabled;
+    }
+    
+    public static boolean isContentAddressedStorage() {
+        return contentAddressed;
+    }
+    
+    /**
+     * With content-addressed storage, also merge images whose perceptual hashes differ in at most
+     * this many of 64 bits (0 by default: only identical images are merged). Small values such as
+     * 2-4 absorb cursors and clocks, but may also merge screens that differ in small text.
+     */
+    public static void setNearDuplicateDistance(int bits) {
+        if (bits < 0 || bits > 16) {
+            throw new IllegalArgumentException("Near-duplicate distance must be between 0 and 16 bits: " + bits);
+        }
+        nearDuplicateDistance = bits;
+    }
+    
+    private static synchronized ScreenshotStore getStore(File screenshotDir) {
+        if (store == null || !store.getDirectory().equals(screenshotDir)) {
+            store = new ScreenshotStore(screenshotDir);
+        }
+        return store;
+    }
+    
+    /**
+     * Capture a screenshot now and save it in the background.
+     * Only the capture runs on the calling thread, unless the write queue is full.
+     * 
+     * @param screenshotName The name for the screenshot (without extension)
+     * @param callback Called once the screenshot is saved or saving failed, or null
+     * @return Future of the full path to the saved screenshot file, or of null if failed
+     */
+    public static Future<String> takeScreenshotAsync(String screenshotName, @Nullable Callback callback) {
+        return takeScreenshotAsync(screenshotName, defaultProfile, callback);
+    }
+    
+    /**
+     * Capture a screenshot now and save it in the background, encoded with the given profile.
+     * Cropping, scaling and encoding all happen on the writing thread.
+     * 
+     * @param screenshotName The name for the screenshot (without extension)
+     * @param profile How to encode the screenshot
+     * @param callback Called once the screenshot is saved or saving failed, or null
+     * @return Future of the full path to the saved screenshot file, or of null if failed
+     */
+    public static Future<String> takeScreenshotAsync(final String screenshotName, ScreenshotProfile profile,
+            @Nullable final Callback callback) {
+        ScreenshotProfile snapshot = profile.snapshot();
+        return saveAsync(capture(), screenshotName, snapshot, callback);
+    }
+    
+    /**
+     * Save an already captured bitmap in the background, then recycle it
+     * 
+     * @param screenshot The pixels to save, or null if capturing failed
+     * @param profile Snapshot of the profile to encode with
+     */
+    static Future<String> saveAsync(@Nullable final Bitmap screenshot, final String screenshotName,
+            final ScreenshotProfile profile, @Nullable final Callback callback) {
+        final Date capturedAt = new Date();
+        FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() {
+                String path = null;
+                try {
+                    path = screenshot != null ? save(screenshot, screenshotName, capturedAt, profile) : null;
+                } finally {
+                    if (callback != null) {
+                        callback.onSaved(path);
+                    }
+                }
+                return path;
+            }
+        }) {
+            @Override
+            protected void done() {
+                synchronized (pendingLock) {
+                    pendingWrites--;
+                    pendingLock.notifyAll();
+                }
+            }
+        };
+        synchronized (pendingLock) {
+            pendingWrites++;
+        }
+        getWriter().execute(task);
+        return task;
+    }
+    
+    /**
+     * Capture a screenshot named after the test and save it in the background.
+     * 
+     * @param testClassName The name of the test class
+     * @param testMethodName The name of the test method
+     * @param callback Called once the screenshot is saved or saving failed, or null
+     * @return Future of the full path to the saved screenshot file, or of null if failed
+     */
+    public static Future<String> takeScreenshotAsync(String testClassName, String testMethodName,
+            @Nullable Callback callback) {
+        return takeScreenshotAsync(testScreenshotName(testClassName, testMethodName), defaultProfile, callback);
+    }
+    
+    /**
+     * Wait until all asynchronous screenshots have been written.
+     * 
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return true if all screenshots were written, false on timeout or interrupt
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pendingLock) {
+            while (pendingWrites > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    System.err.println(pendingWrites + " screenshots were still being written after " + timeout
+                            + " " + unit.toString().toLowerCase(Locale.US));
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(pendingLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static synchronized ThreadPoolExecutor getWriter() {
+        if (writer == null) {
+            final AtomicInteger threadCount = new AtomicInteger();
+            writer = new ThreadPoolExecutor(WRITER_THREADS, WRITER_THREADS, 1, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable,
+                                    "screenshot-writer-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            writer.allowCoreThreadTimeOut(true);
+        }
+        return writer;
+    }
+    
+    /**
+     * Capture the screen into a new bitmap
+     * 
+     * @return The pixels, or null if capturing failed
+     */
+    @Nullable
+    static Bitmap capture() {
         try {
             UiDevice device = UiDevice.getInstance(InstrumentationRegistry.getInstrumentation());
             Bitmap screenshot = device.takeScreenshot();
-            
             if (screenshot == null) {
                 System.err.println("Failed to capture screenshot: Bitmap is null");
-                return null;
             }
-            
+            return screenshot;
+        } catch (Exception e) {
+            System.err.println("Failed to take screenshot: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+    
+    /**
+     * Get a bitmap whose pixels can be read. Screenshots may be HARDWARE bitmaps on API 26+,
+     * for which getPixels() and drawing into a software Canvas fail.
+     * 
+     * @return An ARGB_8888 copy of a hardware bitmap, or the bitmap itself; the input is
+     *         left to the caller
+     */
+    static Bitmap softwareCopy(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && bitmap.getConfig() == Bitmap.Config.HARDWARE) {
+            Bitmap copy = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            if (copy != null) {
+                return copy;
+            }
+            System.err.println("Failed to copy hardware bitmap " + bitmap.getWidth() + "x" + bitmap.getHeight());
+        }
+        return bitmap;
+    }
+    
+    /**
+     * Transform and encode a captured screenshot and write it, then free the bitmaps
+     * 
+     * @param capturedAt When the pixels were captured, used in the filename
+     * @param profile Snapshot of the profile taken when the capture started
+     * @return The full path to the saved screenshot file, or null if failed
+     */
+    @Nullable
+    private static String save(Bitmap screenshot, String screenshotName, Date capturedAt,
+            ScreenshotProfile profile) {
+        Bitmap encoded = null;
+        try {
             File screenshotDir = getScreenshotDirectory();
             if (screenshotDir == null) {
                 System.err.println("Failed to create screenshot directory");
                 return null;
             }
             
-            // Create filename with timestamp
-            String timestamp = new SimpleDateFormat(SCREENSHOT_FORMAT, Locale.US).format(new Date());
-            String filename = String.format("%s_%s.png", screenshotName, timestamp);
+            String timestamp = new SimpleDateFormat(SCREENSHOT_FORMAT, Locale.US).format(capturedAt);
+            if (contentAddressed) {
+                encoded = profile.transform(screenshot);
+                File object = getStore(screenshotDir).store(encoded, screenshotName, timestamp, profile,
+                        nearDuplicateDistance);
+                String objectPath = object.getAbsolutePath();
+                System.out.println("Screenshot stored: " + screenshotName + " -> " + objectPath);
+                return objectPath;
+            }
+            
+            // Create filename with the capture timestamp
+            String filename = String.format("%s_%s.%s", screenshotName, timestamp, profile.getFileExtension());
             File screenshotFile = new File(screenshotDir, filename);
             
             // Save screenshot
-            FileOutputStream fos = new FileOutputStream(screenshotFile);
-            screenshot.compress(Bitmap.CompressFormat.PNG, 100, fos);
-            fos.flush();
-            fos.close();
+            encoded = profile.transform(screenshot);
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(screenshotFile));
+            try {
+                profile.encode(encoded, out);
+                out.flush();
+            } finally {
+                out.close();
+            }
             
             String filePath = screenshotFile.getAbsolutePath();
             System.out.println("Screenshot saved: " + filePath);
             return filePath;
-            
+        
         } catch (IOException e) {
             System.err.println("Failed to save screenshot: " + e.getMessage());
             e.printStackTrace();
@@ -73,6 +365,11 @@ public class ScreenshotHelper {
             System.err.println("Failed to take screenshot: " + e.getMessage());
             e.printStackTrace();
             return null;
+        } finally {
+            if (encoded != null && encoded != screenshot) {
+                encoded.recycle();
+            }
+            screenshot.recycle();
         }
     }
     
@@ -84,10 +381,13 @@ public class ScreenshotHelper {
      * @return The full path to the saved screenshot file, or null if failed
      */
     public static String takeScreenshot(String testClassName, String testMethodName) {
-        String screenshotName = String.format("%s_%s", 
+        return takeScreenshot(testScreenshotName(testClassName, testMethodName));
+    }
+    
+    static String testScreenshotName(String testClassName, String testMethodName) {
+        return String.format("%s_%s", 
                 sanitizeFilename(testClassName), 
                 sanitizeFilename(testMethodName));
-        return takeScreenshot(screenshotName);
     }
     
     /**
@@ -96,7 +396,7 @@ public class ScreenshotHelper {
      * 
      * @return File object representing the screenshot directory, or null if creation failed
      */
-    private static File getScreenshotDirectory() {
+    static File getScreenshotDirectory() {
         File screenshotDir = null;
         
         // Try external storage first (usually /sdcard/Pictures/screenshots)
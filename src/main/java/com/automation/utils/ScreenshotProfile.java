@@ -0,0 +1,292 @@
+package com.automation.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * How ScreenshotHelper encodes a screenshot: format, compression, size, color and region
+ * 
+ * Full-resolution lossless PNGs are the most faithful but also the largest files. A profile
+ * trades fidelity for I/O and storage volume:
+ * <pre>
+ * // Globally: half-size lossy WebP, a small fraction of the default PNG's size
+ * ScreenshotHelper.setDefaultProfile(ScreenshotProfile.webpLossy(80).scale(0.5f));
+ * 
+ * // Per call: only the form, in grayscale
+ * ScreenshotHelper.takeScreenshot("login_form", ScreenshotProfile.png().grayscale().cropTo(formView));
+ * </pre>
+ * Transformations apply in the order crop, scale, grayscale. Profiles are mutable; the helper
+ * copies a profile when a capture starts, so changing it afterwards does not affect that capture.
+ */
+public class ScreenshotProfile {
+    
+    /**
+     * Encodings a profile can write
+     */
+    public enum Format {
+        PNG("png"),
+        WEBP_LOSSLESS("webp"),
+        WEBP_LOSSY("webp");
+        
+        private final String extension;
+        
+        Format(String extension) {
+            this.extension = extension;
+        }
+        
+        public String getFileExtension() {
+            return extension;
+        }
+    }
+    
+    private final Format format;
+    private int quality = 100;
+    private int pngCompressionLevel = -1;
+    private float scale = 1f;
+    private boolean grayscale;
+    @Nullable
+    private Rect crop;
+    @Nullable
+    private View cropView;
+    
+    private ScreenshotProfile(Format format) {
+        this.format = format;
+    }
+    
+    /**
+     * Lossless PNG written by the platform encoder; the default profile
+     */
+    public static ScreenshotProfile png() {
+        return new ScreenshotProfile(Format.PNG);
+    }
+    
+    /**
+     * Lossless WebP, usually a third smaller than PNG for UI screenshots
+     */
+    public static ScreenshotProfile webpLossless() {
+        return new ScreenshotProfile(Format.WEBP_LOSSLESS);
+    }
+    
+    /**
+     * Lossy WebP
+     * 
+     * @param quality Encoder quality from 0 (smallest) to 100 (best)
+     */
+    public static ScreenshotProfile webpLossy(int quality) {
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("Quality must be between 0 and 100: " + quality);
+        }
+        ScreenshotProfile profile = new ScreenshotProfile(Format.WEBP_LOSSY);
+        profile.quality = quality;
+        return profile;
+    }
+    
+    /**
+     * Set the zlib compression level of PNG output, from 0 (fastest, largest) to 9 (slowest,
+     * smallest). PNGs are then written by a Deflater-based encoder instead of the platform one.
+     */
+    public ScreenshotProfile pngCompressionLevel(int level) {
+        if (format != Format.PNG) {
+            throw new IllegalStateException("Compression level only applies to PNG, not " + format);
+        }
+        if (level < 0 || level > 9) {
+            throw new IllegalArgumentException("PNG compression level must be between 0 and 9: " + level);
+        }
+        this.pngCompressionLevel = level;
+        return this;
+    }
+    
+    /**
+     * Downscale the screenshot, e.g. 0.5 for half width and height
+     */
+    public ScreenshotProfile scale(float factor) {
+        if (!(factor > 0f && factor <= 1f)) {
+            throw new IllegalArgumentException("Scale factor must be in (0, 1]: " + factor);
+        }
+        this.scale = factor;
+        return this;
+    }
+    
+    /**
+     * Drop color; PNGs are then written with 8-bit gray pixels
+     */
+    public ScreenshotProfile grayscale() {
+        this.grayscale = true;
+        return this;
+    }
+    
+    /**
+     * Keep only a region of the screen
+     * 
+     * @param screenBounds The region in screen coordinates
+     */
+    public ScreenshotProfile crop(Rect screenBounds) {
+        this.crop = new Rect(screenBounds);
+        this.cropView = null;
+        return this;
+    }
+    
+    /**
+     * Keep only the region of a view, measured when the capture starts.
+     * The profile holds the view, so use it for single calls, not as the default profile.
+     */
+    public ScreenshotProfile cropTo(View view) {
+        this.cropView = view;
+        this.crop = null;
+        return this;
+    }
+    
+    public Format getFormat() {
+        return format;
+    }
+    
+    public String getFileExtension() {
+        return format.getFileExtension();
+    }
+    
+    /**
+     * Copy the profile, resolving a view crop to the view's current screen bounds
+     */
+    ScreenshotProfile snapshot() {
+        ScreenshotProfile copy = new ScreenshotProfile(format);
+        copy.quality = quality;
+        copy.pngCompressionLevel = pngCompressionLevel;
+        copy.scale = scale;
+        copy.grayscale = grayscale;
+        if (cropView != null) {
+            int[] location = new int[2];
+            cropView.getLocationOnScreen(location);
+            copy.crop = new Rect(location[0], location[1],
+                    location[0] + cropView.getWidth(), location[1] + cropView.getHeight());
+        } else if (crop != null) {
+            copy.crop = new Rect(crop);
+        }
+        return copy;
+    }
+    
+    /**
+     * Apply crop and scale, and grayscale unless the encoder writes gray pixels itself.
+     * A hardware bitmap is copied to software first, since the encoders and the grayscale
+     * draw need to read its pixels.
+     * 
+     * @return The transformed bitmap, or the input itself if nothing changes; intermediate
+     *         bitmaps are recycled, the input is left to the caller
+     */
+    Bitmap transform(Bitmap source) {
+        Bitmap current = ScreenshotHelper.softwareCopy(source);
+        if (crop != null) {
+            Rect bounds = new Rect(crop);
+            if (bounds.intersect(0, 0, current.getWidth(), current.getHeight())) {
+                current = replace(current, source,
+                        Bitmap.createBitmap(current, bounds.left, bounds.top, bounds.width(), bounds.height()));
+            } else {
+                System.err.println("Screenshot crop " + crop + " is off screen, keeping the full screen");
+            }
+        }
+        if (scale < 1f) {
+            int width = Math.max(1, Math.round(current.getWidth() * scale));
+            int height = Math.max(1, Math.round(current.getHeight() * scale));
+            current = replace(current, source, Bitmap.createScaledBitmap(current, width, height, true));
+        }
+        if (grayscale && !usesPngEncoder()) {
+            Bitmap gray = Bitmap.createBitmap(current.getWidth(), current.getHeight(), Bitmap.Config.ARGB_8888);
+            ColorMatrix desaturate = new ColorMatrix();
+            desaturate.setSaturation(0f);
+            Paint paint = new Paint();
+            paint.setColorFilter(new ColorMatrixColorFilter(desaturate));
+            new Canvas(gray).drawBitmap(current, 0, 0, paint);
+            current = replace(current, source, gray);
+        }
+        return current;
+    }
+    
+    private static Bitmap replace(Bitmap current, Bitmap source, Bitmap next) {
+        if (current != source && current != next) {
+            current.recycle();
+        }
+        return next;
+    }
+    
+    /**
+     * Encode a transformed bitmap
+     */
+    void encode(Bitmap bitmap, OutputStream out) throws IOException {
+        if (usesPngEncoder()) {
+            PngEncoder.encode(bitmap, grayscale,
+                    pngCompressionLevel >= 0 ? pngCompressionLevel : PngEncoder.DEFAULT_LEVEL, out);
+            return;
+        }
+        boolean written;
+        switch (format) {
+            case WEBP_LOSSLESS:
+                written = bitmap.compress(webpFormat(true), 100, out);
+                break;
+            case WEBP_LOSSY:
+                written = bitmap.compress(webpFormat(false), quality, out);
+                break;
+            default:
+                written = bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+                break;
+        }
+        if (!written) {
+            throw new IOException("Bitmap could not be encoded as " + format);
+        }
+    }
+    
+    /**
+     * Identify the settings that change the encoded bytes of the same pixels: format, lossy
+     * quality, PNG encoder level and grayscale output. Crop and scale already show in the pixels.
+     * 
+     * @return e.g. "png", "png-z6-gray" or "webp-lossy-q80"
+     */
+    String getEncodingKey() {
+        StringBuilder key = new StringBuilder(format.name().toLowerCase(Locale.US).replace('_', '-'));
+        if (format == Format.WEBP_LOSSY) {
+            key.append("-q").append(quality);
+        }
+        if (usesPngEncoder()) {
+            key.append("-z").append(pngCompressionLevel >= 0 ? pngCompressionLevel : PngEncoder.DEFAULT_LEVEL);
+        }
+        if (grayscale) {
+            key.append("-gray");
+        }
+        return key.toString();
+    }
+    
+    private boolean usesPngEncoder() {
+        return format == Format.PNG && (pngCompressionLevel >= 0 || grayscale);
+    }
+    
+    /**
+     * Before API 30 there is a single WEBP format, lossless at quality 100
+     */
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webpFormat(boolean lossless) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return lossless ? Bitmap.CompressFormat.WEBP_LOSSLESS : Bitmap.CompressFormat.WEBP_LOSSY;
+        }
+        return Bitmap.CompressFormat.WEBP;
+    }
+    
+    @Override
+    public String toString() {
+        return format + (format == Format.WEBP_LOSSY ? "(" + quality + ")" : "")
+                + (pngCompressionLevel >= 0 ? " level " + pngCompressionLevel : "")
+                + (scale < 1f ? " x" + scale : "")
+                + (grayscale ? " gray" : "")
+                + (crop != null ? " crop " + crop.toShortString() : "")
+                + (cropView != null ? " crop to view" : "");
+    }
+}
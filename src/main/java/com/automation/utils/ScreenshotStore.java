@@ -0,0 +1,300 @@
+package com.automation.utils;
+
+import android.graphics.Bitmap;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Content-addressed screenshot storage: each distinct image is written once
+ * 
+ * Images are stored as objects/&lt;content hash&gt;-&lt;encoding&gt;.&lt;ext&gt; under the screenshot
+ * directory; the encoding part (e.g. "png-z6-gray") keeps captures of the same pixels written with
+ * different settings apart.
+ * Every capture appends one line to index.jsonl mapping its name to the object, with the
+ * image's difference hash (dHash) and whether it was a duplicate, so retries and data-driven
+ * runs that capture the same screen cost an index line instead of a file.
+ * 
+ * The content hash covers every pixel, so by default only identical images are merged. With a
+ * near-duplicate distance above 0, an image whose dHash differs from a stored image's in at most
+ * that many of 64 bits is also recorded as a reference to it. A dHash is computed from a 9x8
+ * grid of average brightness, so small differences such as a blinking cursor or a clock collapse,
+ * but so can small differences that matter (an error message); keep the distance low.
+ */
+final class ScreenshotStore {
+    
+    static final String OBJECTS_DIR = "objects";
+    static final String INDEX_FILE = "index.jsonl";
+    
+    private final File directory;
+    private final File objectsDirectory;
+    private final File indexFile;
+    
+    // Known objects by file name, and their dHashes for near-duplicate lookups; guarded by this
+    private final Set<String> objects = new HashSet<>();
+    private final Map<String, Long> dHashes = new HashMap<>();
+    private boolean loaded;
+    
+    ScreenshotStore(File directory) {
+        this.directory = directory;
+        this.objectsDirectory = new File(directory, OBJECTS_DIR);
+        this.indexFile = new File(directory, INDEX_FILE);
+    }
+    
+    File getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Store a transformed screenshot unless an equal (or near-equal) image is stored already
+     * 
+     * @param name The screenshot name, recorded in the index
+     * @param capturedAt Capture timestamp, recorded in the index
+     * @param nearDuplicateDistance Maximum dHash distance merged with a stored image, 0 for exact only
+     * @return The object file holding the image
+     */
+    File store(Bitmap image, String name, String capturedAt, ScreenshotProfile profile, int nearDuplicateDistance)
+            throws IOException {
+        Bitmap readable = ScreenshotHelper.softwareCopy(image);
+        try {
+            return storeReadable(readable, name, capturedAt, profile, nearDuplicateDistance);
+        } finally {
+            if (readable != image) {
+                readable.recycle();
+            }
+        }
+    }
+    
+    private File storeReadable(Bitmap image, String name, String capturedAt, ScreenshotProfile profile,
+            int nearDuplicateDistance) throws IOException {
+        Fingerprint fingerprint = Fingerprint.of(image);
+        String variant = profile.getEncodingKey() + "." + profile.getFileExtension();
+        String objectName = String.format("%016x-%s", fingerprint.contentHash, variant);
+        
+        String existing;
+        // dHash distance to the stored image for near-duplicates, -1 otherwise
+        int distance = -1;
+        synchronized (this) {
+            load();
+            existing = objects.contains(objectName) ? objectName : null;
+            if (existing == null && nearDuplicateDistance > 0) {
+                int best = nearDuplicateDistance + 1;
+                for (Map.Entry<String, Long> entry : dHashes.entrySet()) {
+                    int bits = Long.bitCount(entry.getValue() ^ fingerprint.dHash);
+                    if (bits < best && entry.getKey().endsWith("-" + variant)) {
+                        best = bits;
+                        existing = entry.getKey();
+                    }
+                }
+                distance = existing != null ? best : -1;
+            }
+            if (existing == null) {
+                // Reserve the name so a concurrent capture of the same image references it
+                objects.add(objectName);
+                dHashes.put(objectName, fingerprint.dHash);
+            }
+        }
+        
+        File object = new File(objectsDirectory, existing != null ? existing : objectName);
+        if (existing == null) {
+            try {
+                write(image, profile, object);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    objects.remove(objectName);
+                    dHashes.remove(objectName);
+                }
+                throw e;
+            }
+        }
+        appendIndex(name, capturedAt, object.getName(), fingerprint.dHash, existing != null, distance);
+        return object;
+    }
+    
+    private void write(Bitmap image, ScreenshotProfile profile, File object) throws IOException {
+        if (!objectsDirectory.exists() && !objectsDirectory.mkdirs()) {
+            throw new IOException("Failed to create " + objectsDirectory.getAbsolutePath());
+        }
+        // Write to a temporary file first, so an interrupted write never leaves a corrupt object
+        File temporary = new File(objectsDirectory, object.getName() + ".tmp");
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(temporary));
+        try {
+            profile.encode(image, out);
+            out.flush();
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(object)) {
+            temporary.delete();
+            throw new IOException("Failed to move " + temporary.getAbsolutePath() + " to " + object.getName());
+        }
+    }
+    
+    private synchronized void appendIndex(String name, String capturedAt, String objectName, long dHash,
+            boolean duplicate, int distance) throws IOException {
+        JsonObject line = new JsonObject();
+        line.addProperty("name", name);
+        line.addProperty("capturedAt", capturedAt);
+        line.addProperty("object", OBJECTS_DIR + "/" + objectName);
+        line.addProperty("dhash", String.format("%016x", dHash));
+        line.addProperty("duplicate", duplicate);
+        if (distance >= 0) {
+            line.addProperty("distance", distance);
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(indexFile, true), StandardCharsets.UTF_8);
+        try {
+            out.write(line.toString());
+            out.write('\n');
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * Pick up objects stored by earlier runs into the same directory
+     */
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        String[] files = objectsDirectory.list();
+        if (files != null) {
+            for (String file : files) {
+                if (!file.endsWith(".tmp")) {
+                    objects.add(file);
+                }
+            }
+        }
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                JsonElement object = entry.get("object");
+                JsonElement dHash = entry.get("dhash");
+                if (object == null || dHash == null) {
+                    continue;
+                }
+                String objectName = object.getAsString().substring(OBJECTS_DIR.length() + 1);
+                if (objects.contains(objectName)) {
+                    dHashes.put(objectName, parseHex(dHash.getAsString()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Failed to read screenshot index " + indexFile.getAbsolutePath() + ": "
+                    + e.getMessage());
+        }
+    }
+    
+    /**
+     * Parse 16 hex digits into a long, including values above Long.MAX_VALUE
+     */
+    private static long parseHex(String hex) {
+        return Long.parseLong(hex.substring(0, 8), 16) << 32 | Long.parseLong(hex.substring(8), 16);
+    }
+    
+    /**
+     * Exact content hash and perceptual difference hash of an image, from one pass over its rows
+     */
+    static final class Fingerprint {
+        private static final int GRID_WIDTH = 9;
+        private static final int GRID_HEIGHT = 8;
+        
+        final long contentHash;
+        final long dHash;
+        
+        private Fingerprint(long contentHash, long dHash) {
+            this.contentHash = contentHash;
+            this.dHash = dHash;
+        }
+        
+        /**
+         * @param image A bitmap whose pixels can be read, not a HARDWARE one
+         */
+        static Fingerprint of(Bitmap image) {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            Builder builder = new Builder(width, height);
+            int[] row = new int[width];
+            for (int y = 0; y < height; y++) {
+                image.getPixels(row, 0, width, 0, y, width, 1);
+                builder.addRow(row, y);
+            }
+            return builder.build();
+        }
+        
+        /**
+         * Accumulates rows of ARGB pixels; independent of Bitmap
+         */
+        static final class Builder {
+            private final int width;
+            private final int height;
+            private final int[] cellOfColumn;
+            private final long[] brightness = new long[GRID_WIDTH * GRID_HEIGHT];
+            private final long[] pixelCount = new long[GRID_WIDTH * GRID_HEIGHT];
+            private long contentHash = 0xcbf29ce484222325L;
+            
+            Builder(int width, int height) {
+                this.width = width;
+                this.height = height;
+                this.cellOfColumn = new int[width];
+                for (int x = 0; x < width; x++) {
+                    cellOfColumn[x] = (int) ((long) x * GRID_WIDTH / width);
+                }
+            }
+            
+            void addRow(int[] row, int y) {
+                int cellRow = (int) ((long) y * GRID_HEIGHT / height) * GRID_WIDTH;
+                long hash = contentHash;
+                for (int x = 0; x < width; x++) {
+                    int pixel = row[x];
+                    hash = (hash ^ pixel) * 0x100000001b3L;
+                    int cell = cellRow + cellOfColumn[x];
+                    brightness[cell] += 77 * ((pixel >> 16) & 0xff) + 150 * ((pixel >> 8) & 0xff) + 29 * (pixel & 0xff);
+                    pixelCount[cell]++;
+                }
+                contentHash = hash;
+            }
+            
+            Fingerprint build() {
+                // Mix in the size, so images with the same pixels in a different shape differ
+                long hash = (contentHash ^ ((long) width << 32 | height)) * 0x100000001b3L;
+                long dHash = 0;
+                for (int y = 0; y < GRID_HEIGHT; y++) {
+                    for (int x = 0; x < GRID_WIDTH - 1; x++) {
+                        int cell = y * GRID_WIDTH + x;
+                        // Compare averages without dividing: a/n < b/m  <=>  a*m < b*n
+                        boolean brighter = brightness[cell] * pixelCount[cell + 1]
+                                > brightness[cell + 1] * pixelCount[cell];
+                        dHash = (dHash << 1) | (brighter ? 1 : 0);
+                    }
+                }
+                return new Fingerprint(hash, dHash);
+            }
+        }
+    }
+}
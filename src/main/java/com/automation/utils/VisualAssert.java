@@ -0,0 +1,205 @@
+package com.automation.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visual regression assertions: compare the screen against golden images
+ * 
+ * Goldens are full-resolution PNGs in the goldens/ resource folder of the test APK
+ * (src/androidTest/resources/goldens/&lt;name&gt;.png), captured on the same device profile.
+ * Comparison uses PixelDiff, so an unchanged screen costs one hashing pass over its pixels;
+ * decoded goldens and their tile hashes are cached across tests.
+ * 
+ * On a mismatch the actual screenshot and a diff image (differences in red) are saved to the
+ * screenshot directory and the assertion fails with both paths. When a golden does not exist
+ * yet, the screenshot is saved as a candidate to copy into goldens/.
+ * 
+ * Usage:
+ * <pre>
+ * VisualAssert.assertMatchesGolden("login_screen");
+ * VisualAssert.assertMatchesGolden("home_screen", VisualAssert.ignoreStatusBar(new PixelDiff.Options())
+ *         .channelTolerance(4)
+ *         .maxDifferentRatio(0.001));
+ * </pre>
+ */
+public class VisualAssert {
+    
+    private static final String GOLDEN_DIR = "goldens/";
+    private static final int GOLDEN_CACHE_SIZE = 4;
+    private static final long ARTIFACT_TIMEOUT_SECONDS = 30;
+    
+    /** Decoded goldens by name, least recently used first */
+    private static final Map<String, Golden> goldens = new LinkedHashMap<String, Golden>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Golden> eldest) {
+            return size() > GOLDEN_CACHE_SIZE;
+        }
+    };
+    
+    private static final class Golden {
+        final int width;
+        final int height;
+        final int[] pixels;
+        final PixelDiff.TileHashes hashes;
+        
+        Golden(int width, int height, int[] pixels, PixelDiff.TileHashes hashes) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+            this.hashes = hashes;
+        }
+    }
+    
+    /**
+     * Assert that the screen matches a golden exactly
+     * 
+     * @param goldenName Name of the golden, without extension
+     * @return The comparison result
+     */
+    public static PixelDiff.Result assertMatchesGolden(String goldenName) {
+        return assertMatchesGolden(goldenName, new PixelDiff.Options());
+    }
+    
+    /**
+     * Assert that the screen matches a golden within the given tolerances
+     * 
+     * @param goldenName Name of the golden, without extension
+     * @param options Tolerances and ignore regions
+     * @return The comparison result
+     * @throws AssertionError if the screen differs or the golden does not exist
+     */
+    public static PixelDiff.Result assertMatchesGolden(String goldenName, PixelDiff.Options options) {
+        Bitmap screenshot = ScreenshotHelper.capture();
+        if (screenshot == null) {
+            throw new AssertionError("Could not capture the screen to compare with golden " + goldenName);
+        }
+        Bitmap software = ScreenshotHelper.softwareCopy(screenshot);
+        if (software != screenshot) {
+            screenshot.recycle();
+            screenshot = software;
+        }
+        int width = screenshot.getWidth();
+        int height = screenshot.getHeight();
+        int[] actual = new int[width * height];
+        screenshot.getPixels(actual, 0, width, 0, 0, width, height);
+        
+        Golden golden = loadGolden(goldenName, options.getTileSize());
+        if (golden == null) {
+            String path = await(ScreenshotHelper.saveAsync(screenshot, goldenName + "_candidate",
+                    ScreenshotProfile.png(), null));
+            throw new AssertionError("Golden image not found: " + GOLDEN_DIR + goldenName + ".png. "
+                    + "Screenshot saved as candidate: " + path
+                    + " (copy it to src/androidTest/resources/" + GOLDEN_DIR + goldenName + ".png)");
+        }
+        if (golden.width != width || golden.height != height) {
+            String path = await(ScreenshotHelper.saveAsync(screenshot, goldenName + "_actual",
+                    ScreenshotProfile.png(), null));
+            throw new AssertionError("Screen is " + width + "x" + height + " but golden " + goldenName + " is "
+                    + golden.width + "x" + golden.height + ". Screenshot saved: " + path);
+        }
+        
+        PixelDiff.Result result = PixelDiff.compare(golden.pixels, golden.hashes, actual, width, height, options);
+        if (result.matches()) {
+            screenshot.recycle();
+            return result;
+        }
+        
+        int[] diff = PixelDiff.renderDiff(golden.pixels, actual, width, height, options);
+        Bitmap diffImage = Bitmap.createBitmap(diff, width, height, Bitmap.Config.ARGB_8888);
+        Future<String> actualPath = ScreenshotHelper.saveAsync(screenshot, goldenName + "_actual",
+                ScreenshotProfile.png(), null);
+        Future<String> diffPath = ScreenshotHelper.saveAsync(diffImage, goldenName + "_diff",
+                ScreenshotProfile.png(), null);
+        throw new AssertionError("Screen does not match golden " + goldenName + ": " + result
+                + ". Actual: " + await(actualPath) + ", diff: " + await(diffPath));
+    }
+    
+    /**
+     * Ignore a view's current screen bounds, e.g. a clock, an ad or a progress indicator
+     */
+    public static PixelDiff.Options ignoreView(PixelDiff.Options options, View view) {
+        int[] location = new int[2];
+        view.getLocationOnScreen(location);
+        return options.ignore(location[0], location[1],
+                location[0] + view.getWidth(), location[1] + view.getHeight());
+    }
+    
+    /**
+     * Ignore the system status bar (clock, notifications, battery)
+     */
+    public static PixelDiff.Options ignoreStatusBar(PixelDiff.Options options) {
+        Resources resources = Resources.getSystem();
+        int id = resources.getIdentifier("status_bar_height", "dimen", "android");
+        int height = id != 0 ? resources.getDimensionPixelSize(id) : 0;
+        return options.ignore(0, 0, Integer.MAX_VALUE, height);
+    }
+    
+    /**
+     * Drop cached goldens, e.g. after replacing golden files during a run
+     */
+    public static void clearGoldenCache() {
+        synchronized (goldens) {
+            goldens.clear();
+        }
+    }
+    
+    @Nullable
+    private static Golden loadGolden(String goldenName, int tileSize) {
+        synchronized (goldens) {
+            Golden cached = goldens.get(goldenName);
+            if (cached != null && cached.hashes.getTileSize() == tileSize) {
+                return cached;
+            }
+        }
+        InputStream in = VisualAssert.class.getClassLoader().getResourceAsStream(GOLDEN_DIR + goldenName + ".png");
+        if (in == null) {
+            return null;
+        }
+        Bitmap bitmap;
+        try {
+            BitmapFactory.Options decode = new BitmapFactory.Options();
+            decode.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            decode.inScaled = false;
+            bitmap = BitmapFactory.decodeStream(in, null, decode);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing to do; the bitmap is already decoded
+            }
+        }
+        if (bitmap == null) {
+            throw new RuntimeException("Golden image could not be decoded: " + GOLDEN_DIR + goldenName + ".png");
+        }
+        int width = bitmap.getWidth();
+        int height = bitmap.getHeight();
+        int[] pixels = new int[width * height];
+        bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+        bitmap.recycle();
+        Golden golden = new Golden(width, height, pixels, PixelDiff.TileHashes.of(pixels, width, height, tileSize));
+        synchronized (goldens) {
+            goldens.put(goldenName, golden);
+        }
+        return golden;
+    }
+    
+    private static String await(Future<String> path) {
+        try {
+            return path.get(ARTIFACT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            return "(not saved: " + e + ")";
+        }
+    }
+}
@@ -1,7 +1,18 @@
 package com.automation.utils;
 
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.FileObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
 import androidx.test.espresso.IdlingRegistry;
 import androidx.test.espresso.IdlingResource;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.File;
 
 /**
  * Helper class for IdlingResource management
@@ -11,6 +22,8 @@ import androidx.test.espresso.IdlingResource;
  * - Network waits: Use IdlingResource or CountingIdlingResource
  * - Animations: Disable or synchronize with IdlingResource
  * - Long operations: Use IdlingResource or CountingIdlingResource
+ * - Conditions Espresso cannot observe (files, content provider rows, view properties):
+ *   use until(condition), which wakes on events and falls back to backoff polling
  * - AVOID: Thread.sleep() and manual polling loops (bad practice)
  */
 public class WaitHelper {
@@ -57,5 +70,84 @@ public class WaitHelper {
             registry.unregister(resource);
         }
     }
+    
+    /**
+     * Start building a wait for a condition Espresso cannot observe
+     * 
+     * @param condition The condition to wait for
+     * @return The wait; configure it and call await()
+     */
+    public static ConditionWait until(ConditionWait.Condition condition) {
+        return new ConditionWait(condition);
+    }
+    
+    /**
+     * Event source firing when content under a URI changes (e.g. a content provider row)
+     * 
+     * @param uri The URI to observe, including descendants
+     */
+    public static ConditionWait.EventSource contentChanges(final Uri uri) {
+        return onEvent -> {
+            final ContentObserver observer = new ContentObserver(null) {
+                @Override
+                public void onChange(boolean selfChange) {
+                    onEvent.run();
+                }
+            };
+            final ContentResolver resolver = InstrumentationRegistry.getInstrumentation()
+                    .getTargetContext().getContentResolver();
+            resolver.registerContentObserver(uri, true, observer);
+            return () -> resolver.unregisterContentObserver(observer);
+        };
+    }
+    
+    /**
+     * Event source firing when a file is created, written, moved or deleted.
+     * Watches the parent directory, so the file does not need to exist yet.
+     * 
+     * @param file The file to observe
+     */
+    @SuppressWarnings("deprecation")
+    public static ConditionWait.EventSource fileChanges(final File file) {
+        return onEvent -> {
+            final String name = file.getName();
+            final FileObserver observer = new FileObserver(file.getAbsoluteFile().getParent(),
+                    FileObserver.CREATE | FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO
+                            | FileObserver.MOVED_FROM | FileObserver.DELETE) {
+                @Override
+                public void onEvent(int event, String path) {
+                    if (name.equals(path)) {
+                        onEvent.run();
+                    }
+                }
+            };
+            observer.startWatching();
+            return () -> observer.stopWatching();
+        };
+    }
+    
+    /**
+     * Event source firing on every frame, for conditions on view properties that change while
+     * the UI renders. Frame callbacks are only posted while a wait is subscribed.
+     */
+    public static ConditionWait.EventSource frameTicks() {
+        return onEvent -> {
+            final Handler main = new Handler(Looper.getMainLooper());
+            final boolean[] active = {true};
+            final Choreographer.FrameCallback callback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    if (active[0]) {
+                        onEvent.run();
+                        Choreographer.getInstance().postFrameCallback(this);
+                    }
+                }
+            };
+            main.post(() -> Choreographer.getInstance().postFrameCallback(callback));
+            return () -> main.post(() -> {
+                active[0] = false;
+                Choreographer.getInstance().removeFrameCallback(callback);
+            });
+        };
+    }
 }
-
@@ -0,0 +1,165 @@
+package com.automation.data;
+
+import com.automation.processor.TestDataCompiler;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trip through TestDataCompiler (the compileTestData writer) and BinaryTestData:
+ * every value must read the same as through the JSON tree TestDataProvider falls back to.
+ */
+public class BinaryTestDataTest {
+    
+    private static final String JSON = "{"
+            + "\"valid_username\": \"user@example.com\","
+            + "\"amount\": 10.50,"
+            + "\"exponent\": 1e3,"
+            + "\"negative_zero\": -0,"
+            + "\"fraction\": -0.125,"
+            + "\"count\": 42,"
+            + "\"max\": 9223372036854775807,"
+            + "\"beyond_long\": 9223372036854775808,"
+            + "\"enabled\": true,"
+            + "\"disabled\": false,"
+            + "\"nothing\": null,"
+            + "\"numeric_text\": \"007\","
+            + "\"a.b\": \"whole key\","
+            + "\"nested\": {\"b\": \"inner\"},"
+            + "\"x.y\": {\"z\": \"below dotted key\", \"list\": [5]},"
+            + "\"\u00e9t\u00e9\": \"accent\","
+            + "\"z\": \"last\","
+            + "\"\ud83d\ude00\": \"emoji\","
+            + "\"duplicate\": 1, \"duplicate\": 2,"
+            + "\"accounts\": ["
+            + "  {\"id\": 1, \"balance\": 0.10, \"profile\": {\"locale\": \"en_US\", \"rate\": 2.50E-3}},"
+            + "  {\"id\": 2, \"balance\": 100.00, \"tags\": [\"a\", 1.0, true, null, []]}"
+            + "]"
+            + "}";
+    
+    @Test
+    public void everyValueReadsLikeTheJsonTree() throws IOException {
+        JsonObject tree = JsonParser.parseString(JSON).getAsJsonObject();
+        BinaryTestData binary = compile(JSON);
+        int checked = compareTree(binary, tree, "");
+        assertTrue("Expected primitives to compare, got " + checked, checked > 20);
+    }
+    
+    @Test
+    public void decimalsKeepTheirSourceText() throws IOException {
+        BinaryTestData binary = compile(JSON);
+        assertEquals("10.50", binary.getString("amount"));
+        assertEquals("1e3", binary.getString("exponent"));
+        assertEquals("-0", binary.getString("negative_zero"));
+        assertEquals("2.50E-3", binary.getString("accounts[0].profile.rate"));
+        assertEquals(10.5, binary.getDouble(binary.find("amount")), 0.0);
+        assertEquals(1000.0, binary.getDouble(binary.find("exponent")), 0.0);
+        assertEquals(BinaryTestData.TYPE_LONG, binary.type(binary.find("count")));
+        assertEquals(BinaryTestData.TYPE_DOUBLE, binary.type(binary.find("amount")));
+    }
+    
+    @Test
+    public void lookupsFollowJsonSemantics() throws IOException {
+        BinaryTestData binary = compile(JSON);
+        assertEquals("whole key", binary.getString("a.b"));
+        assertEquals("inner", binary.getString("nested.b"));
+        assertEquals("below dotted key", binary.getString("x.y.z"));
+        assertEquals(5, binary.getInt("x.y.list[0]"));
+        assertEquals(BinaryTestData.NOT_FOUND, binary.findPath("x.y.missing"));
+        assertEquals(BinaryTestData.NOT_FOUND, binary.findPath(".nested"));
+        assertEquals("2", binary.getString("duplicate"));
+        assertEquals("emoji", binary.getString("\ud83d\ude00"));
+        assertEquals("accent", binary.getString("\u00e9t\u00e9"));
+        assertEquals(2, binary.rowCount("accounts"));
+        assertEquals(BinaryTestData.NOT_FOUND, binary.find("missing"));
+        assertEquals(BinaryTestData.NOT_FOUND, binary.findPath("accounts[2].id"));
+        assertEquals(BinaryTestData.NOT_FOUND, binary.findPath("accounts[x]"));
+        assertEquals(BinaryTestData.TYPE_NULL, binary.type(binary.find("nothing")));
+        assertFalse(binary.getBoolean("disabled"));
+    }
+    
+    @Test
+    public void intsAreRangeChecked() throws IOException {
+        BinaryTestData binary = compile(JSON);
+        assertEquals(42, binary.getInt("count"));
+        assertEquals(7, binary.getInt("numeric_text"));
+        try {
+            binary.getInt("max");
+            fail("Expected " + Long.MAX_VALUE + " to be rejected as an int");
+        } catch (NumberFormatException expected) {
+            // Gson's getAsInt() rejects out-of-range text the same way
+        }
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void nullIsNotABoolean() throws IOException {
+        compile(JSON).getBoolean("nothing");
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void numberIsNotABoolean() throws IOException {
+        compile(JSON).getBoolean("count");
+    }
+    
+    private static BinaryTestData compile(String json) throws IOException {
+        return new BinaryTestData(ByteBuffer.wrap(TestDataCompiler.compile(new StringReader(json))));
+    }
+    
+    /**
+     * Compare every primitive below a JSON element with the value at the same path
+     * 
+     * @return The number of primitives compared
+     */
+    private static int compareTree(BinaryTestData binary, JsonElement element, String path) {
+        if (element.isJsonObject()) {
+            int checked = 0;
+            for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                String key = member.getKey();
+                if (key.indexOf('.') >= 0) {
+                    // Only reachable as a top-level key; checked in lookupsFollowJsonSemantics
+                    continue;
+                }
+                checked += compareTree(binary, member.getValue(), path.isEmpty() ? key : path + "." + key);
+            }
+            return checked;
+        }
+        if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            int offset = binary.findPath(path);
+            assertEquals(path, BinaryTestData.TYPE_ARRAY, binary.type(offset));
+            assertEquals(path, array.size(), binary.size(offset));
+            int checked = 0;
+            for (int i = 0; i < array.size(); i++) {
+                checked += compareTree(binary, array.get(i), path + "[" + i + "]");
+            }
+            return checked;
+        }
+        int offset = binary.findPath(path);
+        assertTrue("Missing " + path, offset >= 0);
+        if (element.isJsonNull()) {
+            assertEquals(path, BinaryTestData.TYPE_NULL, binary.type(offset));
+            return 1;
+        }
+        assertEquals(path, element.getAsString(), binary.getString(offset));
+        if (element.getAsJsonPrimitive().isNumber()) {
+            assertEquals(path, element.getAsDouble(), binary.getDouble(offset), 0.0);
+        }
+        if (element.getAsJsonPrimitive().isBoolean()) {
+            assertEquals(path, element.getAsBoolean(), binary.getBoolean(offset));
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,204 @@
+package com.automation.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks covering arrays against the full cross product: every t-tuple that occurs in some
+ * allowed row of the cross product must occur in the generated rows, and every generated row
+ * must itself be allowed.
+ */
+public class CoveringArrayGeneratorTest {
+    
+    private static ParameterSpace checkoutSpace() {
+        return new ParameterSpace()
+                .parameter("locale", "en_US", "de_DE", "ja_JP")
+                .parameter("accountType", "guest", "basic", "premium")
+                .parameter("network", "wifi", "cellular", "offline")
+                .parameter("input", "valid", "invalid")
+                .parameter("theme", "light", "dark")
+                .parameter("payment", "card", "paypal", "voucher", "invoice");
+    }
+    
+    @Test
+    public void coversEveryPair() {
+        ParameterSpace space = checkoutSpace();
+        List<Map<String, Object>> rows = CoveringArrayGenerator.generate(space);
+        assertCovers(space, rows);
+        assertTrue("Expected fewer rows than the cross product, got " + rows.size(),
+                rows.size() < space.getCrossProductSize());
+    }
+    
+    @Test
+    public void coversEveryTriple() {
+        ParameterSpace space = checkoutSpace().strength(3);
+        assertCovers(space, CoveringArrayGenerator.generate(space));
+    }
+    
+    @Test
+    public void strengthAboveParameterCountIsTheCrossProduct() {
+        ParameterSpace space = new ParameterSpace()
+                .parameter("a", 1, 2, 3)
+                .parameter("b", "x", "y")
+                .strength(4);
+        List<Map<String, Object>> rows = CoveringArrayGenerator.generate(space);
+        assertCovers(space, rows);
+        assertEquals(6, rows.size());
+    }
+    
+    @Test
+    public void respectsConstraints() {
+        ParameterSpace space = checkoutSpace()
+                .forbid("accountType", "guest", "network", "offline")
+                .forbid("locale", "ja_JP", "payment", "invoice")
+                .constraint(row -> !"guest".equals(row.get("accountType")) || !"voucher".equals(row.get("payment")));
+        assertCovers(space, CoveringArrayGenerator.generate(space));
+        assertCovers(space.strength(3), CoveringArrayGenerator.generate(space));
+    }
+    
+    @Test
+    public void emitsMustIncludeRowsFirst() {
+        Map<String, Object> full = new LinkedHashMap<>();
+        full.put("locale", "ja_JP");
+        full.put("accountType", "premium");
+        full.put("network", "offline");
+        full.put("input", "invalid");
+        full.put("theme", "dark");
+        full.put("payment", "invoice");
+        Map<String, Object> partial = Collections.<String, Object>singletonMap("network", "cellular");
+        ParameterSpace space = checkoutSpace()
+                .forbid("accountType", "guest", "network", "cellular")
+                .include(full)
+                .include(partial);
+        List<Map<String, Object>> rows = CoveringArrayGenerator.generate(space);
+        
+        assertEquals(full, rows.get(0));
+        assertEquals("cellular", rows.get(1).get("network"));
+        assertEquals(6, rows.get(1).size());
+        assertCovers(space, rows);
+    }
+    
+    @Test
+    public void isDeterministic() {
+        ParameterSpace space = checkoutSpace().forbid("accountType", "guest", "network", "offline");
+        List<Map<String, Object>> first = CoveringArrayGenerator.generate(space);
+        assertEquals(first, CoveringArrayGenerator.generate(space));
+        assertEquals(first, CoveringArrayGenerator.generate(
+                checkoutSpace().forbid("accountType", "guest", "network", "offline")));
+    }
+    
+    @Test
+    public void rejectsTuplesNoRowCanContain() {
+        // a=1 and b=1 are allowed together, but then no value of c is
+        ParameterSpace space = new ParameterSpace()
+                .parameter("a", 1, 2)
+                .parameter("b", 1, 2)
+                .parameter("c", "x", "y")
+                .forbid("a", 1, "c", "x")
+                .forbid("b", 1, "c", "y");
+        try {
+            CoveringArrayGenerator.generate(space);
+            fail("Expected the uncoverable tuple to be reported");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("{a=1, b=1}"));
+        }
+        
+        // Forbidding the tuple explicitly resolves it
+        assertCovers(space.forbid("a", 1, "b", 1), CoveringArrayGenerator.generate(space));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMustIncludeRowsViolatingConstraints() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("accountType", "guest");
+        row.put("network", "offline");
+        CoveringArrayGenerator.generate(checkoutSpace()
+                .forbid("accountType", "guest", "network", "offline")
+                .include(row));
+    }
+    
+    /**
+     * Assert that the rows are allowed complete rows covering every t-tuple of an allowed row
+     * of the cross product
+     */
+    private static void assertCovers(ParameterSpace space, List<Map<String, Object>> rows) {
+        List<String> names = space.getParameterNames();
+        int strength = Math.min(space.getStrength(), names.size());
+        
+        Set<Map<String, Object>> expected = new HashSet<>();
+        for (Map<String, Object> row : crossProduct(space)) {
+            if (allows(space, row)) {
+                expected.addAll(tuples(names, row, strength));
+            }
+        }
+        Set<Map<String, Object>> covered = new HashSet<>();
+        for (Map<String, Object> row : rows) {
+            assertEquals("Incomplete row " + row, names, new ArrayList<>(row.keySet()));
+            assertTrue("Row violates a constraint: " + row, allows(space, row));
+            covered.addAll(tuples(names, row, strength));
+        }
+        for (Map<String, Object> tuple : expected) {
+            assertTrue("Tuple not covered: " + tuple, covered.contains(tuple));
+        }
+    }
+    
+    private static List<Map<String, Object>> crossProduct(ParameterSpace space) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        rows.add(new LinkedHashMap<String, Object>());
+        List<String> names = space.getParameterNames();
+        for (int parameter = 0; parameter < names.size(); parameter++) {
+            List<Map<String, Object>> extended = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                for (Object value : space.getValues(parameter)) {
+                    Map<String, Object> next = new LinkedHashMap<>(row);
+                    next.put(names.get(parameter), value);
+                    extended.add(next);
+                }
+            }
+            rows = extended;
+        }
+        return rows;
+    }
+    
+    private static boolean allows(ParameterSpace space, Map<String, Object> row) {
+        for (ParameterSpace.Constraint constraint : space.getConstraints()) {
+            if (!constraint.allows(row::get)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * All sub-maps of a row with exactly t parameters
+     */
+    private static List<Map<String, Object>> tuples(List<String> names, Map<String, Object> row, int t) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        collectTuples(names, row, t, 0, new LinkedHashMap<String, Object>(), result);
+        return result;
+    }
+    
+    private static void collectTuples(List<String> names, Map<String, Object> row, int t, int from,
+                                      Map<String, Object> tuple, List<Map<String, Object>> result) {
+        if (tuple.size() == t) {
+            result.add(new LinkedHashMap<>(tuple));
+            return;
+        }
+        for (int i = from; i < names.size(); i++) {
+            tuple.put(names.get(i), row.get(names.get(i)));
+            collectTuples(names, row, t, i + 1, tuple, result);
+            tuple.remove(names.get(i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.automation.data;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Parses CSV documents from strings through CsvRowIterator and RowMapper, the path
+ * TestDataProvider.streamCsvData() takes for files.
+ */
+public class CsvRowIteratorTest {
+    
+    @SuppressWarnings("rawtypes")
+    private static List<Map> rows(String csv) {
+        List<Map> rows = new ArrayList<>();
+        try (CsvRowIterator<Map> iterator = iterator(csv, Map.class)) {
+            while (iterator.hasNext()) {
+                rows.add(iterator.next());
+            }
+        }
+        return rows;
+    }
+    
+    private static <T> CsvRowIterator<T> iterator(String csv, Class<T> type) {
+        return new CsvRowIterator<>(new StringReader(csv), new RowMapper<>(new Gson(), type), "test.csv");
+    }
+    
+    private static Map<String, Object> row(String... keysAndValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+    
+    @Test
+    public void readsQuotedFields() {
+        assertEquals(Arrays.asList(
+                        row("name", "Smith, John", "note", "said \"hi\""),
+                        row("name", "two\nlines", "note", "")),
+                rows("\uFEFFname,note\r\n\"Smith, John\",\"said \"\"hi\"\"\"\r\n\n\"two\nlines\",\"\"\r\n"));
+    }
+    
+    @Test
+    public void keepsEmptyCells() {
+        assertEquals(Arrays.asList(row("a", "", "b", "2", "c", ""), row("a", "1")),
+                rows("a,b,c\n,2,\n1"));
+    }
+    
+    @Test
+    public void bindsEmptyCellsAsEmptyStrings() {
+        try (CsvRowIterator<Account> iterator = iterator("user,locale\nalice,\n", Account.class)) {
+            Account account = iterator.next();
+            assertEquals("alice", account.user);
+            assertEquals("", account.locale);
+            assertFalse(iterator.hasNext());
+        }
+    }
+    
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void rejectsTextAfterClosingQuote() {
+        CsvRowIterator<Map> iterator = iterator("a,b\n1,2\n\"multi\nline\",\"x\"y\n", Map.class);
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Expected a parse error");
+        } catch (RuntimeException e) {
+            String message = e.getCause().getMessage();
+            assertTrue(message, message.contains("test.csv"));
+            assertTrue(message, message.contains("line 4"));
+        }
+        assertFalse(iterator.hasNext());
+    }
+    
+    static class Account {
+        String user;
+        String locale;
+    }
+}
@@ -0,0 +1,139 @@
+package com.automation.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that generated rows depend only on the seed and row index: reproducible, unique where
+ * requested, and split into disjoint shards that together cover the run.
+ */
+public class SyntheticDataGeneratorTest {
+    
+    private static SyntheticDataSchema usersSchema() {
+        return new SyntheticDataSchema()
+                .sequence("id", 1000, 1)
+                .pattern("username", "user_####").unique()
+                .template("email", "{username}@example.com")
+                .intRange("pin", 0, 999).unique()
+                .choice("plan", "free", "basic", "premium")
+                .intRange("age", 18, 90)
+                .gaussian("score", 70, 12)
+                .bool("premium", 0.1);
+    }
+    
+    @Test
+    public void sameSeedGivesSameRows() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(usersSchema(), 42L);
+        List<Map<String, Object>> streamed = collect(generator.rows(200));
+        List<Map<String, Object>> again = collect(new SyntheticDataGenerator(usersSchema(), 42L).rows(200));
+        assertEquals(streamed, again);
+        // Any row can be generated on its own
+        for (int i = 199; i >= 0; i -= 13) {
+            assertEquals(streamed.get(i), generator.row(i));
+        }
+        assertNotEquals(streamed, collect(new SyntheticDataGenerator(usersSchema(), 43L).rows(200)));
+    }
+    
+    @Test
+    public void rowsKeepTheirValuesWhenFieldsAreAdded() {
+        SyntheticDataSchema extended = usersSchema().pattern("password", "Pass??##");
+        Map<String, Object> row = new SyntheticDataGenerator(usersSchema(), 7L).row(5);
+        Map<String, Object> extendedRow = new SyntheticDataGenerator(extended, 7L).row(5);
+        extendedRow.remove("password");
+        assertEquals(row, extendedRow);
+    }
+    
+    @Test
+    public void gaussianValuesArePinned() {
+        // StrictMath makes the value the same on every device; a change here changes every data set
+        SyntheticDataGenerator.Random random = new SyntheticDataGenerator.Random(42L);
+        assertEquals(0x1.c3b620ee5015bp-1, random.nextGaussian(), 0.0);
+        
+        double sum = 0;
+        int samples = 20000;
+        random.reset(1L);
+        for (int i = 0; i < samples; i++) {
+            sum += random.nextGaussian();
+        }
+        assertEquals(0.0, sum / samples, 0.05);
+    }
+    
+    @Test
+    public void uniqueFieldsNeverRepeat() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(usersSchema(), 42L);
+        Set<Object> usernames = new HashSet<>();
+        Set<Object> pins = new HashSet<>();
+        try (DataRowIterator<Map<String, Object>> rows = generator.rows(1000)) {
+            while (rows.hasNext()) {
+                Map<String, Object> row = rows.next();
+                assertTrue("Duplicate username " + row, usernames.add(row.get("username")));
+                assertTrue("Duplicate pin " + row, pins.add(row.get("pin")));
+                assertEquals(row.get("username") + "@example.com", row.get("email"));
+            }
+        }
+        // pin has exactly 1000 values, so the run used each of them once
+        assertEquals(1000, pins.size());
+    }
+    
+    @Test
+    public void uniqueFieldRejectsRowsBeyondItsDomain() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(usersSchema(), 42L);
+        try {
+            generator.row(1000);
+            fail("Expected pin to run out of distinct values");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("pin"));
+        }
+    }
+    
+    @Test
+    public void shardsAreDisjointAndCoverTheRun() {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(usersSchema(), 42L);
+        List<Map<String, Object>> all = collect(generator.rows(301));
+        Set<Object> ids = new HashSet<>();
+        int total = 0;
+        for (int shard = 0; shard < 4; shard++) {
+            List<Map<String, Object>> rows = collect(
+                    new SyntheticDataGenerator(usersSchema(), 42L).rows(301, shard, 4));
+            for (Map<String, Object> row : rows) {
+                assertTrue("Row in two shards: " + row, ids.add(row.get("id")));
+                int index = ((Number) row.get("id")).intValue() - 1000;
+                assertEquals(shard, index % 4);
+                assertEquals(all.get(index), row);
+            }
+            total += rows.size();
+        }
+        assertEquals(301, total);
+    }
+    
+    @Test
+    public void smallIntegersAreBoxedAsInteger() {
+        Map<String, Object> row = new SyntheticDataGenerator(new SyntheticDataSchema()
+                .sequence("small", 1, 1)
+                .sequence("large", Integer.MAX_VALUE + 1L, 1), 1L).row(0);
+        assertEquals(Integer.valueOf(1), row.get("small"));
+        assertEquals(Long.valueOf(Integer.MAX_VALUE + 1L), row.get("large"));
+    }
+    
+    private static <T> List<T> collect(DataRowIterator<T> rows) {
+        List<T> result = new ArrayList<>();
+        try {
+            while (rows.hasNext()) {
+                result.add(rows.next());
+            }
+        } finally {
+            rows.close();
+        }
+        return result;
+    }
+}
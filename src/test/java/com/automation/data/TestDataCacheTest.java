@@ -0,0 +1,155 @@
+package com.automation.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks single-flight loading, weight-bounded LRU eviction and removal notifications
+ */
+public class TestDataCacheTest {
+    
+    private static final TestDataCache.Weigher<String> LENGTH = String::length;
+    
+    private final List<String> removed = Collections.synchronizedList(new ArrayList<String>());
+    
+    private TestDataCache<String> cache(long maxWeight) {
+        TestDataCache<String> cache = new TestDataCache<>(maxWeight, LENGTH);
+        cache.setRemovalListener(removed::add);
+        return cache;
+    }
+    
+    private static TestDataCache.Loader<String> value(final String value) {
+        return key -> value;
+    }
+    
+    @Test
+    public void concurrentMissesShareOneLoad() throws Exception {
+        final TestDataCache<String> cache = cache(100);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestDataCache.Loader<String> loader = key -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return new String("value");
+        };
+        
+        int threads = 8;
+        final String[] results = new String[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            Thread worker = new Thread(() -> results[index] = cache.get("users.json", loader));
+            workers.add(worker);
+            worker.start();
+        }
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        // Every thread has missed and joined the load before it completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.stats().getMissCount() < threads && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Thread worker : workers) {
+            worker.join(5000);
+        }
+        
+        assertEquals(1, loads.get());
+        for (String result : results) {
+            assertSame(results[0], result);
+        }
+        assertEquals(1, cache.stats().getLoadCount());
+        assertEquals("value", cache.get("users.json", value("other")));
+        assertEquals(1, cache.stats().getHitCount());
+    }
+    
+    @Test
+    public void failedLoadsAreNotCached() {
+        TestDataCache<String> cache = cache(100);
+        try {
+            cache.get("missing.json", key -> {
+                throw new IOException("not found: " + key);
+            });
+            fail("Expected the load to fail");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals("loaded", cache.get("missing.json", value("loaded")));
+        assertEquals(1, cache.stats().getLoadFailureCount());
+        assertEquals(1, cache.stats().getLoadCount());
+    }
+    
+    @Test
+    public void evictsLeastRecentlyUsedOverBudget() {
+        TestDataCache<String> cache = cache(10);
+        cache.get("a", value("aaaa"));
+        cache.get("b", value("bbbb"));
+        // Touch "a", so "b" is now the least recently used
+        cache.getIfPresent("a");
+        cache.get("c", value("cccc"));
+        
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("aaaa", cache.getIfPresent("a"));
+        assertEquals("cccc", cache.getIfPresent("c"));
+        assertEquals(Arrays.asList("b"), removed);
+        assertEquals(8, cache.stats().getWeight());
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+    
+    @Test
+    public void keepsNewestEntryEvenOverBudget() {
+        TestDataCache<String> cache = cache(10);
+        cache.get("a", value("aaaa"));
+        cache.get("huge", value("0123456789abcdef"));
+        
+        assertEquals(1, cache.stats().getSize());
+        assertEquals(16, cache.stats().getWeight());
+        assertEquals(Arrays.asList("a"), removed);
+    }
+    
+    @Test
+    public void shrinkingTheBudgetEvicts() {
+        TestDataCache<String> cache = cache(100);
+        cache.get("a", value("aaaa"));
+        cache.get("b", value("bbbb"));
+        cache.get("c", value("cccc"));
+        cache.setMaxWeight(5);
+        
+        assertEquals(Arrays.asList("a", "b"), removed);
+        assertEquals(4, cache.stats().getWeight());
+    }
+    
+    @Test
+    public void invalidatePrefixRemovesDerivedEntries() {
+        TestDataCache<String> cache = cache(100);
+        cache.get("users.json", value("tree"));
+        cache.get("users.json#accounts", value("index"));
+        cache.get("orders.json", value("other"));
+        cache.invalidatePrefix("users.json");
+        
+        assertEquals(Arrays.asList("users.json", "users.json#accounts"), removed);
+        assertNull(cache.getIfPresent("users.json#accounts"));
+        assertEquals("other", cache.getIfPresent("orders.json"));
+        assertEquals(5, cache.stats().getWeight());
+        
+        // invalidateAll() clears without notifying
+        cache.invalidateAll();
+        assertEquals(2, removed.size());
+        assertEquals(0, cache.stats().getSize());
+    }
+}
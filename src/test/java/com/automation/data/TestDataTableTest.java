@@ -0,0 +1,179 @@
+package com.automation.data;
+
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Builds tables from JSON rows the way TestDataProvider.getDataTable() streams them, and checks
+ * column types, null tracking, views and cursors.
+ */
+public class TestDataTableTest {
+    
+    private static TestDataTable table(String jsonArray) throws IOException {
+        TestDataTable.Builder builder = new TestDataTable.Builder();
+        JsonReader in = new JsonReader(new StringReader(jsonArray));
+        in.beginArray();
+        while (in.hasNext()) {
+            builder.readRow(in);
+        }
+        in.endArray();
+        return builder.build();
+    }
+    
+    private static TestDataTable users() throws IOException {
+        return table("["
+                + "{\"name\": \"alice\", \"age\": 30, \"role\": \"admin\", \"active\": true},"
+                + "{\"name\": \"bob\", \"age\": 3, \"role\": \"user\", \"active\": false},"
+                + "{\"name\": \"carol\", \"age\": 41, \"role\": \"user\", \"active\": true},"
+                + "{\"name\": \"dave\", \"age\": 3, \"role\": null, \"active\": true}"
+                + "]");
+    }
+    
+    private static List<String> names(TestDataTable table) {
+        List<String> names = new ArrayList<>();
+        TestDataTable.Cursor row = table.cursor();
+        while (row.next()) {
+            names.add(row.getString("name"));
+        }
+        return names;
+    }
+    
+    @Test
+    public void columnsWidenToFitTheirValues() throws IOException {
+        TestDataTable table = table("["
+                + "{\"id\": 1, \"big\": 1, \"amount\": 1, \"mixed\": 1, \"flag\": true, \"nested\": {\"a\": 1}},"
+                + "{\"id\": 2, \"big\": 3000000000, \"amount\": 2.5, \"mixed\": \"x\", \"flag\": false,"
+                + " \"nested\": [1, 2]}"
+                + "]");
+        assertEquals(TestDataTable.ColumnType.INT, table.getColumnType("id"));
+        assertEquals(TestDataTable.ColumnType.LONG, table.getColumnType("big"));
+        assertEquals(TestDataTable.ColumnType.DOUBLE, table.getColumnType("amount"));
+        assertEquals(TestDataTable.ColumnType.STRING, table.getColumnType("mixed"));
+        assertEquals(TestDataTable.ColumnType.BOOLEAN, table.getColumnType("flag"));
+        assertEquals(TestDataTable.ColumnType.STRING, table.getColumnType("nested"));
+        
+        // Values stored before a promotion survive it
+        int big = table.getColumnIndex("big");
+        assertEquals(1L, table.getLong(0, big));
+        assertEquals(3000000000L, table.getLong(1, big));
+        assertEquals(1.0, table.getDouble(0, table.getColumnIndex("amount")), 0.0);
+        assertEquals("1", table.getString(0, table.getColumnIndex("mixed")));
+        assertEquals("x", table.getString(1, table.getColumnIndex("mixed")));
+        assertEquals("{\"a\":1}", table.getString(0, table.getColumnIndex("nested")));
+        assertEquals(Integer.valueOf(2), table.getValue(1, table.getColumnIndex("id")));
+    }
+    
+    @Test
+    public void nullsAreTrackedPerCell() throws IOException {
+        // Enough rows to span several words of the null bitset
+        StringBuilder json = new StringBuilder("[");
+        for (int row = 0; row < 150; row++) {
+            json.append(row == 0 ? "" : ",").append("{\"row\": ").append(row);
+            if (row % 3 == 0) {
+                json.append(", \"sparse\": ").append(row);
+            } else if (row % 3 == 1) {
+                json.append(", \"sparse\": null");
+            }
+            if (row == 149) {
+                json.append(", \"late\": \"last\"");
+            }
+            json.append(", \"empty\": null}");
+        }
+        TestDataTable table = table(json.append(']').toString());
+        
+        int sparse = table.getColumnIndex("sparse");
+        int late = table.getColumnIndex("late");
+        int empty = table.getColumnIndex("empty");
+        for (int row = 0; row < 150; row++) {
+            assertEquals("row " + row, row % 3 != 0, table.isNull(row, sparse));
+            assertEquals("row " + row, row != 149, table.isNull(row, late));
+            assertTrue(table.isNull(row, empty));
+        }
+        assertEquals(63, table.getInt(63, sparse));
+        assertNull(table.getValue(64, sparse));
+        assertNull(table.getString(64, sparse));
+        assertEquals("last", table.getString(149, late));
+        
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("row", 1);
+        assertEquals(expected, table.toMap(1));
+        try {
+            table.getInt(1, sparse);
+            fail("Expected reading a null cell as int to fail");
+        } catch (IllegalStateException expectedFailure) {
+            // Nulls have no primitive value
+        }
+    }
+    
+    @Test
+    public void filtersReturnViewsOverTheRows() throws IOException {
+        TestDataTable table = users();
+        assertEquals(Arrays.asList("bob", "carol"), names(table.filterEquals("role", "user")));
+        // Filter values are converted to the column type
+        assertEquals(Arrays.asList("bob", "dave"), names(table.filterEquals("age", "3")));
+        assertEquals(Arrays.asList("bob", "dave"), names(table.filterEquals("age", 3L)));
+        assertEquals(Arrays.asList("alice", "carol", "dave"), names(table.filterEquals("active", "true")));
+        assertEquals(Arrays.asList("dave"), names(table.filterEquals("role", null)));
+        assertEquals(0, table.filterEquals("role", "guest").getRowCount());
+        assertEquals(0, table.filterEquals("age", "3.5").getRowCount());
+        
+        // Views of views map back to the original rows
+        TestDataTable activeUsers = table.filterEquals("role", "user").filterEquals("active", true);
+        assertEquals(Arrays.asList("carol"), names(activeUsers));
+        assertEquals(41, activeUsers.getInt(0, activeUsers.getColumnIndex("age")));
+        
+        TestDataTable older = table.filter(row -> row.getInt("age") > 10);
+        assertEquals(Arrays.asList("alice", "carol"), names(older));
+        
+        TestDataTable projected = older.select("age", "name");
+        assertEquals(Arrays.asList("age", "name"), projected.getColumnNames());
+        assertEquals(2, projected.getRowCount());
+        assertEquals("carol", projected.getString(1, 1));
+        assertEquals(-1, projected.getColumnIndex("role"));
+    }
+    
+    @Test
+    public void cursorIsReusedAcrossRows() throws IOException {
+        TestDataTable table = users().filterEquals("active", true);
+        final List<TestDataTable.Cursor> seen = new ArrayList<>();
+        table.filter(row -> {
+            seen.add(row);
+            return true;
+        });
+        assertEquals(3, seen.size());
+        assertSame(seen.get(0), seen.get(2));
+        
+        TestDataTable.Cursor row = table.cursor();
+        assertEquals(-1, row.getPosition());
+        assertTrue(row.next());
+        assertEquals("alice", row.getString("name"));
+        row.moveTo(2);
+        assertEquals("dave", row.getString("name"));
+        assertTrue(row.isNull("role"));
+        assertFalse(row.next());
+        assertFalse(row.next());
+        assertEquals(3, row.getPosition());
+        try {
+            row.moveTo(3);
+            fail("Expected moving past the view to fail");
+        } catch (IndexOutOfBoundsException expected) {
+            // The view has three rows
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.automation.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares small synthetic images whose differences are known, and a large one against a
+ * pixel-by-pixel count.
+ */
+public class PixelDiffTest {
+    
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 64;
+    
+    /**
+     * Gradient image, so every tile has its own hash
+     */
+    private static int[] image(int width, int height) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = 0xff000000 | (x * 3 & 0xff) << 16 | (y * 5 & 0xff) << 8 | ((x ^ y) & 0xff);
+            }
+        }
+        return pixels;
+    }
+    
+    private static int[] changed(int[] pixels, int width, int... points) {
+        int[] copy = pixels.clone();
+        for (int i = 0; i < points.length; i += 2) {
+            copy[points[i + 1] * width + points[i]] ^= 0x00ffffff;
+        }
+        return copy;
+    }
+    
+    private static PixelDiff.Result compare(int[] expected, int[] actual, PixelDiff.Options options) {
+        return PixelDiff.compare(expected, actual, WIDTH, HEIGHT, options);
+    }
+    
+    @Test
+    public void unchangedTilesAreSkippedByHash() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.Result result = compare(golden, golden.clone(), new PixelDiff.Options());
+        assertTrue(result.matches());
+        assertEquals(4, result.getTotalTiles());
+        assertEquals(0, result.getDiffedTiles());
+        assertEquals(WIDTH * HEIGHT, result.getComparedPixels());
+        assertNull(result.getDifferenceBounds());
+    }
+    
+    @Test
+    public void onlyChangedTilesAreDiffed() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.Result result = compare(golden, changed(golden, WIDTH, 40, 10), new PixelDiff.Options());
+        assertFalse(result.matches());
+        assertEquals(1, result.getDiffedTiles());
+        assertEquals(1, result.getChangedTiles());
+        assertEquals(1, result.getDifferentPixels());
+        assertArrayEquals(new int[] {40, 10, 41, 11}, result.getDifferenceBounds());
+    }
+    
+    @Test
+    public void boundsSpanAllChangedTiles() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.Result result = compare(golden, changed(golden, WIDTH, 1, 2, 60, 50, 33, 40),
+                new PixelDiff.Options());
+        assertEquals(3, result.getDifferentPixels());
+        assertEquals(2, result.getChangedTiles());
+        assertArrayEquals(new int[] {1, 2, 61, 51}, result.getDifferenceBounds());
+    }
+    
+    @Test
+    public void toleranceAbsorbsSmallChannelDifferences() {
+        int[] golden = image(WIDTH, HEIGHT);
+        int[] actual = golden.clone();
+        // Blue channel of one pixel off by 3
+        actual[5 * WIDTH + 5] = golden[5 * WIDTH + 5] ^ 0x03;
+        assertEquals(0, compare(golden, actual, new PixelDiff.Options().channelTolerance(3)).getDifferentPixels());
+        PixelDiff.Result strict = compare(golden, actual, new PixelDiff.Options().channelTolerance(2));
+        assertEquals(1, strict.getDifferentPixels());
+        assertFalse(strict.matches());
+    }
+    
+    @Test
+    public void thresholdsAllowSomeDifferentPixels() {
+        int[] golden = image(WIDTH, HEIGHT);
+        int[] actual = changed(golden, WIDTH, 1, 1, 2, 2);
+        assertTrue(compare(golden, actual, new PixelDiff.Options().maxDifferentPixels(2)).matches());
+        assertFalse(compare(golden, actual, new PixelDiff.Options().maxDifferentPixels(1)).matches());
+        // 2 of 4096 pixels
+        assertTrue(compare(golden, actual, new PixelDiff.Options().maxDifferentRatio(0.001)).matches());
+        assertFalse(compare(golden, actual, new PixelDiff.Options().maxDifferentRatio(0.0001)).matches());
+    }
+    
+    @Test
+    public void fullyIgnoredTilesAreSkipped() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.Result result = compare(golden, changed(golden, WIDTH, 10, 10),
+                new PixelDiff.Options().ignore(0, 0, 32, 32));
+        assertTrue(result.matches());
+        assertEquals(0, result.getDiffedTiles());
+        assertEquals(WIDTH * HEIGHT - 32 * 32, result.getComparedPixels());
+    }
+    
+    @Test
+    public void partlyIgnoredTilesSkipOnlyIgnoredPixels() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.Options options = new PixelDiff.Options().ignore(0, 0, 16, 16);
+        // The tile is diffed even though nothing changed outside the region
+        assertEquals(1, compare(golden, golden.clone(), options).getDiffedTiles());
+        
+        PixelDiff.Result result = compare(golden, changed(golden, WIDTH, 5, 5, 20, 20), options);
+        assertEquals(1, result.getDifferentPixels());
+        assertEquals(WIDTH * HEIGHT - 16 * 16, result.getComparedPixels());
+        assertArrayEquals(new int[] {20, 20, 21, 21}, result.getDifferenceBounds());
+    }
+    
+    @Test
+    public void renderedDiffMarksChangedAndIgnoredPixels() {
+        int[] golden = image(WIDTH, HEIGHT);
+        int[] diff = PixelDiff.renderDiff(golden, changed(golden, WIDTH, 40, 40, 1, 1), WIDTH, HEIGHT,
+                new PixelDiff.Options().ignore(0, 0, 4, 4));
+        assertEquals(0xffff0000, diff[40 * WIDTH + 40]);
+        assertEquals(0xff404040, diff[WIDTH + 1]);
+        assertFalse(diff[50 * WIDTH + 50] == 0xffff0000);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsHashesOfAnotherSize() {
+        int[] golden = image(WIDTH, HEIGHT);
+        PixelDiff.compare(golden, PixelDiff.TileHashes.of(golden, WIDTH, HEIGHT / 2, 32), golden, WIDTH, HEIGHT,
+                new PixelDiff.Options());
+    }
+    
+    /**
+     * Large enough for runBands() to split both passes across the pool on a multi-core machine
+     */
+    @Test
+    public void largeImageMatchesPixelByPixelCount() {
+        int width = 517;
+        int height = 389;
+        int[] golden = image(width, height);
+        int[] actual = golden.clone();
+        long expectedDifferent = 0;
+        int[] expectedBounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 0};
+        for (int i = 0; i < actual.length; i += 997) {
+            actual[i] ^= 0x00101010;
+            int x = i % width;
+            int y = i / width;
+            if (x >= 100 && x < 300 && y >= 50 && y < 70) {
+                continue;
+            }
+            expectedDifferent++;
+            expectedBounds[0] = Math.min(expectedBounds[0], x);
+            expectedBounds[1] = Math.min(expectedBounds[1], y);
+            expectedBounds[2] = Math.max(expectedBounds[2], x + 1);
+            expectedBounds[3] = Math.max(expectedBounds[3], y + 1);
+        }
+        PixelDiff.Options options = new PixelDiff.Options().tileSize(16).ignore(100, 50, 300, 70);
+        // Hashes for another tile size are recomputed
+        PixelDiff.TileHashes hashes = PixelDiff.TileHashes.of(golden, width, height, 32);
+        PixelDiff.Result result = PixelDiff.compare(golden, hashes, actual, width, height, options);
+        
+        assertEquals(expectedDifferent, result.getDifferentPixels());
+        assertEquals(width * height - 200 * 20, result.getComparedPixels());
+        assertEquals(Arrays.toString(expectedBounds), Arrays.toString(result.getDifferenceBounds()));
+        assertEquals(33 * 25, result.getTotalTiles());
+        
+        PixelDiff.Result fresh = PixelDiff.compare(golden, actual, width, height, options);
+        assertEquals(result.getDifferentPixels(), fresh.getDifferentPixels());
+        assertEquals(result.getDiffedTiles(), fresh.getDiffedTiles());
+    }
+}